@@ -0,0 +1,104 @@
+import java.util.*;
+
+/**
+ * AStarSearch implements the Search interface using the A* algorithm, which orders the frontier by the
+ * distance from the source plus a {@link Heuristic} estimate of the remaining distance to the destination.
+ * <p>
+ * With an admissible heuristic the returned paths are shortest paths, while the search explores far fewer
+ * vertices than {@link DijkstraSearch} because it is pulled towards the destination. It runs over the
+ * {@link CsrGraph} snapshot of the graph with the heap and labels of the calling thread's
+ * {@link SearchWorkspace}, like Dijkstra, so an instance over a {@link CsrGraph} can serve concurrent
+ * queries if its heuristic can.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class AStarSearch<V> implements Search<V> {
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private Heuristic<V> heuristic;
+
+    /**
+     * Constructs an AStarSearch object with the specified weighted graph and heuristic.
+     *
+     * @param graph     the weighted graph to search
+     * @param heuristic the estimate of the remaining distance to the destination
+     */
+    public AStarSearch(WeightedGraph<V> graph, Heuristic<V> heuristic) {
+        this.graph = graph;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Constructs an AStarSearch object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot  the CSR graph to search
+     * @param heuristic the estimate of the remaining distance to the destination
+     */
+    public AStarSearch(CsrGraph<V> snapshot, Heuristic<V> heuristic) {
+        this.snapshot = snapshot;
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        CsrGraph<V> csr = graph != null ? graph.freeze() : snapshot;
+        // Reopening vertices never ends on a negative cycle, so refuse negative edges like Dijkstra
+        if (csr.minWeight() < 0) {
+            throw new IllegalArgumentException("Edge weight " + csr.minWeight() + " is out of the range");
+        }
+        return csr;
+    }
+
+    /**
+     * Finds the shortest path from the source vertex to the destination vertex using A*.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     * @throws IllegalArgumentException if a vertex is not present in the graph or an edge weight is negative
+     */
+    @Override
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
+        CsrGraph<V> csr = csr();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(csr.vertexCount());
+            IndexedDaryHeap queue = workspace.heap();
+            DistanceLabels labels = workspace.labels();
+
+            labels.set(from, 0.0, -1);
+            queue.insert(from, heuristic.estimate(csr, from, to));
+
+            while (!queue.isEmpty()) {
+                int currentVertex = queue.pollMin();
+                if (currentVertex == to) {
+                    break;
+                }
+                double currentDistance = labels.distance(currentVertex);
+
+                for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                    int neighborVertex = csr.target(e);
+                    double distanceThroughCurrent = currentDistance + csr.weight(e);
+
+                    // A vertex settled under an inconsistent heuristic is reopened when a shorter path is found
+                    if (distanceThroughCurrent < labels.distance(neighborVertex)) {
+                        labels.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                        double priority = distanceThroughCurrent + heuristic.estimate(csr, neighborVertex, to);
+                        queue.insertOrDecrease(neighborVertex, priority);
+                    }
+                }
+            }
+
+            LinkedList<V> path = new LinkedList<>();
+            for (int v = to; v != -1; v = labels.parent(v)) {
+                path.addFirst(csr.vertex(v).getData());
+            }
+            return new ArrayList<>(path);
+        }
+    }
+}
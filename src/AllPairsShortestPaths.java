@@ -0,0 +1,324 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the shortest distance between every pair of vertices into a {@link DistanceMatrix}.
+ * <p>
+ * Two algorithms are available. Floyd-Warshall runs in {@code O(n^3)} regardless of the number of edges and is
+ * blocked for the cache: every round takes a strip of {@value #BLOCK} intermediate vertices, closes the pivot
+ * strip and then updates all other strips of rows in parallel, tile by tile, against the pivot strip held in an
+ * array. Johnson's algorithm runs one Dijkstra search per source on the worker threads, in
+ * {@code O(n m log n)}; when some weights are negative it first computes vertex potentials with a queue-based
+ * Bellman-Ford search and runs the searches on the reweighted edges {@code w(u, v) + h(u) - h(v)}, which are
+ * non-negative. {@link #compute()} picks whichever is expected to be cheaper for the density of the graph.
+ * <p>
+ * Both algorithms support negative edge weights and reject graphs with a negative cycle. Row and column
+ * {@code i} of the matrix belong to the vertex with id {@code i} in the CSR snapshot, see {@link #indexOf(Vertex)}.
+ * Unreachable pairs have a distance of positive infinity.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class AllPairsShortestPaths<V> {
+    private static final int BLOCK = 64;
+    private static final int SOURCE_CHUNK = 16;
+    // Measured costs of one edge scan and one heap operation of Dijkstra, in Floyd-Warshall inner-loop steps
+    private static final double EDGE_COST = 2.0;
+    private static final double HEAP_COST = 16.0;
+
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs an AllPairsShortestPaths object with the specified weighted graph, using the common ForkJoin pool.
+     *
+     * @param graph the weighted graph to search
+     */
+    public AllPairsShortestPaths(WeightedGraph<V> graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs an AllPairsShortestPaths object with the specified weighted graph and pool.
+     *
+     * @param graph the weighted graph to search
+     * @param pool  the pool that runs the searches
+     */
+    public AllPairsShortestPaths(WeightedGraph<V> graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs an AllPairsShortestPaths object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to search
+     * @param pool     the pool that runs the searches
+     */
+    public AllPairsShortestPaths(CsrGraph<V> snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        return graph != null ? graph.freeze() : snapshot;
+    }
+
+    /**
+     * Returns the row and column of the specified vertex in the matrices computed from the current graph.
+     *
+     * @param vertex the vertex to look up
+     * @return the id of the vertex
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int indexOf(Vertex<V> vertex) {
+        return csr().indexOf(vertex);
+    }
+
+    /**
+     * Computes all shortest distances into a new matrix in direct memory, with the algorithm expected to be
+     * cheaper for the graph.
+     *
+     * @return the distance matrix
+     * @throws IllegalArgumentException if the graph contains a negative cycle
+     */
+    public DistanceMatrix compute() {
+        CsrGraph<V> csr = csr();
+        return compute(csr, DistanceMatrix.allocate(csr.vertexCount()));
+    }
+
+    /**
+     * Computes all shortest distances into the specified matrix, for example one created with
+     * {@link DistanceMatrix#create(java.nio.file.Path, int)}, with the algorithm expected to be cheaper.
+     *
+     * @param matrix the matrix that receives the distances
+     * @return the matrix
+     * @throws IllegalArgumentException if the size of the matrix does not match the graph or the graph contains
+     *                                  a negative cycle
+     */
+    public DistanceMatrix compute(DistanceMatrix matrix) {
+        return compute(csr(), matrix);
+    }
+
+    private DistanceMatrix compute(CsrGraph<V> csr, DistanceMatrix matrix) {
+        double n = csr.vertexCount();
+        double johnsonCost = n * (EDGE_COST * csr.edgeCount() + HEAP_COST * n * Math.log(n + 1));
+        return johnsonCost < n * n * n ? johnson(csr, matrix) : floydWarshall(csr, matrix);
+    }
+
+    /**
+     * Computes all shortest distances into the specified matrix with blocked Floyd-Warshall.
+     *
+     * @param matrix the matrix that receives the distances
+     * @return the matrix
+     * @throws IllegalArgumentException if the size of the matrix does not match the graph or the graph contains
+     *                                  a negative cycle
+     */
+    public DistanceMatrix floydWarshall(DistanceMatrix matrix) {
+        return floydWarshall(csr(), matrix);
+    }
+
+    /**
+     * Computes all shortest distances into the specified matrix with Johnson's algorithm.
+     *
+     * @param matrix the matrix that receives the distances
+     * @return the matrix
+     * @throws IllegalArgumentException if the size of the matrix does not match the graph or the graph contains
+     *                                  a negative cycle
+     */
+    public DistanceMatrix johnson(DistanceMatrix matrix) {
+        return johnson(csr(), matrix);
+    }
+
+    private DistanceMatrix floydWarshall(CsrGraph<V> csr, DistanceMatrix matrix) {
+        int n = checkSize(csr, matrix);
+        invoke(IntStream.range(0, n), row -> {
+            double[] distances = new double[n];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            distances[row] = 0.0;
+            for (int e = csr.edgeStart(row), end = csr.edgeEnd(row); e < end; e++) {
+                distances[csr.target(e)] = Math.min(distances[csr.target(e)], csr.weight(e));
+            }
+            matrix.setRow(row, distances, 0);
+        });
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        double[] pivot = new double[Math.min(n, BLOCK) * n];
+        for (int block = 0; block < blocks; block++) {
+            int k0 = block * BLOCK;
+            int pivotRows = Math.min(BLOCK, n - k0);
+            for (int i = 0; i < pivotRows; i++) {
+                matrix.getRow(k0 + i, pivot, i * n);
+            }
+            // Close the pivot tile first, then the rest of the pivot strip through it
+            relaxTile(pivot, pivotRows, n, k0, k0 + pivotRows, pivot, k0, pivot, pivotRows);
+            for (int j0 = 0; j0 < n; j0 += BLOCK) {
+                if (j0 != k0) {
+                    relaxTile(pivot, pivotRows, n, j0, Math.min(n, j0 + BLOCK), pivot, k0, pivot, pivotRows);
+                }
+            }
+            for (int i = 0; i < pivotRows; i++) {
+                matrix.setRow(k0 + i, pivot, i * n);
+            }
+
+            int pivotBlock = block;
+            invoke(IntStream.range(0, blocks).filter(b -> b != pivotBlock), stripBlock -> {
+                int i0 = stripBlock * BLOCK;
+                int rows = Math.min(BLOCK, n - i0);
+                double[] strip = new double[rows * n];
+                for (int i = 0; i < rows; i++) {
+                    matrix.getRow(i0 + i, strip, i * n);
+                }
+                // The column tile only depends on itself and the pivot tile; all other tiles depend on both
+                relaxTile(strip, rows, n, k0, k0 + pivotRows, strip, k0, pivot, pivotRows);
+                for (int j0 = 0; j0 < n; j0 += BLOCK) {
+                    if (j0 != k0) {
+                        relaxTile(strip, rows, n, j0, Math.min(n, j0 + BLOCK), strip, k0, pivot, pivotRows);
+                    }
+                }
+                for (int i = 0; i < rows; i++) {
+                    matrix.setRow(i0 + i, strip, i * n);
+                }
+            });
+        }
+
+        for (int v = 0; v < n; v++) {
+            if (matrix.get(v, v) < 0) {
+                throw new IllegalArgumentException("Vertex " + csr.vertex(v) + " is on a negative cycle");
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Lowers {@code target[i][j]} to {@code left[i][k0 + k] + right[k][j]} for every row i of the target, column
+     * j in {@code [from, to)} and k below {@code pivotRows}, where all arrays are row-major with n columns.
+     */
+    private static void relaxTile(double[] target, int rows, int n, int from, int to, double[] left, int k0,
+                                  double[] right, int pivotRows) {
+        for (int k = 0; k < pivotRows; k++) {
+            int rightRow = k * n;
+            for (int i = 0; i < rows; i++) {
+                int row = i * n;
+                double throughK = left[row + k0 + k];
+                if (throughK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int j = from; j < to; j++) {
+                    double candidate = throughK + right[rightRow + j];
+                    double current = target[row + j];
+                    target[row + j] = candidate < current ? candidate : current;
+                }
+            }
+        }
+    }
+
+    private DistanceMatrix johnson(CsrGraph<V> csr, DistanceMatrix matrix) {
+        int n = checkSize(csr, matrix);
+        double[] potentials = new double[n];
+        CsrGraph<V> searched = csr;
+        if (csr.minWeight() < 0) {
+            potentials(csr, potentials);
+            double[] reweighted = new double[csr.edgeCount()];
+            for (int v = 0; v < n; v++) {
+                for (int e = csr.edgeStart(v), end = csr.edgeEnd(v); e < end; e++) {
+                    // Rounding may leave a tiny negative weight on an edge of a shortest path
+                    reweighted[e] = Math.max(0.0, csr.weight(e) + potentials[v] - potentials[csr.target(e)]);
+                }
+            }
+            searched = csr.withWeights(reweighted);
+        }
+
+        CsrGraph<V> reweightedGraph = searched;
+        int chunks = (n + SOURCE_CHUNK - 1) / SOURCE_CHUNK;
+        invoke(IntStream.range(0, chunks), chunk -> {
+            double[] distances = new double[n];
+            IndexedDaryHeap priorityQueue = new IndexedDaryHeap(n);
+            for (int source = chunk * SOURCE_CHUNK, end = Math.min(n, (chunk + 1) * SOURCE_CHUNK);
+                 source < end; source++) {
+                DijkstraSearch.shortestPaths(reweightedGraph, source, distances, null, priorityQueue);
+                for (int v = 0; v < n; v++) {
+                    distances[v] += potentials[v] - potentials[source];
+                }
+                matrix.setRow(source, distances, 0);
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * Computes potentials with Bellman-Ford from a virtual source that reaches every vertex with weight 0, so
+     * that {@code potentials[v]} is the smallest distance of any path ending at v.
+     *
+     * @throws IllegalArgumentException if the graph contains a negative cycle
+     */
+    private static void potentials(CsrGraph<?> csr, double[] potentials) {
+        int n = csr.vertexCount();
+        // A shortest path has at most n edges including the one from the virtual source
+        int[] lengths = new int[n];
+        int[] queue = new int[n];
+        boolean[] queued = new boolean[n];
+        for (int v = 0; v < n; v++) {
+            queue[v] = v;
+            queued[v] = true;
+        }
+        int head = 0;
+        int count = n;
+        while (count > 0) {
+            int v = queue[head];
+            head = head + 1 == n ? 0 : head + 1;
+            count--;
+            queued[v] = false;
+            for (int e = csr.edgeStart(v), end = csr.edgeEnd(v); e < end; e++) {
+                int w = csr.target(e);
+                double candidate = potentials[v] + csr.weight(e);
+                if (candidate < potentials[w]) {
+                    potentials[w] = candidate;
+                    lengths[w] = lengths[v] + 1;
+                    if (lengths[w] >= n) {
+                        throw new IllegalArgumentException("Vertex " + csr.vertex(w) + " is on a negative cycle");
+                    }
+                    if (!queued[w]) {
+                        queued[w] = true;
+                        queue[(head + count) % n] = w;
+                        count++;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int checkSize(CsrGraph<?> csr, DistanceMatrix matrix) {
+        if (matrix.size() != csr.vertexCount()) {
+            throw new IllegalArgumentException("Matrix size " + matrix.size() + " is out of the range");
+        }
+        return matrix.size();
+    }
+
+    private void invoke(IntStream tasks, IntConsumer action) {
+        try {
+            pool.submit(() -> tasks.parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("All-pairs search was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                // ForkJoin re-creates exceptions thrown by other workers around the original
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("All-pairs search failed", cause);
+        }
+    }
+}
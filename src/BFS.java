@@ -2,11 +2,21 @@ import java.util.*;
 
 /**
  * Implementation of Breadth-First Search algorithm for a weighted graph.
+ * <p>
+ * The traversal runs over the {@link CsrGraph} snapshot of the graph, keeping its visited marks, parents
+ * and array-backed queue in the {@link SearchWorkspace} of the calling thread. The workspace is reset in
+ * constant time, so a query allocates nothing proportional to the graph and its cost depends on the vertices
+ * it reaches. Queries keep no state in the instance, so an instance over a {@link CsrGraph} or a
+ * {@link GraphStore} can serve concurrent queries.
  *
  * @param <V> the type of vertex in the graph
  */
 public class BFS<V> implements Search<V> {
+    private static final SearchMetrics METRICS = GraphMetrics.ENABLED ? GraphMetrics.search("BFS") : null;
+
     private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private GraphStore<V> store;
 
     /**
      * Constructs a BFS object with the specified weighted graph.
@@ -17,6 +27,36 @@ public class BFS<V> implements Search<V> {
         this.graph = graph;
     }
 
+    /**
+     * Constructs a BFS object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to perform BFS on
+     */
+    public BFS(CsrGraph<V> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Constructs a BFS object that searches the latest snapshot of the specified store.
+     *
+     * @param store the store to perform BFS on
+     */
+    public BFS(GraphStore<V> store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        if (graph != null) {
+            return graph.freeze();
+        }
+        return store != null ? store.snapshot() : snapshot;
+    }
+
     /**
      * Performs breadth-first search starting from the specified start vertex.
      *
@@ -24,26 +64,40 @@ public class BFS<V> implements Search<V> {
      * @return a list of vertices visited during BFS traversal
      */
     public List<Vertex<V>> breadthFirstSearch(Vertex<V> startVertex) {
-        List<Vertex<V>> visited = new ArrayList<>();
-        Queue<Vertex<V>> queue = new LinkedList<>();
-
-        visited.add(startVertex);
-        queue.add(startVertex);
-
-        while (!queue.isEmpty()) {
-            Vertex<V> currentVertex = queue.poll();
-            List<WeightedGraph<V>.Edge<V>> edges = graph.getEdge(currentVertex);
-
-            for (WeightedGraph<V>.Edge<V> edge : edges) {
-                Vertex<V> neighborVertex = edge.getDestination();
-                if (!visited.contains(neighborVertex)) {
-                    visited.add(neighborVertex);
-                    queue.add(neighborVertex);
+        long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+        CsrGraph<V> csr = csr();
+        int start = csr.indexOf(startVertex);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(csr.vertexCount());
+            int[] queue = workspace.queue();
+            int head = 0;
+            int tail = 0;
+            long relaxed = 0;
+
+            workspace.set(start, 0, -1);
+            queue[tail++] = start;
+
+            while (head < tail) {
+                int currentVertex = queue[head++];
+                relaxed += csr.degree(currentVertex);
+                for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                    int neighborVertex = csr.target(e);
+                    if (!workspace.reached(neighborVertex)) {
+                        workspace.set(neighborVertex, 0, currentVertex);
+                        queue[tail++] = neighborVertex;
+                    }
                 }
             }
-        }
 
-        return visited;
+            List<Vertex<V>> order = new ArrayList<>(tail);
+            for (int i = 0; i < tail; i++) {
+                order.add(csr.vertex(queue[i]));
+            }
+            if (GraphMetrics.ENABLED) {
+                METRICS.record(startNanos, head, relaxed, tail, 0, startVertex.getData(), null);
+            }
+            return order;
+        }
     }
 
     /**
@@ -52,24 +106,8 @@ public class BFS<V> implements Search<V> {
      * @param startVertex the start vertex for the BFS
      */
     public void printBFS(Vertex<V> startVertex) {
-        Set<Vertex<V>> visited = new HashSet<>();
-        Queue<Vertex<V>> queue = new LinkedList<>();
-
-        visited.add(startVertex);
-        queue.offer(startVertex);
-
-        while (!queue.isEmpty()) {
-            Vertex<V> currentVertex = queue.poll();
-            System.out.print(currentVertex.getData() + " ");
-
-            List<WeightedGraph<V>.Edge<V>> edges = graph.getEdge(currentVertex);
-            for (WeightedGraph<V>.Edge<V> edge : edges) {
-                Vertex<V> adjacentVertex = edge.getDestination();
-                if (!visited.contains(adjacentVertex)) {
-                    visited.add(adjacentVertex);
-                    queue.offer(adjacentVertex);
-                }
-            }
+        for (Vertex<V> vertex : breadthFirstSearch(startVertex)) {
+            System.out.print(vertex.getData() + " ");
         }
 
         System.out.println();
@@ -84,36 +122,48 @@ public class BFS<V> implements Search<V> {
      */
     @Override
     public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
-        List<Vertex<V>> path = new ArrayList<>();
-        Queue<Vertex<V>> queue = new LinkedList<>();
-        Map<Vertex<V>, Vertex<V>> parentMap = new HashMap<>();
-
-        queue.offer(source);
-        parentMap.put(source, null);
-
-        while (!queue.isEmpty()) {
-            Vertex<V> currentVertex = queue.poll();
-            if (currentVertex.equals(destination)) {
-                // Destination vertex found, reconstruct the path
-                path.add(destination);
-                Vertex<V> parent = parentMap.get(destination);
-                while (parent != null) {
-                    path.add(0, parent);
-                    parent = parentMap.get(parent);
+        long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+        CsrGraph<V> csr = csr();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(csr.vertexCount());
+            int[] queue = workspace.queue();
+            int head = 0;
+            int tail = 0;
+            long relaxed = 0;
+
+            workspace.set(from, 0, -1);
+            queue[tail++] = from;
+
+            while (head < tail) {
+                int currentVertex = queue[head++];
+                if (currentVertex == to) {
+                    // Destination vertex found, reconstruct the path
+                    LinkedList<V> path = new LinkedList<>();
+                    for (int v = to; v != -1; v = workspace.parent(v)) {
+                        path.addFirst(csr.vertex(v).getData());
+                    }
+                    if (GraphMetrics.ENABLED) {
+                        METRICS.record(startNanos, head, relaxed, tail, 0, source.getData(), destination.getData());
+                    }
+                    return new ArrayList<>(path);
                 }
-                break;
-            }
 
-            List<WeightedGraph<V>.Edge<V>> edges = graph.getEdge(currentVertex);
-            for (WeightedGraph<V>.Edge<V> edge : edges) {
-                Vertex<V> neighborVertex = edge.getDestination();
-                if (!parentMap.containsKey(neighborVertex)) {
-                    queue.offer(neighborVertex);
-                    parentMap.put(neighborVertex, currentVertex);
+                relaxed += csr.degree(currentVertex);
+                for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                    int neighborVertex = csr.target(e);
+                    if (!workspace.reached(neighborVertex)) {
+                        queue[tail++] = neighborVertex;
+                        workspace.set(neighborVertex, workspace.distance(currentVertex) + 1, currentVertex);
+                    }
                 }
             }
-        }
 
-        return (List<V>) path;
+            if (GraphMetrics.ENABLED) {
+                METRICS.record(startNanos, head, relaxed, tail, 0, source.getData(), destination.getData());
+            }
+            return new ArrayList<>();
+        }
     }
 }
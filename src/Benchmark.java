@@ -0,0 +1,238 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Benchmark measures graph construction, BFS and Dijkstra's algorithm on synthetic graphs.
+ * <p>
+ * For every graph family of {@link GraphGenerators} and every requested scale, each operation is run for a
+ * warm-up period and then timed one call at a time for a measurement period. The report lists throughput,
+ * latency percentiles, the allocation rate of the benchmark thread and the garbage collections during the
+ * measurement. The searches are repeated on a copy of the graph relabelled in reverse Cuthill-McKee order by
+ * {@link GraphReordering}, marked {@code [rcm]}, and a comment line compares the average edge gap of both
+ * orders, so the effect of vertex order on traversal throughput can be read from the report.
+ * <p>
+ * Usage: {@code java Benchmark [vertexCount ...]}. The warm-up and measurement periods default to 1 and 3
+ * seconds and can be changed with the {@code benchmark.warmup} and {@code benchmark.time} system properties.
+ */
+public class Benchmark {
+    private static final int QUERY_COUNT = 1024;
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    private static volatile int sink;
+
+    /**
+     * Runs the benchmarks and prints the report.
+     *
+     * @param args the vertex counts to benchmark, 1000, 10000 and 100000 by default
+     */
+    public static void main(String[] args) {
+        int[] scales = args.length == 0 ? new int[]{1_000, 10_000, 100_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        double warmupSeconds = Double.parseDouble(System.getProperty("benchmark.warmup", "1"));
+        double measureSeconds = Double.parseDouble(System.getProperty("benchmark.time", "3"));
+        AllocationCounter allocation = AllocationCounter.create();
+
+        System.out.printf("%-9s %8s %-30s %12s %10s %10s %10s %10s %10s %12s %6s%n", "graph", "vertices",
+                "benchmark", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "alloc MB/s", "alloc B/op", "gcs");
+        for (int scale : scales) {
+            int side = (int) Math.round(Math.sqrt(scale));
+            bench("random", GraphGenerators.random(scale, 4, 42), warmupSeconds, measureSeconds, allocation);
+            bench("grid", GraphGenerators.grid(side, side, 42), warmupSeconds, measureSeconds, allocation);
+            bench("powerlaw", GraphGenerators.powerLaw(scale, 2, 42), warmupSeconds, measureSeconds, allocation);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void bench(String family, WeightedGraph<Integer> graph, double warmupSeconds,
+                              double measureSeconds, AllocationCounter allocation) {
+        CsrGraph<Integer> csr = graph.freeze();
+        Random random = new Random(7);
+        int[] sources = new int[QUERY_COUNT];
+        int[] destinations = new int[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            sources[i] = random.nextInt(csr.vertexCount());
+            destinations[i] = random.nextInt(csr.vertexCount());
+        }
+        BFS<Integer> bfs = new BFS<>(graph);
+        DijkstraSearch<Integer> dijkstra = new DijkstraSearch<>(graph);
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation("WeightedGraph.addVertex/addEdge", i -> rebuild(csr)));
+        operations.add(new Operation("BFS.findPath", i -> bfs.findPath(
+                csr.vertex(sources[i % QUERY_COUNT]), csr.vertex(destinations[i % QUERY_COUNT]))));
+        operations.add(new Operation("BFS.breadthFirstSearch", i -> bfs.breadthFirstSearch(
+                csr.vertex(sources[i % QUERY_COUNT]))));
+        operations.add(new Operation("DijkstraSearch.dijkstraSearch", i -> dijkstra.dijkstraSearch(
+                csr.vertex(sources[i % QUERY_COUNT]))));
+        operations.add(new Operation("DijkstraSearch.findPath", i -> dijkstra.findPath(
+                csr.vertex(sources[i % QUERY_COUNT]), csr.vertex(destinations[i % QUERY_COUNT]))));
+
+        // The reordered graph holds the same vertices, so the queries are the same
+        CsrGraph<Integer> reordered = GraphReordering.reverseCuthillMcKee(csr).getGraph();
+        BFS<Integer> reorderedBfs = new BFS<>(reordered);
+        DijkstraSearch<Integer> reorderedDijkstra = new DijkstraSearch<>(reordered);
+        operations.add(new Operation("BFS.findPath [rcm]", i -> reorderedBfs.findPath(
+                csr.vertex(sources[i % QUERY_COUNT]), csr.vertex(destinations[i % QUERY_COUNT]))));
+        operations.add(new Operation("DijkstraSearch.findPath [rcm]", i -> reorderedDijkstra.findPath(
+                csr.vertex(sources[i % QUERY_COUNT]), csr.vertex(destinations[i % QUERY_COUNT]))));
+        System.out.printf("# %s %d: average edge gap %.1f, %.1f in reverse Cuthill-McKee order%n", family,
+                csr.vertexCount(), GraphReordering.averageEdgeGap(csr), GraphReordering.averageEdgeGap(reordered));
+
+        for (Operation operation : operations) {
+            run(operation, warmupSeconds, null);
+            Result result = run(operation, measureSeconds, allocation);
+            System.out.printf("%-9s %8d %-30s %12.1f %10.2f %10.2f %10.2f %10.2f %10s %12s %6d%n", family,
+                    csr.vertexCount(), operation.name, result.throughput(), result.percentile(0.50),
+                    result.percentile(0.90), result.percentile(0.99), result.percentile(0.999),
+                    result.allocatedBytes < 0 ? "n/a" : String.format("%.1f", result.allocationRate()),
+                    result.allocatedBytes < 0 ? "n/a" : String.format("%.0f", result.bytesPerOperation()),
+                    result.collections);
+        }
+    }
+
+    /**
+     * Rebuilds a mutable graph with the vertices and edges of a snapshot.
+     * <p>
+     * The vertices of the snapshot already belong to the generated graph, so adding them would go through the
+     * foreign-id map of the new graph; fresh vertices take their ids from it, as in a real load.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static WeightedGraph<Integer> rebuild(CsrGraph<Integer> csr) {
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        Vertex<Integer>[] vertices = new Vertex[csr.vertexCount()];
+        for (int v = 0; v < vertices.length; v++) {
+            vertices[v] = new Vertex<>(csr.vertex(v).getData());
+            graph.addVertex(vertices[v]);
+        }
+        for (int v = 0; v < vertices.length; v++) {
+            for (int e = csr.edgeStart(v), end = csr.edgeEnd(v); e < end; e++) {
+                graph.addEdge(vertices[v], vertices[csr.target(e)], csr.weight(e));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Calls the operation until the period has elapsed, recording the latency of every call.
+     */
+    private static Result run(Operation operation, double seconds, AllocationCounter allocation) {
+        long[] samples = new long[1024];
+        int count = 0;
+        long collections = collectionCount();
+        long allocatedBefore = allocation == null ? -1 : allocation.allocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + (long) (seconds * 1e9);
+        long now = start;
+        while (now < deadline) {
+            Object value = operation.body.apply(count);
+            long end = System.nanoTime();
+            sink ^= System.identityHashCode(value);
+            // Past MAX_SAMPLES calls the oldest samples are overwritten, keeping the most recent window
+            if (count == samples.length && count < MAX_SAMPLES) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count % samples.length] = end - now;
+            count++;
+            now = end;
+        }
+        long allocated = allocation == null ? -1 : allocation.allocatedBytes() - allocatedBefore;
+        int kept = Math.min(count, samples.length);
+        long[] latencies = Arrays.copyOf(samples, kept);
+        Arrays.sort(latencies);
+        return new Result(count, now - start, latencies, allocated, collectionCount() - collections);
+    }
+
+    private static long collectionCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * A named operation that receives the index of the call and returns a value that must not be optimized away.
+     */
+    private static class Operation {
+        private final String name;
+        private final IntFunction<Object> body;
+
+        Operation(String name, IntFunction<Object> body) {
+            this.name = name;
+            this.body = body;
+        }
+    }
+
+    /**
+     * The measurements of one operation.
+     */
+    private static class Result {
+        private final int operations;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final long allocatedBytes;
+        private final long collections;
+
+        Result(int operations, long elapsedNanos, long[] sortedLatencies, long allocatedBytes, long collections) {
+            this.operations = operations;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.allocatedBytes = allocatedBytes;
+            this.collections = collections;
+        }
+
+        double throughput() {
+            return operations / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns the latency at the given quantile in microseconds, using the nearest-rank method.
+         */
+        double percentile(double quantile) {
+            int rank = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, rank)] / 1e3;
+        }
+
+        double allocationRate() {
+            return allocatedBytes / (elapsedNanos / 1e9) / (1 << 20);
+        }
+
+        double bytesPerOperation() {
+            return (double) allocatedBytes / operations;
+        }
+    }
+
+    /**
+     * Reads the bytes allocated by the current thread, where the JVM supports it.
+     */
+    private static class AllocationCounter {
+        private final com.sun.management.ThreadMXBean threads;
+
+        private AllocationCounter(com.sun.management.ThreadMXBean threads) {
+            this.threads = threads;
+        }
+
+        static AllocationCounter create() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads =
+                        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return new AllocationCounter(threads);
+                }
+            }
+            return null;
+        }
+
+        long allocatedBytes() {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The result of a breadth-first traversal: the reached vertices in level order and the BFS depth of every vertex.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class BfsResult<V> {
+    private final CsrGraph<V> graph;
+    private final int[] order;
+    private final int[] depths;
+    private final int levelCount;
+
+    BfsResult(CsrGraph<V> graph, int[] order, int[] depths, int levelCount) {
+        this.graph = graph;
+        this.order = order;
+        this.depths = depths;
+        this.levelCount = levelCount;
+    }
+
+    /**
+     * Returns the reached vertices ordered by depth. The order of vertices within one level is unspecified.
+     *
+     * @return an unmodifiable list of the reached vertices
+     */
+    public List<Vertex<V>> getOrder() {
+        return new AbstractList<Vertex<V>>() {
+            @Override
+            public Vertex<V> get(int index) {
+                return graph.vertex(order[index]);
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the BFS depth of the specified vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the number of edges on a shortest unweighted path from the start vertex, or -1 if unreachable
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int getDepth(Vertex<V> vertex) {
+        return depths[graph.indexOf(vertex)];
+    }
+
+    /**
+     * Returns the BFS depth of the vertex with the specified id.
+     *
+     * @param vertex the id of the vertex
+     * @return the depth of the vertex, or -1 if unreachable
+     */
+    public int depth(int vertex) {
+        return depths[vertex];
+    }
+
+    /**
+     * Returns the number of vertices reached by the traversal, including the start vertex.
+     *
+     * @return the number of reached vertices
+     */
+    public int getReachedCount() {
+        return order.length;
+    }
+
+    /**
+     * Returns the number of BFS levels, which is one more than the largest depth.
+     *
+     * @return the number of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+}
@@ -0,0 +1,321 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bulk-synchronous (Pregel-style) engine that runs traversals over a {@link PartitionedGraph}, with one
+ * thread per shard.
+ * <p>
+ * Breadth-first search and shortest paths are both run as distance propagation with a minimum combiner; BFS
+ * simply counts every edge as 1. In each superstep every shard first relaxes its own edges with Dijkstra's
+ * algorithm, starting from the vertices that improved, so a traversal needs one superstep per crossing of a
+ * shard boundary rather than one per edge. Distances offered to remote vertices are combined per ghost slot,
+ * and a ghost is only messaged when its offer beats everything sent to it before, which keeps the traffic at
+ * most one message per ghost and improvement. At the end of the superstep each shard sends one
+ * {@link MessageBatch} to every shard it has offers for through a {@link MessageTransport}; after a barrier
+ * the shards apply the messages they received and the next superstep starts. The traversal stops after the
+ * first superstep in which no shard sent a message. The barriers are {@link Phaser}s, so a shard that fails,
+ * for example because the transport throws, terminates them and the other shards stop at their next barrier
+ * instead of waiting for it forever.
+ * <p>
+ * Edge weights must be non-negative. The result equals that of {@link BFS} and {@link DijkstraSearch},
+ * although ties between equally short paths may be broken differently.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class BspEngine<V> implements Search<V> {
+    private PartitionedGraph<V> graph;
+    private MessageTransport transport;
+
+    /**
+     * Constructs a BspEngine over the specified partitioned graph that exchanges messages in memory.
+     *
+     * @param graph the partitioned graph to traverse
+     */
+    public BspEngine(PartitionedGraph<V> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Constructs a BspEngine over the specified partitioned graph that exchanges messages through the given
+     * transport. Traversals that share a transport run one at a time.
+     *
+     * @param graph     the partitioned graph to traverse
+     * @param transport the transport that connects the shards
+     */
+    public BspEngine(PartitionedGraph<V> graph, MessageTransport transport) {
+        this.graph = graph;
+        this.transport = transport;
+    }
+
+    /**
+     * Finds the shortest path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     */
+    @Override
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
+        graph.indexOf(destination);
+        return shortestPaths(source).findPath(destination);
+    }
+
+    /**
+     * Performs breadth-first search starting from the specified start vertex.
+     *
+     * @param startVertex the start vertex for the BFS
+     * @return the BFS depth of every vertex as its distance
+     */
+    public BspResult<V> breadthFirstSearch(Vertex<V> startVertex) {
+        return run(graph.indexOf(startVertex), true);
+    }
+
+    /**
+     * Computes the shortest paths from the start vertex to all other vertices in the graph.
+     *
+     * @param startVertex the start vertex
+     * @return the shortest distance and parent of every vertex
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public BspResult<V> shortestPaths(Vertex<V> startVertex) {
+        int source = graph.indexOf(startVertex);
+        for (int s = 0; s < graph.shardCount(); s++) {
+            PartitionedGraph.Shard shard = graph.shard(s);
+            for (int e = 0; e < shard.edgeCount(); e++) {
+                if (shard.weight(e) < 0) {
+                    throw new IllegalArgumentException("Edge weight " + shard.weight(e) + " is out of the range");
+                }
+            }
+        }
+        return run(source, false);
+    }
+
+    private BspResult<V> run(int source, boolean unitWeights) {
+        if (transport == null) {
+            return run(source, unitWeights, new LocalTransport(graph.shardCount()));
+        }
+        synchronized (transport) {
+            return run(source, unitWeights, transport);
+        }
+    }
+
+    private BspResult<V> run(int source, boolean unitWeights, MessageTransport messages) {
+        int shardCount = graph.shardCount();
+        double[] distances = new double[graph.vertexCount()];
+        int[] parents = new int[graph.vertexCount()];
+        Superstep superstep = new Superstep();
+        Phaser sent = new Phaser(shardCount) {
+            @Override
+            protected boolean onAdvance(int phase, int registeredParties) {
+                superstep.finish();
+                return false;
+            }
+        };
+        Phaser received = new Phaser(shardCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread[] threads = new Thread[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            int start = graph.owner(source) == s ? graph.localIndex(source) : -1;
+            Worker worker = new Worker(graph.shard(s), shardCount, start, unitWeights, messages, superstep, sent,
+                    received);
+            threads[s] = new Thread(() -> {
+                try {
+                    worker.run(distances, parents);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    // Termination is permanent, so shards that have not reached a barrier yet stop there too
+                    sent.forceTermination();
+                    received.forceTermination();
+                }
+            }, "bsp-shard-" + s);
+            threads[s].setDaemon(true);
+            threads[s].start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            sent.forceTermination();
+            received.forceTermination();
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("BSP traversal was interrupted", e);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else if (cause != null) {
+            throw new IllegalStateException("BSP traversal failed", cause);
+        }
+        return new BspResult<>(graph, distances, parents, superstep.count, superstep.messageCount);
+    }
+
+    /**
+     * The global state of the supersteps, updated by the barrier action once all shards have sent.
+     */
+    private static class Superstep {
+        private final LongAdder sentMessages = new LongAdder();
+        private int count;
+        private long messageCount;
+        private boolean done;
+
+        void finish() {
+            long sent = sentMessages.sumThenReset();
+            count++;
+            messageCount += sent;
+            done = sent == 0;
+        }
+    }
+
+    /**
+     * The traversal state of one shard.
+     */
+    private static class Worker {
+        private final PartitionedGraph.Shard shard;
+        private final int shardCount;
+        private final boolean unitWeights;
+        private final MessageTransport transport;
+        private final Superstep superstep;
+        private final Phaser sent;
+        private final Phaser received;
+        private final double[] values;
+        private final int[] parents;
+        private final IndexedDaryHeap queue;
+        private final double[] ghostOffers;
+        private final int[] ghostSenders;
+        private final boolean[] ghostDirty;
+        private int[] dirty = new int[16];
+        private int dirtyCount;
+
+        Worker(PartitionedGraph.Shard shard, int shardCount, int start, boolean unitWeights,
+               MessageTransport transport, Superstep superstep, Phaser sent, Phaser received) {
+            this.shard = shard;
+            this.shardCount = shardCount;
+            this.unitWeights = unitWeights;
+            this.transport = transport;
+            this.superstep = superstep;
+            this.sent = sent;
+            this.received = received;
+            this.values = new double[shard.vertexCount()];
+            this.parents = new int[shard.vertexCount()];
+            this.queue = new IndexedDaryHeap(shard.vertexCount());
+            this.ghostOffers = new double[shard.getGhostVertexCount()];
+            this.ghostSenders = new int[shard.getGhostVertexCount()];
+            this.ghostDirty = new boolean[shard.getGhostVertexCount()];
+            Arrays.fill(values, Double.POSITIVE_INFINITY);
+            Arrays.fill(parents, -1);
+            Arrays.fill(ghostOffers, Double.POSITIVE_INFINITY);
+            if (start >= 0) {
+                values[start] = 0.0;
+                queue.insert(start, 0.0);
+            }
+        }
+
+        /**
+         * Runs supersteps until the traversal converges, or returns without results if another shard failed
+         * and terminated the barriers.
+         */
+        void run(double[] distances, int[] globalParents) {
+            while (true) {
+                relax();
+                send();
+                if (sent.arriveAndAwaitAdvance() < 0) {
+                    return;
+                }
+                if (superstep.done) {
+                    break;
+                }
+                for (MessageBatch batch : transport.receive(shard.getId())) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        int target = batch.target(i);
+                        double value = batch.value(i);
+                        if (value < values[target]) {
+                            values[target] = value;
+                            parents[target] = batch.sender(i);
+                            queue.insertOrDecrease(target, value);
+                        }
+                    }
+                }
+                if (received.arriveAndAwaitAdvance() < 0) {
+                    return;
+                }
+            }
+            for (int local = 0; local < values.length; local++) {
+                distances[shard.vertex(local)] = values[local];
+                globalParents[shard.vertex(local)] = parents[local];
+            }
+        }
+
+        /**
+         * Settles the queued vertices with Dijkstra's algorithm over the local edges and collects the offers to
+         * ghost vertices.
+         */
+        private void relax() {
+            while (!queue.isEmpty()) {
+                int vertex = queue.pollMin();
+                double distance = values[vertex];
+                int globalId = shard.vertex(vertex);
+                for (int e = shard.edgeStart(vertex), end = shard.edgeEnd(vertex); e < end; e++) {
+                    double candidate = distance + (unitWeights ? 1.0 : shard.weight(e));
+                    int target = shard.target(e);
+                    if (target >= 0) {
+                        if (candidate < values[target]) {
+                            values[target] = candidate;
+                            parents[target] = globalId;
+                            queue.insertOrDecrease(target, candidate);
+                        }
+                    } else {
+                        int slot = ~target;
+                        if (candidate < ghostOffers[slot]) {
+                            ghostOffers[slot] = candidate;
+                            ghostSenders[slot] = globalId;
+                            if (!ghostDirty[slot]) {
+                                ghostDirty[slot] = true;
+                                if (dirtyCount == dirty.length) {
+                                    dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+                                }
+                                dirty[dirtyCount++] = slot;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sends the improved ghost offers, one batch per receiving shard.
+         */
+        private void send() {
+            if (dirtyCount == 0) {
+                return;
+            }
+            MessageBatch[] batches = new MessageBatch[shardCount];
+            for (int i = 0; i < dirtyCount; i++) {
+                int slot = dirty[i];
+                ghostDirty[slot] = false;
+                int owner = shard.ghostOwner(slot);
+                if (batches[owner] == null) {
+                    batches[owner] = new MessageBatch(shard.getId());
+                }
+                batches[owner].add(shard.ghostIndex(slot), ghostOffers[slot], ghostSenders[slot]);
+            }
+            superstep.sentMessages.add(dirtyCount);
+            dirtyCount = 0;
+            for (int owner = 0; owner < batches.length; owner++) {
+                if (batches[owner] != null) {
+                    transport.send(owner, batches[owner]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * The result of a traversal run by a {@link BspEngine}: the distance and parent of every vertex, and how many
+ * supersteps and messages the traversal needed.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class BspResult<V> {
+    private final PartitionedGraph<V> graph;
+    private final double[] distances;
+    private final int[] parents;
+    private final int superstepCount;
+    private final long messageCount;
+
+    BspResult(PartitionedGraph<V> graph, double[] distances, int[] parents, int superstepCount, long messageCount) {
+        this.graph = graph;
+        this.distances = distances;
+        this.parents = parents;
+        this.superstepCount = superstepCount;
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * Returns the distance of the specified vertex from the start vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the distance, or positive infinity if the vertex is unreachable
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public double getDistance(Vertex<V> vertex) {
+        return distances[graph.indexOf(vertex)];
+    }
+
+    /**
+     * Returns the distance of the vertex with the specified id from the start vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the distance, or positive infinity if the vertex is unreachable
+     */
+    public double distance(int vertex) {
+        return distances[vertex];
+    }
+
+    /**
+     * Returns the path from the start vertex to the specified vertex along the parents found by the traversal.
+     *
+     * @param destination the destination vertex
+     * @return the list of vertices from the start vertex to the destination, or only the destination if it
+     * is unreachable
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public List<V> findPath(Vertex<V> destination) {
+        LinkedList<V> path = new LinkedList<>();
+        for (int v = graph.indexOf(destination); v != -1; v = parents[v]) {
+            path.addFirst(graph.vertex(v).getData());
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Returns the number of vertices reached by the traversal, including the start vertex.
+     *
+     * @return the number of reached vertices
+     */
+    public int getReachedCount() {
+        int count = 0;
+        for (double distance : distances) {
+            if (distance != Double.POSITIVE_INFINITY) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of supersteps the traversal ran, including the last one that sent no messages.
+     *
+     * @return the number of supersteps
+     */
+    public int getSuperstepCount() {
+        return superstepCount;
+    }
+
+    /**
+     * Returns the number of messages exchanged between shards.
+     *
+     * @return the number of messages
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+}
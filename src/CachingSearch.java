@@ -0,0 +1,256 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CachingSearch implements the Search interface by memoizing whole shortest-path trees per source.
+ * <p>
+ * The first query from a source runs Dijkstra's algorithm to completion and keeps the distance and parent of
+ * every vertex; later queries from the same source, to any destination, only walk the cached parents. Trees
+ * are evicted in least-recently-used order once the cache holds more than the maximum number of trees or
+ * their estimated size exceeds the maximum weight in bytes. Every cached tree belongs to one snapshot of the
+ * graph: when {@link WeightedGraph#addVertex(Vertex)}, {@link WeightedGraph#addEdge(Vertex, Vertex, double)},
+ * {@link WeightedGraph#removeEdge(Vertex, Vertex)}, {@link WeightedGraph#setEdgeWeight(Vertex, Vertex, double)}
+ * or a committed {@link GraphStore} batch produces a new snapshot, the next query drops the whole cache, so
+ * results are never stale. Like {@link DijkstraSearch}, queries reject graphs with negative edge weights. An
+ * instance can serve concurrent queries when the graph is a {@link GraphStore}.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class CachingSearch<V> implements Search<V> {
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private WeightedGraph<V> graph;
+    private GraphStore<V> store;
+    private int maximumSize;
+    private long maximumWeight;
+    private final LinkedHashMap<Integer, Tree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private CsrGraph<V> cachedSnapshot;
+    private long weight;
+    private final ThreadLocal<IndexedDaryHeap> queue = new ThreadLocal<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Constructs a CachingSearch object with the specified weighted graph and cache bounds.
+     *
+     * @param graph         the weighted graph to search
+     * @param maximumSize   the maximum number of cached trees
+     * @param maximumWeight the maximum estimated size of the cached trees in bytes
+     */
+    public CachingSearch(WeightedGraph<V> graph, int maximumSize, long maximumWeight) {
+        this.graph = graph;
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Constructs a CachingSearch object that searches the latest snapshot of the specified store.
+     *
+     * @param store         the store to search
+     * @param maximumSize   the maximum number of cached trees
+     * @param maximumWeight the maximum estimated size of the cached trees in bytes
+     */
+    public CachingSearch(GraphStore<V> store, int maximumSize, long maximumWeight) {
+        this.store = store;
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        return graph != null ? graph.freeze() : store.snapshot();
+    }
+
+    /**
+     * Finds the shortest path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     * @throws IllegalArgumentException if a vertex is not present in the graph or an edge weight is negative
+     */
+    @Override
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
+        CsrGraph<V> csr = csr();
+        int to = csr.indexOf(destination);
+        Tree tree = tree(csr, csr.indexOf(source));
+
+        LinkedList<V> path = new LinkedList<>();
+        for (int v = to; v != -1; v = tree.parents[v]) {
+            path.addFirst(csr.vertex(v).getData());
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Returns the length of the shortest path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the shortest distance, or positive infinity if the destination is unreachable
+     */
+    public double shortestDistance(Vertex<V> source, Vertex<V> destination) {
+        CsrGraph<V> csr = csr();
+        int to = csr.indexOf(destination);
+        return tree(csr, csr.indexOf(source)).distances[to];
+    }
+
+    /**
+     * Computes the shortest distances from the start vertex to all other vertices in the graph.
+     *
+     * @param startVertex the start vertex
+     * @return a map containing the vertices as keys and their respective shortest distances from the start vertex as values
+     */
+    public Map<Vertex<V>, Double> shortestDistances(Vertex<V> startVertex) {
+        CsrGraph<V> csr = csr();
+        double[] distances = tree(csr, csr.indexOf(startVertex)).distances;
+        Map<Vertex<V>, Double> result = new HashMap<>();
+        for (int v = 0; v < distances.length; v++) {
+            result.put(csr.vertex(v), distances[v]);
+        }
+        return result;
+    }
+
+    /**
+     * Removes every cached tree.
+     */
+    public synchronized void invalidateAll() {
+        if (!trees.isEmpty()) {
+            invalidations.increment();
+        }
+        trees.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the number of queries answered from a cached tree.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of queries that had to compute a tree.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of queries answered from a cached tree.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no queries
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of trees evicted to respect the size and weight bounds.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of times the cache was dropped because the graph changed or on request.
+     *
+     * @return the invalidation count
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Returns the number of cached trees.
+     *
+     * @return the cache size
+     */
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached trees in bytes.
+     *
+     * @return the cache weight
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Returns the shortest-path tree of the source in the specified snapshot, computing and caching it on a miss.
+     */
+    private Tree tree(CsrGraph<V> csr, int source) {
+        synchronized (this) {
+            if (cachedSnapshot != csr) {
+                invalidateAll();
+                cachedSnapshot = csr;
+            }
+            Tree cached = trees.get(source);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        // The tree is built by Dijkstra's algorithm, which settles vertices too early on negative edges
+        if (csr.minWeight() < 0) {
+            throw new IllegalArgumentException("Edge weight " + csr.minWeight() + " is out of the range");
+        }
+
+        int vertexCount = csr.vertexCount();
+        Tree tree = new Tree(new double[vertexCount], new int[vertexCount]);
+        IndexedDaryHeap priorityQueue = DijkstraSearch.prepare(queue.get(), vertexCount);
+        queue.set(priorityQueue);
+        DijkstraSearch.shortestPaths(csr, source, tree.distances, tree.parents, priorityQueue);
+
+        long treeWeight = ENTRY_OVERHEAD_BYTES + 12L * vertexCount;
+        synchronized (this) {
+            // A tree computed on a snapshot that has since been replaced is returned but not cached
+            if (cachedSnapshot == csr && treeWeight <= maximumWeight && maximumSize > 0) {
+                Tree previous = trees.put(source, tree);
+                if (previous == null) {
+                    weight += treeWeight;
+                }
+                // All cached trees belong to the same snapshot, so they all weigh the same
+                Iterator<Tree> eldest = trees.values().iterator();
+                while (trees.size() > maximumSize || weight > maximumWeight) {
+                    eldest.next();
+                    eldest.remove();
+                    weight -= treeWeight;
+                    evictions.increment();
+                }
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * The distances and parents of a shortest-path tree, indexed by vertex id.
+     */
+    private static class Tree {
+        private final double[] distances;
+        private final int[] parents;
+
+        Tree(double[] distances, int[] parents) {
+            this.distances = distances;
+            this.parents = parents;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Offline preprocessing that turns a {@link CsrGraph} into a {@link ContractionHierarchy}.
+ * <p>
+ * Vertices are contracted in rounds. Each round picks an independent set of vertices whose priority (edge
+ * difference, contracted neighbours and hierarchy level) is a local minimum, runs their witness searches in parallel while
+ * excluding every vertex of the set, and then applies the resulting shortcuts sequentially. Because no two
+ * vertices of a round are adjacent and no witness path passes through the set, contracting them together
+ * preserves all shortest-path distances between the remaining vertices.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+class ChContractor<V> {
+    private static final int CONTRACTION_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 16;
+
+    private final CsrGraph<V> graph;
+    private final int vertexCount;
+    private final Adjacency[] out;
+    private final Adjacency[] in;
+    private final boolean[] contracted;
+    private final boolean[] selected;
+    private final int[] contractedNeighbors;
+    private final int[] levels;
+    private final int[] priorities;
+    private final int[] ranks;
+    private final boolean[] touchedFlags;
+    private int[] touched = new int[16];
+    private int touchedCount;
+
+    private int upCount;
+    private int[] upOwners = new int[16];
+    private int[] upTargets = new int[16];
+    private double[] upWeights = new double[16];
+    private int[] upMiddles = new int[16];
+    private int downCount;
+    private int[] downOwners = new int[16];
+    private int[] downSources = new int[16];
+    private double[] downWeights = new double[16];
+    private int[] downMiddles = new int[16];
+
+    ChContractor(CsrGraph<V> graph) {
+        this.graph = graph;
+        this.vertexCount = graph.vertexCount();
+        this.out = new Adjacency[vertexCount];
+        this.in = new Adjacency[vertexCount];
+        this.contracted = new boolean[vertexCount];
+        this.selected = new boolean[vertexCount];
+        this.contractedNeighbors = new int[vertexCount];
+        this.levels = new int[vertexCount];
+        this.priorities = new int[vertexCount];
+        this.ranks = new int[vertexCount];
+        this.touchedFlags = new boolean[vertexCount];
+
+        for (int v = 0; v < vertexCount; v++) {
+            out[v] = new Adjacency(graph.degree(v));
+            in[v] = new Adjacency(4);
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                int target = graph.target(e);
+                double weight = graph.weight(e);
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Edge weight " + weight + " is out of the range");
+                }
+                if (target != v) {
+                    out[v].merge(target, weight, -1);
+                    in[target].merge(v, weight, -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Contracts every vertex and assembles the hierarchy.
+     *
+     * @param parallelism the number of worker threads
+     * @return the contraction hierarchy
+     */
+    ContractionHierarchy<V> contract(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ThreadLocal<WitnessSearch> witnesses = ThreadLocal.withInitial(WitnessSearch::new);
+            run(pool, IntStream.range(0, vertexCount).parallel(),
+                    v -> priorities[v] = priority(v, witnesses.get()));
+
+            int remaining = vertexCount;
+            int nextRank = 0;
+            int[] candidates = new int[vertexCount];
+            while (remaining > 0) {
+                int count = 0;
+                for (int v = 0; v < vertexCount; v++) {
+                    if (!contracted[v]) {
+                        candidates[count++] = v;
+                    }
+                }
+                int[] batch = selectIndependentSet(pool, Arrays.copyOf(candidates, count));
+                for (int v : batch) {
+                    selected[v] = true;
+                }
+
+                Shortcuts[] shortcuts = new Shortcuts[batch.length];
+                run(pool, IntStream.range(0, batch.length).parallel(),
+                        i -> shortcuts[i] = findShortcuts(batch[i], witnesses.get(), CONTRACTION_SETTLE_LIMIT));
+
+                touchedCount = 0;
+                for (int i = 0; i < batch.length; i++) {
+                    apply(batch[i], shortcuts[i], nextRank++);
+                }
+                remaining -= batch.length;
+
+                // Only the neighbours of contracted vertices can have a different priority now
+                int[] touched = Arrays.copyOf(this.touched, touchedCount);
+                for (int v : touched) {
+                    this.touchedFlags[v] = false;
+                }
+                run(pool, IntStream.of(touched).parallel(),
+                        v -> priorities[v] = priority(v, witnesses.get()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return assemble();
+    }
+
+    private static void run(ForkJoinPool pool, IntStream tasks, IntConsumer action) {
+        try {
+            pool.submit(() -> tasks.forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Contraction was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Contraction failed", e.getCause());
+        }
+    }
+
+    /**
+     * Picks the candidates whose priority is smaller than that of every uncontracted neighbour.
+     */
+    private int[] selectIndependentSet(ForkJoinPool pool, int[] candidates) {
+        boolean[] chosen = new boolean[candidates.length];
+        run(pool, IntStream.range(0, candidates.length).parallel(),
+                i -> chosen[i] = isLocalMinimum(candidates[i]));
+        int count = 0;
+        for (boolean c : chosen) {
+            if (c) {
+                count++;
+            }
+        }
+        int[] result = new int[count];
+        int next = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (chosen[i]) {
+                result[next++] = candidates[i];
+            }
+        }
+        return result;
+    }
+
+    private boolean isLocalMinimum(int v) {
+        for (Adjacency adjacency : new Adjacency[]{out[v], in[v]}) {
+            for (int i = 0; i < adjacency.size; i++) {
+                int neighbor = adjacency.vertices[i];
+                if (before(neighbor, v)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders vertices by priority, breaking ties with a hash of the id so that the order is total.
+     */
+    private boolean before(int a, int b) {
+        if (priorities[a] != priorities[b]) {
+            return priorities[a] < priorities[b];
+        }
+        int hashA = mix(a);
+        int hashB = mix(b);
+        return hashA != hashB ? hashA < hashB : a < b;
+    }
+
+    private static int mix(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private int priority(int v, WitnessSearch witness) {
+        Shortcuts shortcuts = findShortcuts(v, witness, ESTIMATE_SETTLE_LIMIT);
+        return 2 * (shortcuts.count - out[v].size - in[v].size) + contractedNeighbors[v] + levels[v];
+    }
+
+    /**
+     * Computes the shortcuts needed to preserve distances between the neighbours of a vertex when it is removed.
+     * <p>
+     * Witness searches give up after settling {@code settleLimit} vertices, which can only add shortcuts
+     * that were not strictly needed, never drop a required one.
+     */
+    private Shortcuts findShortcuts(int v, WitnessSearch witness, int settleLimit) {
+        Shortcuts shortcuts = new Shortcuts();
+        Adjacency incoming = in[v];
+        Adjacency outgoing = out[v];
+        if (incoming.size == 0 || outgoing.size == 0) {
+            return shortcuts;
+        }
+        double maxOut = 0.0;
+        for (int j = 0; j < outgoing.size; j++) {
+            maxOut = Math.max(maxOut, outgoing.weights[j]);
+        }
+
+        for (int i = 0; i < incoming.size; i++) {
+            int source = incoming.vertices[i];
+            double toV = incoming.weights[i];
+            witness.search(source, v, toV + maxOut, outgoing, settleLimit);
+            for (int j = 0; j < outgoing.size; j++) {
+                int target = outgoing.vertices[j];
+                if (target == source) {
+                    continue;
+                }
+                double via = toV + outgoing.weights[j];
+                if (witness.labels.distance(target) > via) {
+                    shortcuts.add(source, target, via);
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Records the final edges of a vertex, removes it from the graph and inserts its shortcuts.
+     */
+    private void apply(int v, Shortcuts shortcuts, int rank) {
+        ranks[v] = rank;
+        contracted[v] = true;
+        selected[v] = false;
+
+        for (int i = 0; i < out[v].size; i++) {
+            int target = out[v].vertices[i];
+            addUp(v, target, out[v].weights[i], out[v].middles[i]);
+            in[target].remove(v);
+            contractedNeighbors[target]++;
+            levels[target] = Math.max(levels[target], levels[v] + 1);
+            touch(target);
+        }
+        for (int i = 0; i < in[v].size; i++) {
+            int source = in[v].vertices[i];
+            addDown(v, source, in[v].weights[i], in[v].middles[i]);
+            out[source].remove(v);
+            contractedNeighbors[source]++;
+            levels[source] = Math.max(levels[source], levels[v] + 1);
+            touch(source);
+        }
+        for (int i = 0; i < shortcuts.count; i++) {
+            int source = shortcuts.sources[i];
+            int target = shortcuts.targets[i];
+            double weight = shortcuts.weights[i];
+            out[source].merge(target, weight, v);
+            in[target].merge(source, weight, v);
+        }
+        out[v] = null;
+        in[v] = null;
+    }
+
+    private void touch(int v) {
+        if (!touchedFlags[v]) {
+            touchedFlags[v] = true;
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = v;
+        }
+    }
+
+    private void addUp(int owner, int target, double weight, int middle) {
+        if (upCount == upOwners.length) {
+            int capacity = upCount * 2;
+            upOwners = Arrays.copyOf(upOwners, capacity);
+            upTargets = Arrays.copyOf(upTargets, capacity);
+            upWeights = Arrays.copyOf(upWeights, capacity);
+            upMiddles = Arrays.copyOf(upMiddles, capacity);
+        }
+        upOwners[upCount] = owner;
+        upTargets[upCount] = target;
+        upWeights[upCount] = weight;
+        upMiddles[upCount] = middle;
+        upCount++;
+    }
+
+    private void addDown(int owner, int source, double weight, int middle) {
+        if (downCount == downOwners.length) {
+            int capacity = downCount * 2;
+            downOwners = Arrays.copyOf(downOwners, capacity);
+            downSources = Arrays.copyOf(downSources, capacity);
+            downWeights = Arrays.copyOf(downWeights, capacity);
+            downMiddles = Arrays.copyOf(downMiddles, capacity);
+        }
+        downOwners[downCount] = owner;
+        downSources[downCount] = source;
+        downWeights[downCount] = weight;
+        downMiddles[downCount] = middle;
+        downCount++;
+    }
+
+    private ContractionHierarchy<V> assemble() {
+        int[] upOffsets = ContractionHierarchy.groupByOwner(vertexCount, upCount, upOwners, upTargets,
+                upWeights, upMiddles);
+        int[] downOffsets = ContractionHierarchy.groupByOwner(vertexCount, downCount, downOwners, downSources,
+                downWeights, downMiddles);
+        return new ContractionHierarchy<>(graph, ranks,
+                upOffsets, Arrays.copyOf(upTargets, upCount), Arrays.copyOf(upWeights, upCount),
+                Arrays.copyOf(upMiddles, upCount),
+                downOffsets, Arrays.copyOf(downSources, downCount), Arrays.copyOf(downWeights, downCount),
+                Arrays.copyOf(downMiddles, downCount));
+    }
+
+    /**
+     * A bounded Dijkstra search over the remaining graph that avoids the vertices being contracted.
+     */
+    private class WitnessSearch {
+        private final DistanceLabels labels = new DistanceLabels(vertexCount);
+        private final IndexedDaryHeap heap = new IndexedDaryHeap(vertexCount);
+
+        private final int[] targetStamps = new int[vertexCount];
+        private int generation;
+
+        /**
+         * Searches from the source until every target is settled, the distance bound is exceeded or the
+         * settle limit is reached.
+         */
+        void search(int source, int excluded, double maxDistance, Adjacency targets, int settleLimit) {
+            labels.reset(vertexCount);
+            heap.clear();
+            generation++;
+            int remainingTargets = 0;
+            for (int i = 0; i < targets.size; i++) {
+                int target = targets.vertices[i];
+                if (target != source && targetStamps[target] != generation) {
+                    targetStamps[target] = generation;
+                    remainingTargets++;
+                }
+            }
+
+            labels.set(source, 0.0, -1);
+            heap.insert(source, 0.0);
+            int settled = 0;
+            while (!heap.isEmpty() && settled < settleLimit && remainingTargets > 0) {
+                if (heap.minKey() > maxDistance) {
+                    break;
+                }
+                int current = heap.pollMin();
+                settled++;
+                if (targetStamps[current] == generation) {
+                    remainingTargets--;
+                }
+                double distance = labels.distance(current);
+                Adjacency adjacency = out[current];
+                for (int i = 0; i < adjacency.size; i++) {
+                    int neighbor = adjacency.vertices[i];
+                    if (neighbor == excluded || selected[neighbor]) {
+                        continue;
+                    }
+                    double candidate = distance + adjacency.weights[i];
+                    if (candidate < labels.distance(neighbor)) {
+                        labels.set(neighbor, candidate, current);
+                        heap.insertOrDecrease(neighbor, candidate);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The shortcuts produced by contracting one vertex.
+     */
+    private static class Shortcuts {
+        private int count;
+        private int[] sources = new int[4];
+        private int[] targets = new int[4];
+        private double[] weights = new double[4];
+
+        void add(int source, int target, double weight) {
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            sources[count] = source;
+            targets[count] = target;
+            weights[count] = weight;
+            count++;
+        }
+    }
+
+    /**
+     * The mutable adjacency of one uncontracted vertex, keeping only the lightest edge per neighbour.
+     */
+    private static class Adjacency {
+        private int size;
+        private int[] vertices;
+        private double[] weights;
+        private int[] middles;
+
+        Adjacency(int capacity) {
+            int initial = Math.max(4, capacity);
+            vertices = new int[initial];
+            weights = new double[initial];
+            middles = new int[initial];
+        }
+
+        void merge(int vertex, double weight, int middle) {
+            for (int i = 0; i < size; i++) {
+                if (vertices[i] == vertex) {
+                    if (weight < weights[i]) {
+                        weights[i] = weight;
+                        middles[i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            vertices[size] = vertex;
+            weights[size] = weight;
+            middles[size] = middle;
+            size++;
+        }
+
+        void remove(int vertex) {
+            for (int i = 0; i < size; i++) {
+                if (vertices[i] == vertex) {
+                    size--;
+                    vertices[i] = vertices[size];
+                    weights[i] = weights[size];
+                    middles[i] = middles[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.util.*;
+
+/**
+ * ChSearch implements the Search interface on top of a {@link ContractionHierarchy}.
+ * <p>
+ * A query runs a forward search from the source over upward edges and a backward search from the
+ * destination over downward edges, so both only ever climb the hierarchy and settle a tiny fraction of the
+ * graph. The meeting vertex with the smallest combined distance gives the shortest path, whose shortcuts are
+ * then unpacked into the original vertices. Scratch state is reused across queries, so instances are not
+ * safe for concurrent use.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class ChSearch<V> implements Search<V> {
+    private ContractionHierarchy<V> hierarchy;
+    private IndexedDaryHeap forwardQueue;
+    private IndexedDaryHeap backwardQueue;
+    private DistanceLabels forwardLabels;
+    private DistanceLabels backwardLabels;
+
+    /**
+     * Constructs a ChSearch object over the specified contraction hierarchy.
+     *
+     * @param hierarchy the preprocessed hierarchy to query
+     */
+    public ChSearch(ContractionHierarchy<V> hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Finds the shortest path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     */
+    @Override
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
+        CsrGraph<V> csr = hierarchy.getGraph();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        int meeting = search(from, to);
+        if (meeting == -1) {
+            return new ArrayList<>(Collections.singletonList(destination.getData()));
+        }
+
+        // Collect the hierarchy path source -> meeting -> destination, then unpack its shortcuts
+        LinkedList<Integer> hierarchyPath = new LinkedList<>();
+        for (int v = meeting; v != -1; v = forwardLabels.parent(v)) {
+            hierarchyPath.addFirst(v);
+        }
+        for (int v = backwardLabels.parent(meeting); v != -1; v = backwardLabels.parent(v)) {
+            hierarchyPath.addLast(v);
+        }
+
+        List<V> path = new ArrayList<>();
+        path.add(csr.vertex(from).getData());
+        Iterator<Integer> iterator = hierarchyPath.iterator();
+        int previous = iterator.next();
+        while (iterator.hasNext()) {
+            int next = iterator.next();
+            unpack(previous, next, path);
+            previous = next;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the length of the shortest path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the shortest distance, or positive infinity if the destination is unreachable
+     */
+    public double shortestDistance(Vertex<V> source, Vertex<V> destination) {
+        CsrGraph<V> csr = hierarchy.getGraph();
+        int meeting = search(csr.indexOf(source), csr.indexOf(destination));
+        if (meeting == -1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return forwardLabels.distance(meeting) + backwardLabels.distance(meeting);
+    }
+
+    /**
+     * Runs the bidirectional upward search.
+     *
+     * @return the id of the meeting vertex on a shortest path, or -1 if the destination is unreachable
+     */
+    private int search(int from, int to) {
+        int vertexCount = hierarchy.getGraph().vertexCount();
+        forwardQueue = DijkstraSearch.prepare(forwardQueue, vertexCount);
+        backwardQueue = DijkstraSearch.prepare(backwardQueue, vertexCount);
+        forwardLabels = DijkstraSearch.prepare(forwardLabels, vertexCount);
+        backwardLabels = DijkstraSearch.prepare(backwardLabels, vertexCount);
+
+        forwardLabels.set(from, 0.0, -1);
+        forwardQueue.insert(from, 0.0);
+        backwardLabels.set(to, 0.0, -1);
+        backwardQueue.insert(to, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        boolean forwardTurn = true;
+
+        // Unlike plain bidirectional Dijkstra, each side may only stop once its own minimum exceeds the best
+        while (!forwardQueue.isEmpty() || !backwardQueue.isEmpty()) {
+            if (forwardQueue.isEmpty() || forwardQueue.minKey() >= best) {
+                forwardQueue.clear();
+            }
+            if (backwardQueue.isEmpty() || backwardQueue.minKey() >= best) {
+                backwardQueue.clear();
+            }
+            if (forwardQueue.isEmpty() && backwardQueue.isEmpty()) {
+                break;
+            }
+            boolean forward = backwardQueue.isEmpty() || (forwardTurn && !forwardQueue.isEmpty());
+            forwardTurn = !forwardTurn;
+
+            IndexedDaryHeap queue = forward ? forwardQueue : backwardQueue;
+            DistanceLabels labels = forward ? forwardLabels : backwardLabels;
+            DistanceLabels opposite = forward ? backwardLabels : forwardLabels;
+
+            int currentVertex = queue.pollMin();
+            double currentDistance = labels.distance(currentVertex);
+            double candidate = currentDistance + opposite.distance(currentVertex);
+            if (candidate < best) {
+                best = candidate;
+                meeting = currentVertex;
+            }
+
+            int start = forward ? hierarchy.upStart(currentVertex) : hierarchy.downStart(currentVertex);
+            int end = forward ? hierarchy.upEnd(currentVertex) : hierarchy.downEnd(currentVertex);
+            for (int e = start; e < end; e++) {
+                int neighborVertex = forward ? hierarchy.upTarget(e) : hierarchy.downSource(e);
+                double weight = forward ? hierarchy.upWeight(e) : hierarchy.downWeight(e);
+                double distanceThroughCurrent = currentDistance + weight;
+                if (distanceThroughCurrent < labels.distance(neighborVertex)) {
+                    labels.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                    queue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
+                    double meetingCandidate = distanceThroughCurrent + opposite.distance(neighborVertex);
+                    if (meetingCandidate < best) {
+                        best = meetingCandidate;
+                        meeting = neighborVertex;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Appends the original vertices of the hierarchy edge from one vertex to another, excluding the first.
+     */
+    private void unpack(int source, int target, List<V> path) {
+        CsrGraph<V> csr = hierarchy.getGraph();
+        Deque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{source, target});
+        while (!stack.isEmpty()) {
+            int[] edge = stack.pop();
+            int middle = hierarchy.middle(edge[0], edge[1]);
+            if (middle == -1) {
+                path.add(csr.vertex(edge[1]).getData());
+            } else {
+                stack.push(new int[]{middle, edge[1]});
+                stack.push(new int[]{edge[0], middle});
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * The result of a connected components computation of {@link GraphAnalytics}: the component of every vertex.
+ * <p>
+ * Components are numbered {@code 0..getComponentCount()-1} in the order of the smallest vertex id they contain.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class ComponentsResult<V> {
+    private final CsrGraph<V> graph;
+    private final int[] components;
+    private final int[] sizes;
+
+    /**
+     * Numbers the components given by an arbitrary representative id per vertex.
+     */
+    ComponentsResult(CsrGraph<V> graph, int[] representatives) {
+        this.graph = graph;
+        int vertexCount = representatives.length;
+        int[] numbers = new int[vertexCount];
+        int count = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int representative = representatives[v];
+            if (numbers[representative] == 0) {
+                numbers[representative] = ++count;
+            }
+        }
+        this.components = new int[vertexCount];
+        this.sizes = new int[count];
+        for (int v = 0; v < vertexCount; v++) {
+            components[v] = numbers[representatives[v]] - 1;
+            sizes[components[v]]++;
+        }
+    }
+
+    /**
+     * Returns the component of the specified vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the number of its component
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int getComponent(Vertex<V> vertex) {
+        return components[graph.indexOf(vertex)];
+    }
+
+    /**
+     * Returns the component of the vertex with the specified id.
+     *
+     * @param vertex the id of the vertex
+     * @return the number of its component
+     */
+    public int component(int vertex) {
+        return components[vertex];
+    }
+
+    /**
+     * Returns whether two vertices belong to the same component.
+     *
+     * @param a the first vertex
+     * @param b the second vertex
+     * @return true if both vertices are in the same component
+     * @throws IllegalArgumentException if either vertex is not present in the graph
+     */
+    public boolean isConnected(Vertex<V> a, Vertex<V> b) {
+        return getComponent(a) == getComponent(b);
+    }
+
+    /**
+     * Returns the number of components.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return sizes.length;
+    }
+
+    /**
+     * Returns the number of vertices in a component.
+     *
+     * @param component the number of the component
+     * @return the size of the component
+     */
+    public int size(int component) {
+        return sizes[component];
+    }
+
+    /**
+     * Returns the number of vertices in the largest component.
+     *
+     * @return the size of the largest component, or 0 for an empty graph
+     */
+    public int getLargestComponentSize() {
+        int largest = 0;
+        for (int size : sizes) {
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+}
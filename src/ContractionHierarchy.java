@@ -0,0 +1,281 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A contraction hierarchy over a {@link CsrGraph} snapshot, used by {@link ChSearch} to answer shortest-path
+ * queries with two small upward searches.
+ * <p>
+ * Every vertex has a rank given by the order in which it was contracted. The hierarchy stores, per vertex,
+ * the upward edges to higher-ranked vertices and the downward edges arriving from higher-ranked vertices.
+ * Both include shortcuts, which remember the contracted middle vertex they bypass so that paths can be
+ * unpacked back into original edges.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class ContractionHierarchy<V> {
+    private static final int MAGIC = 0x43484752;
+    private static final int FORMAT_VERSION = 1;
+
+    private final CsrGraph<V> graph;
+    private final int[] ranks;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+
+    ContractionHierarchy(CsrGraph<V> graph, int[] ranks,
+                         int[] upOffsets, int[] upTargets, double[] upWeights, int[] upMiddles,
+                         int[] downOffsets, int[] downSources, double[] downWeights, int[] downMiddles) {
+        this.graph = graph;
+        this.ranks = ranks;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+    }
+
+    /**
+     * Contracts the specified graph using all available processors.
+     *
+     * @param graph the snapshot to preprocess; edge weights must be non-negative
+     * @param <V>   the type of data stored in the vertices
+     * @return the contraction hierarchy
+     */
+    public static <V> ContractionHierarchy<V> build(CsrGraph<V> graph) {
+        return build(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Contracts the specified graph with the given number of worker threads.
+     *
+     * @param graph       the snapshot to preprocess; edge weights must be non-negative
+     * @param parallelism the number of threads used for witness searches and priority updates
+     * @param <V>         the type of data stored in the vertices
+     * @return the contraction hierarchy
+     * @throws IllegalArgumentException if the parallelism is not positive
+     */
+    public static <V> ContractionHierarchy<V> build(CsrGraph<V> graph, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism " + parallelism + " is out of the range");
+        }
+        return new ChContractor<>(graph).contract(parallelism);
+    }
+
+    /**
+     * Returns the snapshot the hierarchy was built for.
+     *
+     * @return the underlying CSR graph
+     */
+    public CsrGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the rank of a vertex, which is its position in the contraction order.
+     *
+     * @param vertex the id of the vertex
+     * @return the rank of the vertex
+     */
+    public int rank(int vertex) {
+        return ranks[vertex];
+    }
+
+    /**
+     * Returns the number of upward edges, including shortcuts.
+     *
+     * @return the number of upward edges
+     */
+    public int upwardEdgeCount() {
+        return upTargets.length;
+    }
+
+    /**
+     * Returns the number of downward edges, including shortcuts.
+     *
+     * @return the number of downward edges
+     */
+    public int downwardEdgeCount() {
+        return downSources.length;
+    }
+
+    int upStart(int vertex) {
+        return upOffsets[vertex];
+    }
+
+    int upEnd(int vertex) {
+        return upOffsets[vertex + 1];
+    }
+
+    int upTarget(int edge) {
+        return upTargets[edge];
+    }
+
+    double upWeight(int edge) {
+        return upWeights[edge];
+    }
+
+    int downStart(int vertex) {
+        return downOffsets[vertex];
+    }
+
+    int downEnd(int vertex) {
+        return downOffsets[vertex + 1];
+    }
+
+    int downSource(int edge) {
+        return downSources[edge];
+    }
+
+    double downWeight(int edge) {
+        return downWeights[edge];
+    }
+
+    /**
+     * Returns the middle vertex of the hierarchy edge from one vertex to another.
+     *
+     * @param source the id of the source vertex
+     * @param target the id of the target vertex
+     * @return the id of the bypassed vertex, or -1 if the edge is an original edge
+     * @throws IllegalArgumentException if the hierarchy has no such edge
+     */
+    int middle(int source, int target) {
+        if (ranks[source] < ranks[target]) {
+            for (int e = upOffsets[source]; e < upOffsets[source + 1]; e++) {
+                if (upTargets[e] == target) {
+                    return upMiddles[e];
+                }
+            }
+        } else {
+            for (int e = downOffsets[target]; e < downOffsets[target + 1]; e++) {
+                if (downSources[e] == source) {
+                    return downMiddles[e];
+                }
+            }
+        }
+        throw new IllegalArgumentException("Edge " + source + " -> " + target + " is out of the range");
+    }
+
+    /**
+     * Writes the hierarchy in a compact binary form.
+     * <p>
+     * Only vertex ids are stored, so the hierarchy must be read back against the same snapshot.
+     *
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(graph.vertexCount());
+        data.writeInt(graph.edgeCount());
+        writeInts(data, ranks);
+        writeInts(data, upOffsets);
+        writeInts(data, upTargets);
+        writeDoubles(data, upWeights);
+        writeInts(data, upMiddles);
+        writeInts(data, downOffsets);
+        writeInts(data, downSources);
+        writeDoubles(data, downWeights);
+        writeInts(data, downMiddles);
+        data.flush();
+    }
+
+    /**
+     * Reads a hierarchy written by {@link #write(OutputStream)} for the specified snapshot.
+     *
+     * @param in    the stream to read from
+     * @param graph the snapshot the hierarchy was built for
+     * @param <V>   the type of data stored in the vertices
+     * @return the contraction hierarchy
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the stream is not a hierarchy for a graph of this shape
+     */
+    public static <V> ContractionHierarchy<V> read(InputStream in, CsrGraph<V> graph) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Stream does not contain a contraction hierarchy");
+        }
+        int vertexCount = data.readInt();
+        int edgeCount = data.readInt();
+        if (vertexCount != graph.vertexCount() || edgeCount != graph.edgeCount()) {
+            throw new IllegalArgumentException("Hierarchy was built for a graph with " + vertexCount
+                    + " vertices and " + edgeCount + " edges");
+        }
+        return new ContractionHierarchy<>(graph, readInts(data), readInts(data), readInts(data),
+                readDoubles(data), readInts(data), readInts(data), readInts(data), readDoubles(data),
+                readInts(data));
+    }
+
+    private static void writeInts(DataOutputStream data, int[] values) throws IOException {
+        data.writeInt(values.length);
+        for (int value : values) {
+            data.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream data, double[] values) throws IOException {
+        data.writeInt(values.length);
+        for (double value : values) {
+            data.writeDouble(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream data) throws IOException {
+        int[] values = new int[data.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.readInt();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream data) throws IOException {
+        double[] values = new double[data.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.readDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Groups edges given as parallel arrays by their owning vertex into CSR offsets, in place of the input order.
+     *
+     * @return the offsets, with the other arrays permuted into owner order
+     */
+    static int[] groupByOwner(int vertexCount, int count, int[] owners, int[] others, double[] weights,
+                              int[] middles) {
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[owners[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] cursor = Arrays.copyOf(offsets, vertexCount);
+        int[] sortedOthers = new int[count];
+        double[] sortedWeights = new double[count];
+        int[] sortedMiddles = new int[count];
+        for (int i = 0; i < count; i++) {
+            int position = cursor[owners[i]]++;
+            sortedOthers[position] = others[i];
+            sortedWeights[position] = weights[i];
+            sortedMiddles[position] = middles[i];
+        }
+        System.arraycopy(sortedOthers, 0, others, 0, count);
+        System.arraycopy(sortedWeights, 0, weights, 0, count);
+        System.arraycopy(sortedMiddles, 0, middles, 0, count);
+        return offsets;
+    }
+}
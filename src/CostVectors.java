@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+/**
+ * Several non-negative costs per edge of a {@link CsrGraph}, such as travel time, distance and tolls, searched
+ * by {@link ParetoSearch}.
+ * <p>
+ * The costs of all edges are stored in one double array, row by row, so a graph with {@code k} criteria takes
+ * {@code 8 * k} bytes per edge and no object per edge.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class CostVectors<V> {
+    private final CsrGraph<V> graph;
+    private final int criteria;
+    private final double[] costs;
+
+    private CostVectors(CsrGraph<V> graph, int criteria, double[] costs) {
+        this.graph = graph;
+        this.criteria = criteria;
+        this.costs = costs;
+    }
+
+    /**
+     * Returns the graph whose edges the costs belong to.
+     *
+     * @return the CSR graph
+     */
+    public CsrGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of costs per edge.
+     *
+     * @return the criteria count
+     */
+    public int criteria() {
+        return criteria;
+    }
+
+    /**
+     * Returns one cost of an edge.
+     *
+     * @param edge      the index of the edge
+     * @param criterion the index of the cost, between 0 and {@link #criteria()} - 1
+     * @return the cost
+     */
+    public double cost(int edge, int criterion) {
+        return costs[edge * criteria + criterion];
+    }
+
+    /**
+     * Returns the backing array, with the costs of edge {@code e} at {@code e * criteria()} onwards.
+     *
+     * @return the cost array, not to be modified
+     */
+    double[] costArray() {
+        return costs;
+    }
+
+    /**
+     * Collects the costs of the edges of one graph.
+     *
+     * @param <V> the type of data stored in the vertices
+     */
+    public static class Builder<V> {
+        private final CsrGraph<V> graph;
+        private final int criteria;
+        private final double[] costs;
+
+        /**
+         * Constructs a builder for the edges of the specified graph. The first cost of every edge starts as its
+         * weight and the other costs start at 0.
+         *
+         * @param graph    the graph whose edges get costs
+         * @param criteria the number of costs per edge
+         * @throws IllegalArgumentException if the criteria count is not positive or the graph has a negative
+         *                                  weight
+         */
+        public Builder(CsrGraph<V> graph, int criteria) {
+            if (criteria <= 0) {
+                throw new IllegalArgumentException("Criteria count " + criteria + " is out of the range");
+            }
+            if (graph.minWeight() < 0) {
+                throw new IllegalArgumentException("Edge weight " + graph.minWeight() + " is out of the range");
+            }
+            this.graph = graph;
+            this.criteria = criteria;
+            this.costs = new double[Math.multiplyExact(graph.edgeCount(), criteria)];
+            for (int e = 0; e < graph.edgeCount(); e++) {
+                costs[e * criteria] = graph.weight(e);
+            }
+        }
+
+        /**
+         * Sets all costs of an edge.
+         *
+         * @param edge  the index of the edge in the graph
+         * @param costs one non-negative cost per criterion
+         * @return this builder
+         * @throws IllegalArgumentException if the edge is out of the range, the number of costs does not match
+         *                                  the criteria count or a cost is negative
+         */
+        public Builder<V> set(int edge, double... costs) {
+            if (edge < 0 || edge >= graph.edgeCount()) {
+                throw new IllegalArgumentException("Edge " + edge + " is out of the range");
+            }
+            if (costs.length != criteria) {
+                throw new IllegalArgumentException("Cost count " + costs.length + " is out of the range");
+            }
+            for (double cost : costs) {
+                if (!(cost >= 0) || Double.isInfinite(cost)) {
+                    throw new IllegalArgumentException("Cost " + cost + " is out of the range");
+                }
+            }
+            System.arraycopy(costs, 0, this.costs, edge * criteria, criteria);
+            return this;
+        }
+
+        /**
+         * Builds the cost vectors.
+         *
+         * @return the immutable cost vectors
+         */
+        public CostVectors<V> build() {
+            return new CostVectors<>(graph, criteria, Arrays.copyOf(costs, costs.length));
+        }
+    }
+}
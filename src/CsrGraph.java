@@ -0,0 +1,521 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable compressed sparse row (CSR) snapshot of a weighted graph.
+ * <p>
+ * Vertices are mapped to dense ids {@code 0..vertexCount()-1}. The outgoing edges of vertex {@code v}
+ * occupy the index range {@code edgeStart(v)..edgeEnd(v)-1} of the {@code targets} and {@code weights}
+ * arrays, so a search walks contiguous primitive memory instead of chasing {@code Edge} objects.
+ * <p>
+ * Snapshots built by {@link WeightedGraph#freeze()} or a {@link Builder} keep their arrays on the heap;
+ * {@link MappedCsrGraph} reads the same layout from a memory-mapped file.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public abstract class CsrGraph<V> {
+    private final List<Vertex<V>> vertices;
+    private final Map<Vertex<V>, Integer> index;
+    private volatile CsrGraph<V> reverse;
+    private volatile double minWeight = Double.NaN;
+
+    /**
+     * Constructs a graph over the specified vertex table.
+     *
+     * @param vertices the vertices, indexed by id
+     * @param index    the id of every vertex, or null if the id of every vertex is its {@link Vertex#getId()}
+     */
+    CsrGraph(List<Vertex<V>> vertices, Map<Vertex<V>, Integer> index) {
+        this.vertices = vertices;
+        this.index = index;
+    }
+
+    /**
+     * Builds a CSR snapshot of the specified weighted graph.
+     * <p>
+     * The snapshot keeps the vertex ids of the graph. When every vertex got its id from the graph, the
+     * snapshot looks vertices up by {@link Vertex#getId()} and builds no hash index.
+     *
+     * @param graph the graph to compact
+     * @param <V>   the type of data stored in the vertices
+     * @return the CSR snapshot
+     */
+    static <V> CsrGraph<V> of(WeightedGraph<V> graph) {
+        List<Vertex<V>> vertices = graph.getVertices();
+        int vertexCount = vertices.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] = offsets[v] + graph.edges(v).size();
+        }
+        int[] targets = new int[offsets[vertexCount]];
+        double[] weights = new double[targets.length];
+        for (int v = 0, e = 0; v < vertexCount; v++) {
+            for (WeightedGraph<V>.Edge<V> edge : graph.edges(v)) {
+                targets[e] = graph.indexOf(edge.getDestination());
+                weights[e] = edge.getWeight();
+                e++;
+            }
+        }
+
+        Map<Vertex<V>, Integer> index = null;
+        if (!graph.ownsAllVertices()) {
+            index = new HashMap<>(Math.max(16, (int) (vertexCount / 0.75f) + 1));
+            for (int v = 0; v < vertexCount; v++) {
+                index.put(vertices.get(v), v);
+            }
+        }
+        return new ArrayGraph<>(vertices, index, offsets, targets, weights);
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public abstract int edgeCount();
+
+    /**
+     * Returns the dense id of the specified vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the id of the vertex
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int indexOf(Vertex<V> vertex) {
+        if (index == null) {
+            int id = vertex.getId();
+            if (id < 0 || id >= vertices.size() || vertices.get(id) != vertex) {
+                throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
+            }
+            return id;
+        }
+        Integer id = index.get(vertex);
+        if (id == null) {
+            throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
+        }
+        return id;
+    }
+
+    /**
+     * Checks if the graph contains the specified vertex.
+     *
+     * @param vertex the vertex to check
+     * @return true if the vertex is present in the graph, false otherwise
+     */
+    public boolean containsVertex(Vertex<V> vertex) {
+        if (index == null) {
+            int id = vertex.getId();
+            return id >= 0 && id < vertices.size() && vertices.get(id) == vertex;
+        }
+        return index.containsKey(vertex);
+    }
+
+    /**
+     * Returns the vertex with the specified id.
+     *
+     * @param id the id of the vertex
+     * @return the vertex
+     */
+    public Vertex<V> vertex(int id) {
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the index of the first outgoing edge of the specified vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the index of the first outgoing edge
+     */
+    public abstract int edgeStart(int vertex);
+
+    /**
+     * Returns the index one past the last outgoing edge of the specified vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the index one past the last outgoing edge
+     */
+    public abstract int edgeEnd(int vertex);
+
+    /**
+     * Returns the number of outgoing edges of the specified vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the out-degree of the vertex
+     */
+    public int degree(int vertex) {
+        return edgeEnd(vertex) - edgeStart(vertex);
+    }
+
+    /**
+     * Returns the id of the destination vertex of the specified edge.
+     *
+     * @param edge the index of the edge
+     * @return the id of the destination vertex
+     */
+    public abstract int target(int edge);
+
+    /**
+     * Returns the weight of the specified edge.
+     *
+     * @param edge the index of the edge
+     * @return the weight of the edge
+     */
+    public abstract double weight(int edge);
+
+    /**
+     * Returns the index of the first edge from one vertex to another.
+     *
+     * @param source the id of the source vertex
+     * @param target the id of the destination vertex
+     * @return the index of the edge, or -1 if there is no such edge
+     */
+    public int edgeIndex(int source, int target) {
+        for (int e = edgeStart(source), end = edgeEnd(source); e < end; e++) {
+            if (target(e) == target) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the smallest edge weight, computed on first use.
+     *
+     * @return the smallest weight, or positive infinity for a graph without edges
+     */
+    public double minWeight() {
+        double result = minWeight;
+        if (Double.isNaN(result)) {
+            result = Double.POSITIVE_INFINITY;
+            for (int e = 0, edgeCount = edgeCount(); e < edgeCount; e++) {
+                result = Math.min(result, weight(e));
+            }
+            minWeight = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the edge weights, indexed like {@link #weight(int)}.
+     *
+     * @return the edge weights
+     */
+    double[] copyWeights() {
+        double[] copy = new double[edgeCount()];
+        for (int e = 0; e < copy.length; e++) {
+            copy[e] = weight(e);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a graph with the same vertices and edges as this one but different edge weights.
+     * <p>
+     * The vertex table is shared, and heap snapshots also share their adjacency arrays, so a reweighted
+     * heap snapshot costs one weight array.
+     *
+     * @param newWeights the weight of every edge, indexed like {@link #weight(int)}
+     * @return the reweighted graph
+     * @throws IllegalArgumentException if the number of weights does not match the number of edges
+     */
+    CsrGraph<V> withWeights(double[] newWeights) {
+        if (newWeights.length != edgeCount()) {
+            throw new IllegalArgumentException("Weight count " + newWeights.length + " is out of the range");
+        }
+        return new ArrayGraph<>(vertices, index, offsetArray(), targetArray(), newWeights);
+    }
+
+    /**
+     * Returns the edge offsets as an array of {@code vertexCount() + 1} entries, which heap snapshots share
+     * instead of copying.
+     *
+     * @return the edge offsets
+     */
+    int[] offsetArray() {
+        int vertexCount = vertexCount();
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] = edgeEnd(v);
+        }
+        return offsets;
+    }
+
+    /**
+     * Returns the edge targets as an array, which heap snapshots share instead of copying.
+     *
+     * @return the edge targets
+     */
+    int[] targetArray() {
+        int[] targets = new int[edgeCount()];
+        for (int e = 0; e < targets.length; e++) {
+            targets[e] = target(e);
+        }
+        return targets;
+    }
+
+    /**
+     * Returns the transpose of this graph, in which every edge points from its destination to its source.
+     * <p>
+     * The transpose shares the vertex ids of this graph and is built on the heap on first use, so backward
+     * searches can walk incoming edges with the same primitive accessors.
+     *
+     * @return the reverse graph
+     */
+    public CsrGraph<V> reverse() {
+        CsrGraph<V> result = reverse;
+        if (result == null) {
+            int vertexCount = vertices.size();
+            int edgeCount = edgeCount();
+            int[] reverseOffsets = new int[vertexCount + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                reverseOffsets[target(e) + 1]++;
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                reverseOffsets[v + 1] += reverseOffsets[v];
+            }
+
+            int[] cursor = Arrays.copyOf(reverseOffsets, vertexCount);
+            int[] reverseTargets = new int[edgeCount];
+            double[] reverseWeights = new double[edgeCount];
+            for (int v = 0; v < vertexCount; v++) {
+                for (int e = edgeStart(v), end = edgeEnd(v); e < end; e++) {
+                    int position = cursor[target(e)]++;
+                    reverseTargets[position] = v;
+                    reverseWeights[position] = weight(e);
+                }
+            }
+
+            result = new ArrayGraph<>(vertices, index, reverseOffsets, reverseTargets, reverseWeights);
+            result.reverse = this;
+            reverse = result;
+        }
+        return result;
+    }
+
+    /**
+     * Builds a {@link CsrGraph} from vertices and edges added in any order.
+     * <p>
+     * Edges are buffered in primitive arrays and grouped by source with a counting sort when the graph is
+     * built, so the relative order of the edges of each vertex is preserved.
+     *
+     * @param <V> the type of data stored in the vertices
+     */
+    public static class Builder<V> {
+        private final List<Vertex<V>> vertices;
+        private final Map<Vertex<V>, Integer> index;
+        private int[] sources;
+        private int[] targets;
+        private double[] weights;
+        private int edgeCount;
+
+        /**
+         * Constructs an empty builder.
+         */
+        public Builder() {
+            this(16, 16);
+        }
+
+        /**
+         * Constructs an empty builder pre-sized for the expected number of vertices and edges.
+         *
+         * @param expectedVertices the expected number of vertices
+         * @param expectedEdges    the expected number of edges
+         */
+        public Builder(int expectedVertices, int expectedEdges) {
+            this.vertices = new ArrayList<>(expectedVertices);
+            this.index = new HashMap<>(Math.max(16, (int) (expectedVertices / 0.75f) + 1));
+            this.sources = new int[Math.max(16, expectedEdges)];
+            this.targets = new int[sources.length];
+            this.weights = new double[sources.length];
+        }
+
+        /**
+         * Adds a vertex to the graph, or returns its id if it has already been added.
+         *
+         * @param vertex the vertex to add
+         * @return the id of the vertex
+         */
+        public int addVertex(Vertex<V> vertex) {
+            Integer id = index.get(vertex);
+            if (id != null) {
+                return id;
+            }
+            int newId = vertices.size();
+            vertices.add(vertex);
+            index.put(vertex, newId);
+            return newId;
+        }
+
+        /**
+         * Returns the id of a vertex that has already been added.
+         *
+         * @param vertex the vertex to look up
+         * @return the id of the vertex
+         * @throws IllegalArgumentException if the vertex has not been added
+         */
+        public int indexOf(Vertex<V> vertex) {
+            Integer id = index.get(vertex);
+            if (id == null) {
+                throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
+            }
+            return id;
+        }
+
+        /**
+         * Adds an edge between two vertices that have already been added.
+         *
+         * @param source      the id of the source vertex
+         * @param destination the id of the destination vertex
+         * @param weight      the weight associated with the edge
+         * @throws IllegalArgumentException if either id is out of the range
+         */
+        public void addEdge(int source, int destination, double weight) {
+            if (source < 0 || source >= vertices.size()) {
+                throw new IllegalArgumentException("Vertex " + source + " is out of the range");
+            }
+            if (destination < 0 || destination >= vertices.size()) {
+                throw new IllegalArgumentException("Vertex " + destination + " is out of the range");
+            }
+            if (edgeCount == sources.length) {
+                int capacity = sources.length * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = destination;
+            weights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        /**
+         * Builds the CSR graph.
+         *
+         * @return the CSR graph
+         */
+        public CsrGraph<V> build() {
+            return fromEdges(new ArrayList<>(vertices), new HashMap<>(index), sources, targets, weights, edgeCount);
+        }
+    }
+
+    /**
+     * Wraps arrays that are already in CSR layout.
+     *
+     * @param vertices the vertices, indexed by id
+     * @param index    the id of every vertex, or null if the id of every vertex is its {@link Vertex#getId()}
+     * @param offsets  the edge range of every vertex, with {@code vertexCount + 1} entries
+     * @param targets  the destination id of every edge
+     * @param weights  the weight of every edge
+     * @param <V>      the type of data stored in the vertices
+     * @return the CSR graph, which takes ownership of the arrays
+     */
+    static <V> CsrGraph<V> of(List<Vertex<V>> vertices, Map<Vertex<V>, Integer> index,
+                              int[] offsets, int[] targets, double[] weights) {
+        return new ArrayGraph<>(vertices, index, offsets, targets, weights);
+    }
+
+    /**
+     * Builds a CSR graph from edges given as parallel arrays, grouping them by source with a counting sort
+     * that preserves the relative order of the edges of each vertex.
+     *
+     * @param vertices  the vertices, indexed by id
+     * @param index     the id of every vertex
+     * @param sources   the source id of every edge
+     * @param targets   the destination id of every edge
+     * @param weights   the weight of every edge
+     * @param edgeCount the number of edges in the arrays
+     * @param <V>       the type of data stored in the vertices
+     * @return the CSR graph, which takes ownership of the vertex list and index
+     */
+    static <V> CsrGraph<V> fromEdges(List<Vertex<V>> vertices, Map<Vertex<V>, Integer> index,
+                                     int[] sources, int[] targets, double[] weights, int edgeCount) {
+        int vertexCount = vertices.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[sources[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] cursor = Arrays.copyOf(offsets, vertexCount);
+        int[] sortedTargets = new int[edgeCount];
+        double[] sortedWeights = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int position = cursor[sources[i]]++;
+            sortedTargets[position] = targets[i];
+            sortedWeights[position] = weights[i];
+        }
+
+        return new ArrayGraph<>(vertices, index, offsets, sortedTargets, sortedWeights);
+    }
+
+    /**
+     * A CSR graph whose offsets, targets and weights are heap arrays.
+     */
+    private static final class ArrayGraph<V> extends CsrGraph<V> {
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+
+        ArrayGraph(List<Vertex<V>> vertices, Map<Vertex<V>, Integer> index,
+                   int[] offsets, int[] targets, double[] weights) {
+            super(vertices, index);
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public int edgeCount() {
+            return targets.length;
+        }
+
+        @Override
+        public int edgeStart(int vertex) {
+            return offsets[vertex];
+        }
+
+        @Override
+        public int edgeEnd(int vertex) {
+            return offsets[vertex + 1];
+        }
+
+        @Override
+        public int target(int edge) {
+            return targets[edge];
+        }
+
+        @Override
+        public double weight(int edge) {
+            return weights[edge];
+        }
+
+        @Override
+        double[] copyWeights() {
+            return weights.clone();
+        }
+
+        @Override
+        int[] offsetArray() {
+            return offsets;
+        }
+
+        @Override
+        int[] targetArray() {
+            return targets;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel single-source shortest paths with the delta-stepping algorithm of Meyer and Sanders.
+ * <p>
+ * Tentative distances are kept in buckets of width {@code delta}. The smallest non-empty bucket is emptied
+ * by relaxing the light edges (weight at most {@code delta}) of all its vertices in parallel, repeating until
+ * no vertex re-enters it, after which the heavy edges of every vertex settled in the bucket are relaxed once.
+ * Distances are lowered with a compare-and-set on their bit pattern, which orders like the value itself for
+ * non-negative doubles. The result equals that of {@link DijkstraSearch#dijkstraSearch(Vertex)}.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class DeltaStepping<V> {
+    private static final int CHUNK = 256;
+    private static final long INFINITY_BITS = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private ForkJoinPool pool;
+    private double delta;
+
+    /**
+     * Constructs a DeltaStepping object with the specified weighted graph, an automatically tuned delta and
+     * the common ForkJoin pool.
+     *
+     * @param graph the weighted graph to search
+     */
+    public DeltaStepping(WeightedGraph<V> graph) {
+        this(graph, 0.0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a DeltaStepping object with the specified weighted graph, bucket width and pool.
+     *
+     * @param graph the weighted graph to search
+     * @param delta the bucket width, or a non-positive value to tune it from the graph on every query
+     * @param pool  the pool that relaxes the buckets
+     */
+    public DeltaStepping(WeightedGraph<V> graph, double delta, ForkJoinPool pool) {
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a DeltaStepping object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to search
+     * @param delta    the bucket width, or a non-positive value to tune it from the graph on every query
+     * @param pool     the pool that relaxes the buckets
+     */
+    public DeltaStepping(CsrGraph<V> snapshot, double delta, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        return graph != null ? graph.freeze() : snapshot;
+    }
+
+    /**
+     * Chooses a bucket width of the maximum edge weight divided by the average out-degree, which keeps the
+     * number of light-edge phases per bucket small while leaving enough vertices per bucket to parallelize.
+     *
+     * @param graph the graph to tune for
+     * @return the bucket width
+     */
+    public static double autoDelta(CsrGraph<?> graph) {
+        double maxWeight = 0.0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            maxWeight = Math.max(maxWeight, graph.weight(e));
+        }
+        if (maxWeight == 0.0) {
+            return 1.0;
+        }
+        double averageDegree = Math.max(1.0, (double) graph.edgeCount() / Math.max(1, graph.vertexCount()));
+        return maxWeight / averageDegree;
+    }
+
+    /**
+     * Computes the shortest distances from the start vertex to all other vertices in the graph.
+     *
+     * @param startVertex the start vertex
+     * @return a map containing the vertices as keys and their respective shortest distances from the start vertex as values
+     */
+    public Map<Vertex<V>, Double> shortestDistances(Vertex<V> startVertex) {
+        CsrGraph<V> csr = csr();
+        double[] distances = distances(csr, csr.indexOf(startVertex));
+        Map<Vertex<V>, Double> result = new HashMap<>();
+        for (int v = 0; v < distances.length; v++) {
+            result.put(csr.vertex(v), distances[v]);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the shortest distances from the start vertex, indexed by vertex id.
+     *
+     * @param startVertex the start vertex
+     * @return the distance of every vertex, positive infinity for unreachable vertices
+     */
+    public double[] distances(Vertex<V> startVertex) {
+        CsrGraph<V> csr = csr();
+        return distances(csr, csr.indexOf(startVertex));
+    }
+
+    private double[] distances(CsrGraph<V> csr, int source) {
+        double width = delta > 0 ? delta : autoDelta(csr);
+        double maxWeight = 0.0;
+        for (int e = 0; e < csr.edgeCount(); e++) {
+            double weight = csr.weight(e);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Edge weight " + weight + " is out of the range");
+            }
+            maxWeight = Math.max(maxWeight, weight);
+        }
+
+        int vertexCount = csr.vertexCount();
+        AtomicLongArray tentative = new AtomicLongArray(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            tentative.set(v, INFINITY_BITS);
+        }
+        tentative.set(source, Double.doubleToRawLongBits(0.0));
+
+        // Pending distances never exceed the current bucket by more than the heaviest edge, so a ring suffices
+        int ringSize = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(maxWeight / width) + 2);
+        IntList[] buckets = new IntList[ringSize];
+        bucket(buckets, 0).add(source);
+        int[] frontierStamps = new int[vertexCount];
+        int[] settledStamps = new int[vertexCount];
+        long current = 0;
+        int phase = 0;
+        int round = 0;
+        int pending = 1;
+
+        while (pending > 0) {
+            while (buckets[(int) (current % ringSize)] == null || buckets[(int) (current % ringSize)].size == 0) {
+                current++;
+            }
+            IntList bucket = buckets[(int) (current % ringSize)];
+            IntList settled = new IntList();
+            int stamp = ++round;
+
+            while (bucket.size > 0) {
+                phase++;
+                IntList frontier = new IntList();
+                for (int i = 0; i < bucket.size; i++) {
+                    int v = bucket.values[i];
+                    double distance = Double.longBitsToDouble(tentative.get(v));
+                    if (frontierStamps[v] != phase && (long) Math.floor(distance / width) == current) {
+                        frontierStamps[v] = phase;
+                        frontier.add(v);
+                        if (settledStamps[v] != stamp) {
+                            settledStamps[v] = stamp;
+                            settled.add(v);
+                        }
+                    }
+                }
+                pending -= bucket.size;
+                bucket.size = 0;
+                pending += relax(csr, frontier, tentative, width, true, buckets, current);
+            }
+            pending += relax(csr, settled, tentative, width, false, buckets, current);
+        }
+
+        double[] result = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            result[v] = Double.longBitsToDouble(tentative.get(v));
+        }
+        return result;
+    }
+
+    /**
+     * Relaxes the light or heavy edges of the given vertices in parallel and files every improved vertex
+     * into the bucket of its new distance.
+     *
+     * @return the number of bucket entries added
+     */
+    private int relax(CsrGraph<V> csr, IntList vertices, AtomicLongArray tentative, double width, boolean light,
+                      IntList[] buckets, long current) {
+        int chunks = (vertices.size + CHUNK - 1) / CHUNK;
+        IntList[] improved = new IntList[chunks];
+        invoke(IntStream.range(0, chunks), chunk -> {
+            IntList local = new IntList();
+            for (int i = chunk * CHUNK, end = Math.min(vertices.size, (chunk + 1) * CHUNK); i < end; i++) {
+                int v = vertices.values[i];
+                double distance = Double.longBitsToDouble(tentative.get(v));
+                for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                    double weight = csr.weight(e);
+                    if ((weight <= width) == light && lower(tentative, csr.target(e), distance + weight)) {
+                        local.add(csr.target(e));
+                    }
+                }
+            }
+            improved[chunk] = local;
+        });
+
+        int added = 0;
+        for (IntList local : improved) {
+            for (int i = 0; i < local.size; i++) {
+                int v = local.values[i];
+                long index = (long) Math.floor(Double.longBitsToDouble(tentative.get(v)) / width);
+                bucket(buckets, Math.max(index, current)).add(v);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Returns the ring slot of a bucket index, creating the slot on first use.
+     */
+    private static IntList bucket(IntList[] buckets, long index) {
+        int slot = (int) (index % buckets.length);
+        if (buckets[slot] == null) {
+            buckets[slot] = new IntList();
+        }
+        return buckets[slot];
+    }
+
+    /**
+     * Lowers the tentative distance of a vertex, returning true if the given distance was an improvement.
+     */
+    private static boolean lower(AtomicLongArray tentative, int vertex, double distance) {
+        long bits = Double.doubleToRawLongBits(distance);
+        while (true) {
+            long current = tentative.get(vertex);
+            if (bits >= current) {
+                return false;
+            }
+            if (tentative.compareAndSet(vertex, current, bits)) {
+                return true;
+            }
+        }
+    }
+
+    private void invoke(IntStream tasks, IntConsumer action) {
+        try {
+            pool.submit(() -> tasks.parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Delta-stepping was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Delta-stepping failed", e.getCause());
+        }
+    }
+
+    /**
+     * A growable list of primitive ints.
+     */
+    private static class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
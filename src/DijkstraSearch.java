@@ -1,13 +1,38 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 
 /**
  * DijkstraSearch implements the Search interface using Dijkstra's algorithm to find the shortest path
  * and distances in a weighted graph.
+ * <p>
+ * The search runs over the {@link CsrGraph} snapshot of the graph, keeping distances and parents in
+ * primitive arrays indexed by vertex id. The priority queue is an {@link IndexedDaryHeap} with true
+ * decrease-key; heaps and generation-stamped labels come from the {@link SearchWorkspace} of the calling
+ * thread and are reused across queries, so a point-to-point search allocates no per-relaxation objects and
+ * never touches unreached vertices. An instance over a {@link CsrGraph} or a {@link GraphStore} can serve concurrent queries; an
+ * instance over a {@link WeightedGraph} is only as thread-safe as the graph itself.
+ * <p>
+ * Edge weights must be non-negative; queries on a graph with a negative weight throw an
+ * {@link IllegalArgumentException}. {@link AllPairsShortestPaths} supports negative weights.
+ * <p>
+ * When {@link GraphMetrics#ENABLED} is set, every query records its latency and work under the algorithm
+ * names {@code Dijkstra} and {@code DijkstraBidirectional}.
  *
  * @param <V> the type of vertex in the graph
  */
 public class DijkstraSearch<V> implements Search<V> {
+    private static final SearchMetrics METRICS = GraphMetrics.ENABLED ? GraphMetrics.search("Dijkstra") : null;
+    private static final SearchMetrics BIDIRECTIONAL_METRICS =
+            GraphMetrics.ENABLED ? GraphMetrics.search("DijkstraBidirectional") : null;
+
     private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private GraphStore<V> store;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
 
     /**
      * Constructs a DijkstraSearch object with the specified weighted graph.
@@ -18,6 +43,46 @@ public class DijkstraSearch<V> implements Search<V> {
         this.graph = graph;
     }
 
+    /**
+     * Constructs a DijkstraSearch object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to perform Dijkstra's algorithm on
+     */
+    public DijkstraSearch(CsrGraph<V> snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Constructs a DijkstraSearch object that searches the latest snapshot of the specified store.
+     * <p>
+     * Every query reads the snapshot once when it starts, so it sees one consistent version of the graph
+     * while the store's writer keeps publishing new ones.
+     *
+     * @param store the store to perform Dijkstra's algorithm on
+     */
+    public DijkstraSearch(GraphStore<V> store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        CsrGraph<V> csr;
+        if (graph != null) {
+            csr = graph.freeze();
+        } else {
+            csr = store != null ? store.snapshot() : snapshot;
+        }
+        // Dijkstra's algorithm settles vertices too early on negative edges, so refuse them instead
+        if (csr.minWeight() < 0) {
+            throw new IllegalArgumentException("Edge weight " + csr.minWeight() + " is out of the range");
+        }
+        return csr;
+    }
+
     /**
      * Performs Dijkstra's algorithm to find the shortest distances from the start vertex to all other vertices in the graph.
      *
@@ -25,45 +90,23 @@ public class DijkstraSearch<V> implements Search<V> {
      * @return a map containing the vertices as keys and their respective shortest distances from the start vertex as values
      */
     public Map<Vertex<V>, Double> dijkstraSearch(Vertex<V> startVertex) {
-        Map<Vertex<V>, Double> distances = new HashMap<>();
-        PriorityQueue<DijkstraNode<V>> priorityQueue = new PriorityQueue<>();
-
-        // Initialize distances to infinity for all vertices except the start vertex
-        for (Vertex<V> vertex : graph.getVertices()) {
-            if (vertex.equals(startVertex)) {
-                distances.put(vertex, 0.0);
-            } else {
-                distances.put(vertex, Double.POSITIVE_INFINITY);
-            }
+        long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+        CsrGraph<V> csr = csr();
+        double[] distances = new double[csr.vertexCount()];
+        SearchCounters counters = GraphMetrics.ENABLED ? scratch.get().counters : null;
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(csr.vertexCount());
+            shortestPaths(csr, csr.indexOf(startVertex), distances, null, workspace.heap(), counters);
         }
-
-        priorityQueue.offer(new DijkstraNode<>(startVertex, 0.0));
-
-        while (!priorityQueue.isEmpty()) {
-            DijkstraNode<V> currentNode = priorityQueue.poll();
-            Vertex<V> currentVertex = currentNode.getVertex();
-            double currentDistance = currentNode.getDistance();
-
-            // Skip if the current distance is greater than the known distance
-            if (currentDistance > distances.get(currentVertex)) {
-                continue;
-            }
-
-            List<WeightedGraph<V>.Edge<V>> edges = graph.getEdge(currentVertex);
-            for (WeightedGraph<V>.Edge<V> edge : edges) {
-                Vertex<V> neighborVertex = edge.getDestination();
-                double edgeWeight = edge.getWeight();
-                double distanceThroughCurrent = currentDistance + edgeWeight;
-
-                // Update the distance if it is shorter than the current known distance
-                if (distanceThroughCurrent < distances.get(neighborVertex)) {
-                    distances.put(neighborVertex, distanceThroughCurrent);
-                    priorityQueue.offer(new DijkstraNode<>(neighborVertex, distanceThroughCurrent));
-                }
-            }
+        if (GraphMetrics.ENABLED) {
+            METRICS.record(startNanos, counters, startVertex.getData(), null);
         }
 
-        return distances;
+        Map<Vertex<V>, Double> result = new HashMap<>();
+        for (int v = 0; v < distances.length; v++) {
+            result.put(csr.vertex(v), distances[v]);
+        }
+        return result;
     }
 
     /**
@@ -82,90 +125,476 @@ public class DijkstraSearch<V> implements Search<V> {
         }
     }
 
+    /**
+     * Finds the shortest path from the source vertex to the destination vertex.
+     * <p>
+     * The search stops as soon as the destination is settled and only labels the vertices it reaches,
+     * so its cost depends on the explored region rather than on the size of the graph.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     */
     @Override
     public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
-        Map<Vertex<V>, Double> distances = new HashMap<>();
-        Map<Vertex<V>, Vertex<V>> parentMap = new HashMap<>();
-        PriorityQueue<DijkstraNode<V>> priorityQueue = new PriorityQueue<>();
+        long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+        CsrGraph<V> csr = csr();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        List<V> path;
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            path = pathTo(csr, settle(workspace, csr, from, new int[]{to}), to);
+        }
+        if (GraphMetrics.ENABLED) {
+            METRICS.record(startNanos, scratch.get().counters, source.getData(), destination.getData());
+        }
+        return path;
+    }
 
-        // Initialize distances to infinity for all vertices except the source vertex
-        for (Vertex<V> vertex : graph.getVertices()) {
-            if (vertex.equals(source)) {
-                distances.put(vertex, 0.0);
-            } else {
-                distances.put(vertex, Double.POSITIVE_INFINITY);
+    /**
+     * Finds the shortest path for every query of a batch on the common ForkJoin pool.
+     *
+     * @param queries the source-destination pairs to answer
+     * @return the shortest paths, in the same order as the queries
+     * @see #findPaths(List, Executor)
+     */
+    @Override
+    public List<List<V>> findPaths(List<PathQuery<V>> queries) {
+        return findPaths(queries, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds the shortest path for every query of a batch.
+     * <p>
+     * Queries are grouped by source, and each group is answered by one search that stops once all of the
+     * group's destinations are settled. Groups run as separate tasks on the executor, each using the
+     * per-thread heap and labels of the thread it runs on, and all of them read the same snapshot.
+     *
+     * @param queries  the source-destination pairs to answer
+     * @param executor the executor that runs one task per distinct source
+     * @return the shortest paths, in the same order as the queries
+     * @throws IllegalArgumentException if a vertex of a query is not present in the graph
+     */
+    public List<List<V>> findPaths(List<PathQuery<V>> queries, Executor executor) {
+        CsrGraph<V> csr = csr();
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        int[] destinations = new int[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            PathQuery<V> query = queries.get(i);
+            destinations[i] = csr.indexOf(query.getDestination());
+            groups.computeIfAbsent(csr.indexOf(query.getSource()), source -> new ArrayList<>()).add(i);
+        }
+
+        Object[] paths = new Object[queries.size()];
+        runGroups(groups, executor, (source, members) -> {
+            long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+            int[] targets = new int[members.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = destinations[members.get(i)];
+            }
+            try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+                DistanceLabels labels = settle(workspace, csr, source, targets);
+                for (int member : members) {
+                    paths[member] = pathTo(csr, labels, destinations[member]);
+                }
+            }
+            if (GraphMetrics.ENABLED) {
+                METRICS.record(startNanos, scratch.get().counters, csr.vertex(source).getData(), null);
             }
+        });
+
+        List<List<V>> result = new ArrayList<>(paths.length);
+        for (Object path : paths) {
+            @SuppressWarnings("unchecked")
+            List<V> typed = (List<V>) path;
+            result.add(typed);
         }
+        return result;
+    }
 
-        priorityQueue.offer(new DijkstraNode<>(source, 0.0));
+    /**
+     * Computes the shortest distance from every source to every target on the common ForkJoin pool.
+     *
+     * @param sources the source vertices, one per row
+     * @param targets the target vertices, one per column
+     * @return the distance matrix, with positive infinity for unreachable pairs
+     * @see #distanceMatrix(List, List, Executor)
+     */
+    public double[][] distanceMatrix(List<Vertex<V>> sources, List<Vertex<V>> targets) {
+        return distanceMatrix(sources, targets, ForkJoinPool.commonPool());
+    }
 
-        while (!priorityQueue.isEmpty()) {
-            DijkstraNode<V> currentNode = priorityQueue.poll();
-            Vertex<V> currentVertex = currentNode.getVertex();
-            double currentDistance = currentNode.getDistance();
+    /**
+     * Computes the shortest distance from every source to every target.
+     * <p>
+     * Each distinct source is answered by one search that stops once every target is settled.
+     *
+     * @param sources  the source vertices, one per row
+     * @param targets  the target vertices, one per column
+     * @param executor the executor that runs one task per distinct source
+     * @return the distance matrix, with positive infinity for unreachable pairs
+     * @throws IllegalArgumentException if a vertex is not present in the graph
+     */
+    public double[][] distanceMatrix(List<Vertex<V>> sources, List<Vertex<V>> targets, Executor executor) {
+        CsrGraph<V> csr = csr();
+        int[] targetIds = new int[targets.size()];
+        for (int j = 0; j < targetIds.length; j++) {
+            targetIds[j] = csr.indexOf(targets.get(j));
+        }
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < sources.size(); i++) {
+            groups.computeIfAbsent(csr.indexOf(sources.get(i)), source -> new ArrayList<>()).add(i);
+        }
+
+        double[][] matrix = new double[sources.size()][];
+        runGroups(groups, executor, (source, rows) -> {
+            long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+            double[] row = new double[targetIds.length];
+            try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+                DistanceLabels labels = settle(workspace, csr, source, targetIds);
+                for (int j = 0; j < targetIds.length; j++) {
+                    row[j] = labels.distance(targetIds[j]);
+                }
+            }
+            for (int i : rows) {
+                matrix[i] = row.clone();
+            }
+            if (GraphMetrics.ENABLED) {
+                METRICS.record(startNanos, scratch.get().counters, csr.vertex(source).getData(), null);
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * Runs one task per source group on the executor and waits for all of them.
+     */
+    private static void runGroups(Map<Integer, List<Integer>> groups, Executor executor,
+                                  BiConsumer<Integer, List<Integer>> task) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        for (Map.Entry<Integer, List<Integer>> group : groups.entrySet()) {
+            futures.add(CompletableFuture.runAsync(() -> task.accept(group.getKey(), group.getValue()), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
-            // Skip if the current distance is greater than the known distance
-            if (currentDistance > distances.get(currentVertex)) {
-                continue;
+    /**
+     * Runs Dijkstra's algorithm from the source until every target has been settled.
+     * <p>
+     * Only the vertices reached by the search are labelled, so its cost depends on the explored region
+     * rather than on the size of the graph.
+     *
+     * @param workspace the held workspace to search in, which is reset first
+     * @param csr       the graph to search
+     * @param from      the id of the source vertex
+     * @param targets   the ids of the vertices to settle
+     * @return the labels of the workspace, holding final distances and parents for every target
+     */
+    private DistanceLabels settle(SearchWorkspace workspace, CsrGraph<V> csr, int from, int[] targets) {
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 1;
+        long decreases = 0;
+        workspace.reset(csr.vertexCount());
+        DistanceLabels labels = workspace.labels();
+        IndexedDaryHeap priorityQueue = workspace.heap();
+        int[] sortedTargets = targets.clone();
+        Arrays.sort(sortedTargets);
+        int remaining = 0;
+        for (int i = 0; i < sortedTargets.length; i++) {
+            if (i == 0 || sortedTargets[i] != sortedTargets[i - 1]) {
+                remaining++;
             }
+        }
 
-            List<WeightedGraph<V>.Edge<V>> edges = graph.getEdge(currentVertex);
-            for (WeightedGraph<V>.Edge<V> edge : edges) {
-                Vertex<V> neighborVertex = edge.getDestination();
-                double edgeWeight = edge.getWeight();
-                double distanceThroughCurrent = currentDistance + edgeWeight;
+        labels.set(from, 0.0, -1);
+        priorityQueue.insert(from, 0.0);
 
-                // Update the distance if it is shorter than the current known distance
-                if (distanceThroughCurrent < distances.get(neighborVertex)) {
-                    distances.put(neighborVertex, distanceThroughCurrent);
-                    parentMap.put(neighborVertex, currentVertex);
-                    priorityQueue.offer(new DijkstraNode<>(neighborVertex, distanceThroughCurrent));
+        while (!priorityQueue.isEmpty()) {
+            int currentVertex = priorityQueue.pollMin();
+            settled++;
+            if (Arrays.binarySearch(sortedTargets, currentVertex) >= 0 && --remaining == 0) {
+                break;
+            }
+            double currentDistance = labels.distance(currentVertex);
+            relaxed += csr.degree(currentVertex);
+
+            for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                int neighborVertex = csr.target(e);
+                double distanceThroughCurrent = currentDistance + csr.weight(e);
+                double previousDistance = labels.distance(neighborVertex);
+                if (distanceThroughCurrent < previousDistance) {
+                    if (previousDistance == Double.POSITIVE_INFINITY) {
+                        pushes++;
+                    } else {
+                        decreases++;
+                    }
+                    labels.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                    priorityQueue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
                 }
             }
         }
+        if (GraphMetrics.ENABLED) {
+            scratch.get().counters.set(settled, relaxed, pushes, decreases);
+        }
+        return labels;
+    }
 
-        return buildPath(parentMap, destination);
+    /**
+     * Builds the path to a vertex from the parents recorded by a search.
+     *
+     * @param csr    the graph that was searched
+     * @param labels the labels of the search
+     * @param to     the id of the destination vertex
+     * @return the list of vertices representing the path from the source to the destination
+     */
+    private List<V> pathTo(CsrGraph<V> csr, DistanceLabels labels, int to) {
+        LinkedList<V> path = new LinkedList<>();
+        for (int v = to; v != -1; v = labels.parent(v)) {
+            path.addFirst(csr.vertex(v).getData());
+        }
+        return new ArrayList<>(path);
     }
 
     /**
-     * Builds the shortest path from the source vertex to the destination vertex based on the parent map generated by Dijkstra's algorithm.
+     * Finds the shortest path from the source vertex to the destination vertex with a bidirectional search.
+     * <p>
+     * A forward search from the source and a backward search from the destination over
+     * {@link CsrGraph#reverse()} are advanced alternately, always expanding the smaller frontier, until the
+     * sum of their smallest tentative distances can no longer improve the best meeting point. Edge weights
+     * must be non-negative.
      *
-     * @param parentMap    the map containing the vertices and their respective parent vertices in the shortest path
-     * @param destination  the destination vertex
+     * @param source      the source vertex
+     * @param destination the destination vertex
      * @return the list of vertices representing the shortest path from the source to the destination
      */
-    private List<V> buildPath(Map<Vertex<V>, Vertex<V>> parentMap, Vertex<V> destination) {
-        List<V> path = new ArrayList<>();
-        Vertex<V> currentVertex = destination;
-
-        while (currentVertex != null) {
-            path.add(0, currentVertex.getData());
-            currentVertex = parentMap.get(currentVertex);
+    public List<V> findPathBidirectional(Vertex<V> source, Vertex<V> destination) {
+        long startNanos = GraphMetrics.ENABLED ? System.nanoTime() : 0L;
+        CsrGraph<V> csr = csr();
+        CsrGraph<V> reverse = csr.reverse();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        if (from == to) {
+            if (GraphMetrics.ENABLED) {
+                BIDIRECTIONAL_METRICS.record(startNanos, 0, 0, 0, 0, source.getData(), destination.getData());
+            }
+            return new ArrayList<>(Collections.singletonList(source.getData()));
         }
 
-        return path;
+        try (SearchWorkspace forwardWorkspace = SearchWorkspace.acquire(SearchWorkspace.FORWARD);
+             SearchWorkspace backwardWorkspace = SearchWorkspace.acquire(SearchWorkspace.BACKWARD)) {
+            forwardWorkspace.reset(csr.vertexCount());
+            backwardWorkspace.reset(csr.vertexCount());
+            DistanceLabels forward = forwardWorkspace.labels();
+            DistanceLabels backward = backwardWorkspace.labels();
+            IndexedDaryHeap forwardQueue = forwardWorkspace.heap();
+            IndexedDaryHeap backwardQueue = backwardWorkspace.heap();
+
+            forward.set(from, 0.0, -1);
+            forwardQueue.insert(from, 0.0);
+            backward.set(to, 0.0, -1);
+            backwardQueue.insert(to, 0.0);
+
+            double best = Double.POSITIVE_INFINITY;
+            int meetingTail = -1;
+            int meetingHead = -1;
+            long settled = 0;
+            long relaxed = 0;
+            long pushes = 2;
+            long decreases = 0;
+
+            while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+                if (forwardQueue.minKey() + backwardQueue.minKey() >= best) {
+                    break;
+                }
+
+                if (forwardQueue.size() <= backwardQueue.size()) {
+                    int currentVertex = forwardQueue.pollMin();
+                    double currentDistance = forward.distance(currentVertex);
+                    settled++;
+                    relaxed += csr.degree(currentVertex);
+                    for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                        int neighborVertex = csr.target(e);
+                        double distanceThroughCurrent = currentDistance + csr.weight(e);
+                        double previousDistance = forward.distance(neighborVertex);
+                        if (distanceThroughCurrent < previousDistance) {
+                            if (previousDistance == Double.POSITIVE_INFINITY) {
+                                pushes++;
+                            } else {
+                                decreases++;
+                            }
+                            forward.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                            forwardQueue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
+                        }
+                        double candidate = distanceThroughCurrent + backward.distance(neighborVertex);
+                        if (candidate < best) {
+                            best = candidate;
+                            meetingTail = currentVertex;
+                            meetingHead = neighborVertex;
+                        }
+                    }
+                } else {
+                    int currentVertex = backwardQueue.pollMin();
+                    double currentDistance = backward.distance(currentVertex);
+                    settled++;
+                    relaxed += reverse.degree(currentVertex);
+                    for (int e = reverse.edgeStart(currentVertex), end = reverse.edgeEnd(currentVertex); e < end; e++) {
+                        int neighborVertex = reverse.target(e);
+                        double distanceThroughCurrent = currentDistance + reverse.weight(e);
+                        double previousDistance = backward.distance(neighborVertex);
+                        if (distanceThroughCurrent < previousDistance) {
+                            if (previousDistance == Double.POSITIVE_INFINITY) {
+                                pushes++;
+                            } else {
+                                decreases++;
+                            }
+                            backward.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                            backwardQueue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
+                        }
+                        double candidate = distanceThroughCurrent + forward.distance(neighborVertex);
+                        if (candidate < best) {
+                            best = candidate;
+                            meetingTail = neighborVertex;
+                            meetingHead = currentVertex;
+                        }
+                    }
+                }
+            }
+
+            if (GraphMetrics.ENABLED) {
+                BIDIRECTIONAL_METRICS.record(startNanos, settled, relaxed, pushes, decreases, source.getData(),
+                        destination.getData());
+            }
+            if (meetingTail == -1) {
+                return new ArrayList<>(Collections.singletonList(destination.getData()));
+            }
+
+            LinkedList<V> path = new LinkedList<>();
+            for (int v = meetingTail; v != -1; v = forward.parent(v)) {
+                path.addFirst(csr.vertex(v).getData());
+            }
+            for (int v = meetingHead; v != -1; v = backward.parent(v)) {
+                path.addLast(csr.vertex(v).getData());
+            }
+            return new ArrayList<>(path);
+        }
     }
 
-    private static class DijkstraNode<V> implements Comparable<DijkstraNode<V>> {
-        private Vertex<V> vertex;
-        private double distance;
+    /**
+     * Runs Dijkstra's algorithm over the CSR graph from the specified source.
+     *
+     * @param csr           the graph to search
+     * @param source        the id of the source vertex
+     * @param distances     the array receiving the shortest distance of every vertex
+     * @param parents       the array receiving the parent of every vertex in the shortest path tree, or null
+     * @param priorityQueue an empty heap with capacity for every vertex of the graph
+     * @param <V>           the type of data stored in the vertices
+     */
+    static <V> void shortestPaths(CsrGraph<V> csr, int source, double[] distances, int[] parents,
+                                  IndexedDaryHeap priorityQueue) {
+        shortestPaths(csr, source, distances, parents, priorityQueue, null);
+    }
 
-        public DijkstraNode(Vertex<V> vertex, double distance) {
-            this.vertex = vertex;
-            this.distance = distance;
+    /**
+     * Runs Dijkstra's algorithm over the CSR graph from the specified source, recording the work done.
+     *
+     * @param csr           the graph to search
+     * @param source        the id of the source vertex
+     * @param distances     the array receiving the shortest distance of every vertex
+     * @param parents       the array receiving the parent of every vertex in the shortest path tree, or null
+     * @param priorityQueue an empty heap with capacity for every vertex of the graph
+     * @param counters      the counters receiving the work done when metrics are enabled, or null
+     * @param <V>           the type of data stored in the vertices
+     */
+    static <V> void shortestPaths(CsrGraph<V> csr, int source, double[] distances, int[] parents,
+                                  IndexedDaryHeap priorityQueue, SearchCounters counters) {
+        long settled = 0;
+        long relaxed = 0;
+        long pushes = 1;
+        long decreases = 0;
+        // Initialize distances to infinity for all vertices except the source vertex
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0.0;
+        if (parents != null) {
+            Arrays.fill(parents, -1);
         }
 
-        public Vertex<V> getVertex() {
-            return vertex;
+        priorityQueue.insert(source, 0.0);
+
+        while (!priorityQueue.isEmpty()) {
+            // Keys are lowered in place, so every polled vertex is settled with its final distance
+            int currentVertex = priorityQueue.pollMin();
+            double currentDistance = distances[currentVertex];
+            settled++;
+            relaxed += csr.degree(currentVertex);
+
+            for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                int neighborVertex = csr.target(e);
+                double distanceThroughCurrent = currentDistance + csr.weight(e);
+
+                // Update the distance if it is shorter than the current known distance
+                double previousDistance = distances[neighborVertex];
+                if (distanceThroughCurrent < previousDistance) {
+                    if (previousDistance == Double.POSITIVE_INFINITY) {
+                        pushes++;
+                    } else {
+                        decreases++;
+                    }
+                    distances[neighborVertex] = distanceThroughCurrent;
+                    if (parents != null) {
+                        parents[neighborVertex] = currentVertex;
+                    }
+                    priorityQueue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
+                }
+            }
+        }
+        if (GraphMetrics.ENABLED && counters != null) {
+            counters.set(settled, relaxed, pushes, decreases);
         }
+    }
 
-        public double getDistance() {
-            return distance;
+    /**
+     * Returns an empty heap that can hold the specified number of vertices, reusing the given one if possible.
+     *
+     * @param heap        the heap from a previous query, or null
+     * @param vertexCount the number of vertices in the graph being searched
+     * @return an empty heap with at least the requested capacity
+     */
+    static IndexedDaryHeap prepare(IndexedDaryHeap heap, int vertexCount) {
+        if (heap == null) {
+            return new IndexedDaryHeap(vertexCount);
         }
+        heap.clear();
+        heap.ensureCapacity(vertexCount);
+        return heap;
+    }
 
-        @Override
-        public int compareTo(DijkstraNode<V> other) {
-            return Double.compare(distance, other.distance);
+    /**
+     * Returns fresh labels for the specified number of vertices, reusing the given ones if possible.
+     *
+     * @param labels      the labels from a previous query, or null
+     * @param vertexCount the number of vertices in the graph being searched
+     * @return labels with every vertex unreached
+     */
+    static DistanceLabels prepare(DistanceLabels labels, int vertexCount) {
+        if (labels == null) {
+            return new DistanceLabels(vertexCount);
         }
+        labels.reset(vertexCount);
+        return labels;
+    }
+
+    /**
+     * The metrics counters of one thread, reused by all of its queries.
+     */
+    private static class Scratch {
+        private final SearchCounters counters = new SearchCounters();
     }
 }
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+/**
+ * Tentative distances and parents of a shortest-path search, indexed by vertex id.
+ * <p>
+ * Entries are stamped with the generation of the search that wrote them, so {@link #reset(int)} starts a
+ * new search in constant time: any vertex whose stamp is out of date reads as unreached with an infinite
+ * distance. The arrays are only reallocated when the graph grows.
+ */
+class DistanceLabels {
+    private double[] distances;
+    private int[] parents;
+    private int[] stamps;
+    private int generation;
+
+    /**
+     * Constructs labels for vertex ids in the range {@code 0..capacity-1}.
+     *
+     * @param capacity the number of vertices
+     */
+    DistanceLabels(int capacity) {
+        distances = new double[capacity];
+        parents = new int[capacity];
+        stamps = new int[capacity];
+        generation = 1;
+    }
+
+    /**
+     * Starts a new search, marking every vertex unreached.
+     *
+     * @param capacity the number of vertices in the graph being searched
+     */
+    void reset(int capacity) {
+        if (capacity > stamps.length) {
+            distances = new double[capacity];
+            parents = new int[capacity];
+            stamps = new int[capacity];
+            generation = 1;
+            return;
+        }
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Checks if the vertex has been reached by the current search.
+     *
+     * @param vertex the id of the vertex
+     * @return true if the vertex has a label, false otherwise
+     */
+    boolean reached(int vertex) {
+        return stamps[vertex] == generation;
+    }
+
+    /**
+     * Returns the tentative distance of the vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the distance, or positive infinity if the vertex has not been reached
+     */
+    double distance(int vertex) {
+        return stamps[vertex] == generation ? distances[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the parent of the vertex in the search tree.
+     *
+     * @param vertex the id of the vertex
+     * @return the id of the parent, or -1 if the vertex is the root or has not been reached
+     */
+    int parent(int vertex) {
+        return stamps[vertex] == generation ? parents[vertex] : -1;
+    }
+
+    /**
+     * Labels the vertex with a distance and parent.
+     *
+     * @param vertex   the id of the vertex
+     * @param distance the tentative distance
+     * @param parent   the id of the parent, or -1 for the root
+     */
+    void set(int vertex, double distance, int parent) {
+        distances[vertex] = distance;
+        parents[vertex] = parent;
+        stamps[vertex] = generation;
+    }
+}
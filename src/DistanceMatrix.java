@@ -0,0 +1,231 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A square matrix of doubles stored outside the Java heap, either in direct memory or in a memory-mapped file.
+ * <p>
+ * Rows are stored one after another in segments of at most 1 GB, each a {@link DoubleBuffer} that holds
+ * whole rows, so a matrix can be far larger than the heap and larger than the 2 GB limit of a single buffer.
+ * A file-backed matrix starts with a 16-byte little-endian header holding a magic number, a format version
+ * and the size, followed by the rows, and can be reopened with {@link #open(Path)}. Different threads may
+ * read and write different rows concurrently.
+ */
+public class DistanceMatrix {
+    private static final int MAGIC = 0x44495354;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final int size;
+    private final int rowsPerSegment;
+    private final DoubleBuffer[] segments;
+    private final MappedByteBuffer[] mappings;
+
+    private DistanceMatrix(int size, int rowsPerSegment, DoubleBuffer[] segments, MappedByteBuffer[] mappings) {
+        this.size = size;
+        this.rowsPerSegment = rowsPerSegment;
+        this.segments = segments;
+        this.mappings = mappings;
+    }
+
+    /**
+     * Allocates a matrix in direct memory, which counts against {@code -XX:MaxDirectMemorySize}.
+     *
+     * @param size the number of rows and columns
+     * @return the matrix, filled with zeros
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public static DistanceMatrix allocate(int size) {
+        checkSize(size);
+        int rowsPerSegment = rowsPerSegment(size);
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount(size, rowsPerSegment)];
+        for (int s = 0; s < segments.length; s++) {
+            long bytes = 8L * size * rowsInSegment(size, rowsPerSegment, s);
+            segments[s] = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        }
+        return new DistanceMatrix(size, rowsPerSegment, segments, null);
+    }
+
+    /**
+     * Creates a matrix backed by a memory-mapped file, so that only the rows in use occupy memory.
+     *
+     * @param path the file to create or replace
+     * @param size the number of rows and columns
+     * @return the matrix, filled with zeros
+     * @throws IOException              if the file cannot be created
+     * @throws IllegalArgumentException if the size is negative
+     */
+    public static DistanceMatrix create(Path path, int size) throws IOException {
+        checkSize(size);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size).putInt(0).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            return map(channel, FileChannel.MapMode.READ_WRITE, size);
+        }
+    }
+
+    /**
+     * Opens a matrix file written through {@link #create(Path, int)} for reading.
+     *
+     * @param path the file to open
+     * @return the read-only matrix
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file does not contain a matrix
+     */
+    public static DistanceMatrix open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("File " + path + " does not contain a distance matrix");
+            }
+            int size = header.getInt();
+            if (size < 0 || channel.size() < HEADER_BYTES + 8L * size * size) {
+                throw new IllegalArgumentException("File " + path + " is truncated");
+            }
+            return map(channel, FileChannel.MapMode.READ_ONLY, size);
+        }
+    }
+
+    private static DistanceMatrix map(FileChannel channel, FileChannel.MapMode mode, int size) throws IOException {
+        int rowsPerSegment = rowsPerSegment(size);
+        int segmentCount = segmentCount(size, rowsPerSegment);
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount];
+        MappedByteBuffer[] mappings = new MappedByteBuffer[segmentCount];
+        long position = HEADER_BYTES;
+        for (int s = 0; s < segmentCount; s++) {
+            long bytes = 8L * size * rowsInSegment(size, rowsPerSegment, s);
+            mappings[s] = channel.map(mode, position, bytes);
+            segments[s] = mappings[s].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            position += bytes;
+        }
+        return new DistanceMatrix(size, rowsPerSegment, segments, mappings);
+    }
+
+    private static void checkSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Matrix size " + size + " is out of the range");
+        }
+    }
+
+    private static int rowsPerSegment(int size) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, MAX_SEGMENT_BYTES / Math.max(1, 8L * size)));
+    }
+
+    private static int segmentCount(int size, int rowsPerSegment) {
+        return (int) (((long) size + rowsPerSegment - 1) / rowsPerSegment);
+    }
+
+    private static int rowsInSegment(int size, int rowsPerSegment, int segment) {
+        return Math.min(rowsPerSegment, size - segment * rowsPerSegment);
+    }
+
+    /**
+     * Returns the number of rows, which equals the number of columns.
+     *
+     * @return the size of the matrix
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entry at the specified row and column.
+     *
+     * @param row    the row
+     * @param column the column
+     * @return the entry
+     * @throws IllegalArgumentException if the row or column is out of the range
+     */
+    public double get(int row, int column) {
+        checkIndex(row, column);
+        return segments[row / rowsPerSegment].get((int) ((long) (row % rowsPerSegment) * size + column));
+    }
+
+    /**
+     * Sets the entry at the specified row and column.
+     *
+     * @param row    the row
+     * @param column the column
+     * @param value  the new entry
+     * @throws IllegalArgumentException if the row or column is out of the range
+     */
+    public void set(int row, int column, double value) {
+        checkIndex(row, column);
+        segments[row / rowsPerSegment].put((int) ((long) (row % rowsPerSegment) * size + column), value);
+    }
+
+    /**
+     * Copies a row into an array.
+     *
+     * @param row         the row
+     * @param destination the array of at least {@link #size()} entries that receives the row
+     * @throws IllegalArgumentException if the row is out of the range
+     */
+    public void getRow(int row, double[] destination) {
+        checkIndex(row, 0);
+        getRow(row, destination, 0);
+    }
+
+    /**
+     * Copies an array into a row.
+     *
+     * @param row    the row
+     * @param source the array of at least {@link #size()} entries to copy
+     * @throws IllegalArgumentException if the row is out of the range
+     */
+    public void setRow(int row, double[] source) {
+        checkIndex(row, 0);
+        setRow(row, source, 0);
+    }
+
+    /**
+     * Copies a row into an array at the specified offset, without checking the row.
+     */
+    void getRow(int row, double[] destination, int offset) {
+        int index = (row % rowsPerSegment) * size;
+        segments[row / rowsPerSegment].get(index, destination, offset, size);
+    }
+
+    /**
+     * Copies an array from the specified offset into a row, without checking the row.
+     */
+    void setRow(int row, double[] source, int offset) {
+        int index = (row % rowsPerSegment) * size;
+        segments[row / rowsPerSegment].put(index, source, offset, size);
+    }
+
+    /**
+     * Writes the changes of a file-backed matrix to the storage device. Does nothing for a matrix in direct
+     * memory.
+     */
+    public void force() {
+        if (mappings != null) {
+            for (MappedByteBuffer mapping : mappings) {
+                mapping.force();
+            }
+        }
+    }
+
+    private void checkIndex(int row, int column) {
+        if (row < 0 || row >= size) {
+            throw new IllegalArgumentException("Row " + row + " is out of the range");
+        }
+        if (column < 0 || column >= size) {
+            throw new IllegalArgumentException("Column " + column + " is out of the range");
+        }
+    }
+}
@@ -0,0 +1,352 @@
+import java.util.*;
+
+/**
+ * Maintains shortest-path trees for a set of registered sources while the graph changes.
+ * <p>
+ * The object listens to its {@link WeightedGraph} and repairs every tree after each mutation, in the style of
+ * Ramalingam and Reps. When an edge is added or becomes lighter, only the vertices whose distance improves
+ * are relaxed, starting from the head of the edge. When an edge of a tree is removed or becomes heavier, only
+ * the subtree below it is affected: its vertices are detached, seeded with their best incoming edge from the
+ * rest of the tree and settled again with Dijkstra's algorithm restricted to the subtree. Edges outside the
+ * trees do not cause any work. The cost of an update therefore depends on the number of vertices whose
+ * distance changes rather than on the size of the graph.
+ * <p>
+ * Trees are keyed by the dense vertex ids of the graph and kept in primitive {@link IntDoubleMap} and
+ * {@link IntIntMap} tables, and repairs run on a reused {@link IndexedDaryHeap}, so updates box no distances.
+ * <p>
+ * Edge weights must be non-negative, and registering a source on a graph with a negative edge fails. A negative
+ * weight that appears while sources are registered is not refused by the listener methods, since the graph
+ * has already applied it and the other listeners must still see it; instead the trees stop being maintained and
+ * queries throw an {@link IllegalStateException} until the graph has no negative edge again, when the first
+ * query recomputes every tree. Like the graph itself, this class is not safe for concurrent use; call
+ * {@link #close()} to stop listening to the graph.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class DynamicShortestPaths<V> implements GraphListener<V> {
+    private final WeightedGraph<V> graph;
+    private final Map<Vertex<V>, Tree> trees = new LinkedHashMap<>();
+    private IndexedDaryHeap queue;
+    private long repairedVertices;
+    private boolean invalid;
+
+    /**
+     * Constructs a DynamicShortestPaths object that tracks the specified graph.
+     *
+     * @param graph the weighted graph to track
+     */
+    public DynamicShortestPaths(WeightedGraph<V> graph) {
+        this.graph = graph;
+        graph.addListener(this);
+    }
+
+    /**
+     * Registers a source and computes its shortest-path tree.
+     *
+     * @param source the source vertex
+     * @throws IllegalArgumentException if the vertex is not present in the graph or an edge weight is negative
+     */
+    public void addSource(Vertex<V> source) {
+        int id = graph.indexOf(source);
+        if (!trees.containsKey(source)) {
+            // Dijkstra's algorithm settles vertices too early on negative edges, and never ends on a negative cycle
+            double minWeight = graph.freeze().minWeight();
+            if (minWeight < 0) {
+                throw new IllegalArgumentException("Edge weight " + minWeight + " is out of the range");
+            }
+            if (invalid) {
+                rebuild();
+            }
+            trees.put(source, compute(id));
+        }
+    }
+
+    /**
+     * Stops maintaining the tree of a source.
+     *
+     * @param source the source vertex
+     */
+    public void removeSource(Vertex<V> source) {
+        trees.remove(source);
+    }
+
+    /**
+     * Returns the registered sources.
+     *
+     * @return an unmodifiable view of the sources
+     */
+    public Set<Vertex<V>> getSources() {
+        return Collections.unmodifiableSet(trees.keySet());
+    }
+
+    /**
+     * Returns the current shortest distance from a registered source to a vertex.
+     *
+     * @param source      the registered source vertex
+     * @param destination the destination vertex
+     * @return the shortest distance, or positive infinity if the destination is unreachable
+     * @throws IllegalArgumentException if the source is not registered
+     * @throws IllegalStateException    if the graph has a negative edge weight
+     */
+    public double getDistance(Vertex<V> source, Vertex<V> destination) {
+        return tree(source).distance(graph.indexOf(destination));
+    }
+
+    /**
+     * Returns the current shortest distances from a registered source.
+     *
+     * @param source the registered source vertex
+     * @return an unmodifiable copy of the distances of all reachable vertices
+     * @throws IllegalArgumentException if the source is not registered
+     * @throws IllegalStateException    if the graph has a negative edge weight
+     */
+    public Map<Vertex<V>, Double> getDistances(Vertex<V> source) {
+        Tree tree = tree(source);
+        Map<Vertex<V>, Double> result = new HashMap<>(Math.max(16, (int) (tree.distances.size() / 0.75f) + 1));
+        tree.distances.forEach((vertex, distance) -> result.put(graph.vertex(vertex), distance));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the current shortest path from a registered source to a vertex.
+     *
+     * @param source      the registered source vertex
+     * @param destination the destination vertex
+     * @return the list of vertices representing the shortest path from the source to the destination
+     * @throws IllegalArgumentException if the source is not registered
+     * @throws IllegalStateException    if the graph has a negative edge weight
+     */
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination) {
+        Tree tree = tree(source);
+        LinkedList<V> path = new LinkedList<>();
+        for (int v = graph.indexOf(destination); v != -1; v = tree.parents.get(v, -1)) {
+            path.addFirst(graph.vertex(v).getData());
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Returns the total number of vertices settled again by updates so far, which measures the work done by
+     * the repairs.
+     *
+     * @return the number of repaired vertices
+     */
+    public long getRepairedVertexCount() {
+        return repairedVertices;
+    }
+
+    /**
+     * Stops listening to the graph. The trees keep their last state.
+     */
+    public void close() {
+        graph.removeListener(this);
+    }
+
+    @Override
+    public void edgeAdded(Vertex<V> source, Vertex<V> destination, double weight) {
+        if (!maintainable(weight)) {
+            return;
+        }
+        int tail = graph.indexOf(source);
+        int head = graph.indexOf(destination);
+        for (Tree tree : trees.values()) {
+            decrease(tree, tail, head, weight);
+        }
+    }
+
+    @Override
+    public void edgeRemoved(Vertex<V> source, Vertex<V> destination, double weight) {
+        if (invalid) {
+            return;
+        }
+        int tail = graph.indexOf(source);
+        int head = graph.indexOf(destination);
+        for (Tree tree : trees.values()) {
+            if (tree.parents.get(head, -1) == tail) {
+                repair(tree, head);
+            }
+        }
+    }
+
+    @Override
+    public void edgeWeightChanged(Vertex<V> source, Vertex<V> destination, double oldWeight, double newWeight) {
+        if (!maintainable(newWeight)) {
+            return;
+        }
+        int tail = graph.indexOf(source);
+        int head = graph.indexOf(destination);
+        for (Tree tree : trees.values()) {
+            if (newWeight < oldWeight) {
+                decrease(tree, tail, head, newWeight);
+            } else if (newWeight > oldWeight && tree.parents.get(head, -1) == tail) {
+                repair(tree, head);
+            }
+        }
+    }
+
+    /**
+     * Checks if the trees can be repaired after a mutation to the given weight, and stops maintaining them on a
+     * negative one, which Dijkstra's algorithm cannot handle.
+     */
+    private boolean maintainable(double weight) {
+        if (weight < 0 && !trees.isEmpty()) {
+            invalid = true;
+        }
+        return !invalid;
+    }
+
+    /**
+     * Recomputes every tree once the graph has no negative edge weight again.
+     */
+    private void rebuild() {
+        for (Map.Entry<Vertex<V>, Tree> entry : trees.entrySet()) {
+            Tree tree = compute(graph.indexOf(entry.getKey()));
+            entry.setValue(tree);
+            repairedVertices += tree.distances.size();
+        }
+        invalid = false;
+    }
+
+    /**
+     * Computes the tree of a source from scratch.
+     */
+    private Tree compute(int source) {
+        Tree tree = new Tree(source);
+        queue().insert(source, 0.0);
+        settle(tree, null);
+        return tree;
+    }
+
+    private Tree tree(Vertex<V> source) {
+        if (invalid) {
+            double minWeight = graph.freeze().minWeight();
+            if (minWeight < 0) {
+                throw new IllegalStateException("Shortest paths are not maintained while edge weight "
+                        + minWeight + " is in the graph");
+            }
+            rebuild();
+        }
+        Tree tree = trees.get(source);
+        if (tree == null) {
+            throw new IllegalArgumentException("Vertex " + source + " is out of the range");
+        }
+        return tree;
+    }
+
+    /**
+     * Returns the empty heap used by the repairs, sized for the current graph.
+     */
+    private IndexedDaryHeap queue() {
+        queue = DijkstraSearch.prepare(queue, graph.vertexCount());
+        return queue;
+    }
+
+    /**
+     * Lowers the distances reachable through a new or lighter edge.
+     */
+    private void decrease(Tree tree, int tail, int head, double weight) {
+        double distance = tree.distance(tail) + weight;
+        if (distance < tree.distance(head)) {
+            tree.distances.put(head, distance);
+            tree.parents.put(head, tail);
+            queue().insert(head, distance);
+            repairedVertices += settle(tree, null);
+        }
+    }
+
+    /**
+     * Recomputes the subtree hanging below a tree edge that was removed or became heavier.
+     */
+    private void repair(Tree tree, int root) {
+        // Collect the affected subtree by following the children of every vertex in it
+        IntSet affected = new IntSet();
+        int[] stack = new int[16];
+        int depth = 0;
+        affected.add(root);
+        stack[depth++] = root;
+        while (depth > 0) {
+            int vertex = stack[--depth];
+            for (WeightedGraph<V>.Edge<V> edge : graph.edges(vertex)) {
+                int child = graph.indexOf(edge.getDestination());
+                if (tree.parents.get(child, -1) == vertex && affected.add(child)) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = child;
+                }
+            }
+        }
+        int[] members = affected.toArray();
+        for (int vertex : members) {
+            tree.distances.remove(vertex);
+            tree.parents.remove(vertex);
+        }
+
+        // Seed every affected vertex with its best edge from the unaffected part of the tree
+        IndexedDaryHeap queue = queue();
+        for (int vertex : members) {
+            double best = Double.POSITIVE_INFINITY;
+            int parent = -1;
+            for (WeightedGraph<V>.Edge<V> edge : graph.incomingEdges(vertex)) {
+                int tail = graph.indexOf(edge.getSource());
+                if (!affected.contains(tail)) {
+                    double distance = tree.distance(tail) + edge.getWeight();
+                    if (distance < best) {
+                        best = distance;
+                        parent = tail;
+                    }
+                }
+            }
+            if (parent != -1) {
+                tree.distances.put(vertex, best);
+                tree.parents.put(vertex, parent);
+                queue.insert(vertex, best);
+            }
+        }
+        repairedVertices += settle(tree, affected);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the queued vertices, relaxing only into the given region if present.
+     *
+     * @return the number of settled vertices
+     */
+    private int settle(Tree tree, IntSet region) {
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int currentVertex = queue.pollMin();
+            double currentDistance = tree.distance(currentVertex);
+            settled++;
+            for (WeightedGraph<V>.Edge<V> edge : graph.edges(currentVertex)) {
+                int neighborVertex = graph.indexOf(edge.getDestination());
+                if (region != null && !region.contains(neighborVertex)) {
+                    continue;
+                }
+                double distanceThroughCurrent = currentDistance + edge.getWeight();
+                if (distanceThroughCurrent < tree.distance(neighborVertex)) {
+                    tree.distances.put(neighborVertex, distanceThroughCurrent);
+                    tree.parents.put(neighborVertex, currentVertex);
+                    queue.insertOrDecrease(neighborVertex, distanceThroughCurrent);
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * The distances and parents of one source, keyed by vertex id. Unreachable vertices have no entry, and
+     * neither does the parent of the source.
+     */
+    private static class Tree {
+        private final IntDoubleMap distances = new IntDoubleMap();
+        private final IntIntMap parents = new IntIntMap();
+
+        Tree(int source) {
+            distances.put(source, 0.0);
+        }
+
+        double distance(int vertex) {
+            return distances.get(vertex, Double.POSITIVE_INFINITY);
+        }
+    }
+}
@@ -0,0 +1,502 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Loads a {@link CsrGraph} from an edge-list or CSV file in parallel.
+ * <p>
+ * Every line holds a source key, a destination key and an optional weight (1.0 when absent), separated by
+ * commas, tabs or spaces. Empty lines and lines starting with {@code #} or {@code %} are skipped. The file is
+ * split into chunks at line boundaries, and every chunk is memory-mapped and parsed on the pool into primitive
+ * arrays. Vertex keys are first deduplicated per chunk in a table keyed by their raw bytes, and every distinct
+ * key of a chunk is then interned once through a concurrent table shared by all chunks, so each distinct key
+ * becomes exactly one vertex. The adjacency is then built in a single
+ * counting-sort pass over arrays sized to the exact edge count, without creating any {@code Edge} objects.
+ * <p>
+ * Vertex ids depend on the order in which the chunks meet their keys, so they can differ between loads of the
+ * same file. The progress counters can be read from other threads while a load runs. An instance runs one
+ * load at a time.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class EdgeListLoader<V> {
+    private static final long DEFAULT_CHUNK_BYTES = 64L << 20;
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+    private Function<String, V> parser;
+    private ForkJoinPool pool;
+    private long chunkBytes;
+    private final LongAdder bytesParsed = new LongAdder();
+    private final LongAdder edgesParsed = new LongAdder();
+    private volatile long totalBytes;
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    /**
+     * Constructs a loader that converts vertex keys with the specified parser, using the common ForkJoin pool.
+     *
+     * @param parser converts the text of a vertex key to the vertex data, for example {@code Integer::valueOf}
+     */
+    public EdgeListLoader(Function<String, V> parser) {
+        this(parser, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Constructs a loader with the specified parser, pool and chunk size.
+     *
+     * @param parser     converts the text of a vertex key to the vertex data
+     * @param pool       the pool that parses the chunks
+     * @param chunkBytes the approximate number of bytes parsed by one task
+     * @throws IllegalArgumentException if the chunk size is not positive or exceeds 1 GB
+     */
+    public EdgeListLoader(Function<String, V> parser, ForkJoinPool pool, long chunkBytes) {
+        if (chunkBytes <= 0 || chunkBytes > 1L << 30) {
+            throw new IllegalArgumentException("Chunk size " + chunkBytes + " is out of the range");
+        }
+        this.parser = parser;
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Loads the graph stored in the specified file.
+     *
+     * @param path the edge-list file
+     * @return the loaded graph
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a line does not contain an edge
+     */
+    public CsrGraph<V> load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            bytesParsed.reset();
+            edgesParsed.reset();
+            totalBytes = size;
+            endNanos = 0;
+            startNanos = System.nanoTime();
+
+            long[] bounds = split(channel, size);
+            Map<String, Integer> keys = new ConcurrentHashMap<>();
+            AtomicInteger nextId = new AtomicInteger();
+            Chunk[] chunks = new Chunk[bounds.length - 1];
+            invoke(IntStream.range(0, chunks.length), c -> {
+                try {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c],
+                            bounds[c + 1] - bounds[c]);
+                    chunks[c] = parse(buffer, bounds[c], keys, nextId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            long edgeCount = 0;
+            for (Chunk chunk : chunks) {
+                edgeCount += chunk.size;
+            }
+            if (edgeCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Edge count " + edgeCount + " is out of the range");
+            }
+            int[] sources = new int[(int) edgeCount];
+            int[] targets = new int[(int) edgeCount];
+            double[] weights = new double[(int) edgeCount];
+            int position = 0;
+            for (Chunk chunk : chunks) {
+                System.arraycopy(chunk.sources, 0, sources, position, chunk.size);
+                System.arraycopy(chunk.targets, 0, targets, position, chunk.size);
+                System.arraycopy(chunk.weights, 0, weights, position, chunk.size);
+                position += chunk.size;
+            }
+
+            String[] keyById = new String[nextId.get()];
+            for (Map.Entry<String, Integer> entry : keys.entrySet()) {
+                keyById[entry.getValue()] = entry.getKey();
+            }
+            List<Vertex<V>> vertices = new ArrayList<>(keyById.length);
+            Map<Vertex<V>, Integer> index = new HashMap<>(Math.max(16, (int) (keyById.length / 0.75f) + 1));
+            for (String key : keyById) {
+                Vertex<V> vertex = new Vertex<>(parser.apply(key));
+                index.put(vertex, vertices.size());
+                vertices.add(vertex);
+            }
+
+            CsrGraph<V> graph = CsrGraph.fromEdges(vertices, index, sources, targets, weights, (int) edgeCount);
+            endNanos = System.nanoTime();
+            return graph;
+        }
+    }
+
+    /**
+     * Returns the size of the file being loaded, or of the last file loaded.
+     *
+     * @return the total number of bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns the number of bytes parsed so far by the current or last load.
+     *
+     * @return the number of parsed bytes
+     */
+    public long getBytesParsed() {
+        return bytesParsed.sum();
+    }
+
+    /**
+     * Returns the number of edges parsed so far by the current or last load.
+     *
+     * @return the number of parsed edges
+     */
+    public long getEdgesParsed() {
+        return edgesParsed.sum();
+    }
+
+    /**
+     * Returns the fraction of the file parsed so far.
+     *
+     * @return the progress between 0 and 1
+     */
+    public double getProgress() {
+        long total = totalBytes;
+        return total == 0 ? 1.0 : (double) getBytesParsed() / total;
+    }
+
+    /**
+     * Returns the load throughput, measured from the start of the load to its end or to now if it still runs.
+     *
+     * @return the number of edges loaded per second
+     */
+    public double getEdgesPerSecond() {
+        long start = startNanos;
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return end == start ? 0.0 : getEdgesParsed() / ((end - start) / 1e9);
+    }
+
+    /**
+     * Splits the file into ranges of about {@code chunkBytes} bytes that each end after a line break.
+     */
+    private long[] split(FileChannel channel, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long next = chunkBytes;
+        while (next < size) {
+            // A line starts at the first byte after the first line break at or after next - 1
+            long boundary = size;
+            for (long position = next - 1; position < size && boundary == size; ) {
+                window.clear();
+                int read = channel.read(window, position);
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break;
+                    }
+                }
+                position += Math.max(read, 0);
+                if (read <= 0) {
+                    break;
+                }
+            }
+            if (boundary - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Line at byte " + next + " is out of the range");
+            }
+            bounds.add(boundary);
+            next = boundary + chunkBytes;
+        }
+        if (bounds.get(bounds.size() - 1) < size) {
+            bounds.add(size);
+        }
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Parses the lines of one chunk, interning the vertex keys and reporting progress as it goes.
+     */
+    private Chunk parse(MappedByteBuffer buffer, long base, Map<String, Integer> keys, AtomicInteger nextId) {
+        KeyTable table = new KeyTable();
+        Chunk chunk = new Chunk(buffer.limit() / 16 + 16);
+        int limit = buffer.limit();
+        int position = 0;
+        int reportedPosition = 0;
+        int reportedEdges = 0;
+
+        while (position < limit) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int end = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            int start = skipSeparators(buffer, position, end);
+            if (start < end && buffer.get(start) != '#' && buffer.get(start) != '%') {
+                int sourceEnd = tokenEnd(buffer, start, end);
+                int targetStart = skipSeparators(buffer, sourceEnd, end);
+                int targetEnd = tokenEnd(buffer, targetStart, end);
+                int weightStart = skipSeparators(buffer, targetEnd, end);
+                int weightEnd = tokenEnd(buffer, weightStart, end);
+                if (targetStart == targetEnd || skipSeparators(buffer, weightEnd, end) != end) {
+                    throw new IllegalArgumentException("Line at byte " + (base + position)
+                            + " does not contain an edge");
+                }
+                int source = table.intern(buffer, start, sourceEnd);
+                int target = table.intern(buffer, targetStart, targetEnd);
+                double weight = weightStart == weightEnd ? 1.0
+                        : parseWeight(buffer, weightStart, weightEnd, base + position);
+                chunk.add(source, target, weight);
+                if (chunk.size - reportedEdges == PROGRESS_INTERVAL) {
+                    edgesParsed.add(PROGRESS_INTERVAL);
+                    bytesParsed.add(lineEnd - reportedPosition);
+                    reportedEdges = chunk.size;
+                    reportedPosition = lineEnd;
+                }
+            }
+            position = lineEnd + 1;
+        }
+
+
+        // Translate the chunk-local ids to global ids, creating one string per distinct key of the chunk
+        int[] globalIds = new int[table.size];
+        for (int local = 0; local < table.size; local++) {
+            globalIds[local] = keys.computeIfAbsent(table.key(local), key -> nextId.getAndIncrement());
+        }
+        for (int i = 0; i < chunk.size; i++) {
+            chunk.sources[i] = globalIds[chunk.sources[i]];
+            chunk.targets[i] = globalIds[chunk.targets[i]];
+        }
+
+        edgesParsed.add(chunk.size - reportedEdges);
+        bytesParsed.add(limit - reportedPosition);
+        return chunk;
+    }
+
+    private static boolean isSeparator(byte value) {
+        return value == ',' || value == '\t' || value == ' ';
+    }
+
+    private static int skipSeparators(ByteBuffer buffer, int position, int end) {
+        while (position < end && isSeparator(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int position, int end) {
+        while (position < end && !isSeparator(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parses a decimal weight without allocating, falling back to {@link Double#parseDouble(String)} for
+     * exponents, special values and more than 15 significant digits.
+     */
+    private static double parseWeight(ByteBuffer buffer, int start, int end, long line) {
+        int position = start;
+        boolean negative = buffer.get(position) == '-';
+        if (negative || buffer.get(position) == '+') {
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; position < end; position++) {
+            byte value = buffer.get(position);
+            if (value >= '0' && value <= '9') {
+                mantissa = mantissa * 10 + (value - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (value == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (position == end && digits > 0 && digits <= 15) {
+            // Both the mantissa and the power of ten are exact, so one division rounds correctly
+            double result = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -result : result;
+        }
+
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line at byte " + line + " does not contain an edge", e);
+        }
+    }
+
+    private void invoke(IntStream tasks, IntConsumer action) throws IOException {
+        try {
+            pool.submit(() -> tasks.parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Edge-list loading was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                // ForkJoin re-creates exceptions thrown by other workers around the original
+                cause = cause.getCause();
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Edge-list loading failed", cause);
+        }
+    }
+
+    /**
+     * An open-addressing table that assigns dense local ids to the distinct keys of one chunk, comparing keys
+     * by their bytes so that repeated keys allocate nothing.
+     */
+    private static class KeyTable {
+        // Each slot packs the hash of a key with its id plus one, so most mismatches are rejected without
+        // touching the key bytes; zero marks an empty slot
+        private long[] slots = new long[1024];
+        private int[] hashes = new int[256];
+        private int[] starts = new int[256];
+        private int[] lengths = new int[256];
+        private byte[] bytes = new byte[4096];
+        private int byteCount;
+        private int size;
+
+        /**
+         * Returns the local id of the key stored in the buffer range, adding the key if it is new.
+         */
+        int intern(ByteBuffer buffer, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            hash = (hash ^ (hash >>> 16)) * 0x9E3779B9;
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                long entry = slots[slot];
+                if (entry == 0) {
+                    int id = add(buffer, start, end, hash);
+                    slots[slot] = pack(hash, id);
+                    if (size * 2 > slots.length) {
+                        rehash();
+                    }
+                    return id;
+                }
+                int id = (int) entry - 1;
+                if ((int) (entry >>> 32) == hash && matches(id, buffer, start, end)) {
+                    return id;
+                }
+            }
+        }
+
+        /**
+         * Returns the key with the specified local id.
+         */
+        String key(int id) {
+            return new String(bytes, starts[id], lengths[id], StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(int id, ByteBuffer buffer, int start, int end) {
+            if (lengths[id] != end - start) {
+                return false;
+            }
+            for (int i = 0, offset = starts[id]; i < end - start; i++) {
+                if (bytes[offset + i] != buffer.get(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int add(ByteBuffer buffer, int start, int end, int hash) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            int length = end - start;
+            if (byteCount + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + length));
+            }
+            buffer.get(start, bytes, byteCount, length);
+            hashes[size] = hash;
+            starts[size] = byteCount;
+            lengths[size] = length;
+            byteCount += length;
+            return size++;
+        }
+
+        private void rehash() {
+            slots = new long[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = pack(hashes[id], id);
+            }
+        }
+
+        private static long pack(int hash, int id) {
+            return ((long) hash << 32) | (id + 1);
+        }
+    }
+
+    /**
+     * The edges parsed from one chunk, as parallel primitive arrays.
+     */
+    private static class Chunk {
+        private int[] sources;
+        private int[] targets;
+        private double[] weights;
+        private int size;
+
+        Chunk(int capacity) {
+            sources = new int[capacity];
+            targets = new int[capacity];
+            weights = new double[capacity];
+        }
+
+        void add(int source, int target, double weight) {
+            if (size == sources.length) {
+                int capacity = size * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,659 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel whole-graph analytics over the CSR snapshot of a graph: weighted PageRank, weakly and strongly
+ * connected components, and triangle counting.
+ * <p>
+ * Every algorithm works on primitive arrays indexed by vertex id and splits the vertices into fixed chunks
+ * that are processed in parallel by a ForkJoin pool. All arrays are allocated before the first iteration,
+ * so iterating allocates nothing beyond the tasks of the pool.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class GraphAnalytics<V> {
+    private static final int CHUNK = 4096;
+
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a GraphAnalytics object with the specified weighted graph, using the common ForkJoin pool.
+     *
+     * @param graph the weighted graph to analyze
+     */
+    public GraphAnalytics(WeightedGraph<V> graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a GraphAnalytics object with the specified weighted graph and pool.
+     *
+     * @param graph the weighted graph to analyze
+     * @param pool  the pool that runs the algorithms
+     */
+    public GraphAnalytics(WeightedGraph<V> graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a GraphAnalytics object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to analyze
+     * @param pool     the pool that runs the algorithms
+     */
+    public GraphAnalytics(CsrGraph<V> snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the CSR graph to analyze, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        return graph != null ? graph.freeze() : snapshot;
+    }
+
+    /**
+     * Computes weighted PageRank with a damping factor of 0.85, a tolerance of 1e-9 and at most 100 iterations.
+     *
+     * @return the rank of every vertex
+     * @throws IllegalArgumentException if an edge weight is negative
+     */
+    public PageRankResult<V> pageRank() {
+        return pageRank(0.85, 1e-9, 100);
+    }
+
+    /**
+     * Computes weighted PageRank by power iteration.
+     * <p>
+     * A random surfer follows an outgoing edge with probability proportional to its weight, and jumps to a
+     * uniformly chosen vertex with probability {@code 1 - damping} or when its vertex has no outgoing weight.
+     * Each iteration pulls the rank of every vertex from its incoming edges, so vertices are updated
+     * independently without atomics. The iteration stops once the L1 norm of the change of the ranks is at
+     * most the tolerance, or after the maximum number of iterations.
+     *
+     * @param damping       the probability of following an edge, between 0 and 1
+     * @param tolerance     the L1 change below which the ranks are considered converged
+     * @param maxIterations the maximum number of iterations
+     * @return the rank of every vertex
+     * @throws IllegalArgumentException if a parameter is out of the range or an edge weight is negative
+     */
+    public PageRankResult<V> pageRank(double damping, double tolerance, int maxIterations) {
+        if (!(damping >= 0 && damping <= 1)) {
+            throw new IllegalArgumentException("Damping factor " + damping + " is out of the range");
+        }
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Tolerance " + tolerance + " is out of the range");
+        }
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("Iteration count " + maxIterations + " is out of the range");
+        }
+        CsrGraph<V> csr = csr();
+        CsrGraph<V> reverse = csr.reverse();
+        int vertexCount = csr.vertexCount();
+        int chunks = chunks(vertexCount);
+
+        double[] outWeights = new double[vertexCount];
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                double total = 0.0;
+                for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                    double weight = csr.weight(e);
+                    if (weight < 0) {
+                        throw new IllegalArgumentException("Edge weight " + weight + " is out of the range");
+                    }
+                    total += weight;
+                }
+                outWeights[v] = total;
+            }
+        });
+
+        double[] ranks = new double[vertexCount];
+        double[] next = new double[vertexCount];
+        double[] shares = new double[vertexCount];
+        double[] danglingParts = new double[chunks];
+        double[] residualParts = new double[chunks];
+        Arrays.fill(ranks, 1.0 / vertexCount);
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && residual > tolerance) {
+            // Every vertex hands out its rank per unit of outgoing weight; dangling vertices spread it evenly
+            double[] current = ranks;
+            invoke(chunks, chunk -> {
+                double dangling = 0.0;
+                for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                    if (outWeights[v] > 0) {
+                        shares[v] = current[v] / outWeights[v];
+                    } else {
+                        shares[v] = 0.0;
+                        dangling += current[v];
+                    }
+                }
+                danglingParts[chunk] = dangling;
+            });
+            double danglingRank = 0.0;
+            for (double part : danglingParts) {
+                danglingRank += part;
+            }
+
+            double base = (1.0 - damping + damping * danglingRank) / vertexCount;
+            double[] updated = next;
+            invoke(chunks, chunk -> {
+                double change = 0.0;
+                for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                    double incoming = 0.0;
+                    for (int e = reverse.edgeStart(v), last = reverse.edgeEnd(v); e < last; e++) {
+                        incoming += shares[reverse.target(e)] * reverse.weight(e);
+                    }
+                    updated[v] = base + damping * incoming;
+                    change += Math.abs(updated[v] - current[v]);
+                }
+                residualParts[chunk] = change;
+            });
+            residual = 0.0;
+            for (double part : residualParts) {
+                residual += part;
+            }
+            next = ranks;
+            ranks = updated;
+            iterations++;
+        }
+        return new PageRankResult<>(csr, ranks, iterations, vertexCount == 0 ? 0.0 : residual,
+                residual <= tolerance || vertexCount == 0);
+    }
+
+    /**
+     * Computes the weakly connected components, in which edges are followed in both directions.
+     * <p>
+     * Edges are merged into a concurrent union-find in parallel. Roots are linked with a compare-and-set from the
+     * larger id to the smaller one, and finds halve their paths, so no locks are taken.
+     *
+     * @return the component of every vertex
+     */
+    public ComponentsResult<V> weaklyConnectedComponents() {
+        CsrGraph<V> csr = csr();
+        int vertexCount = csr.vertexCount();
+        int chunks = chunks(vertexCount);
+        AtomicIntegerArray parents = new AtomicIntegerArray(vertexCount);
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                parents.set(v, v);
+            }
+        });
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                    union(parents, v, csr.target(e));
+                }
+            }
+        });
+        int[] roots = new int[vertexCount];
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                roots[v] = find(parents, v);
+            }
+        });
+        return new ComponentsResult<>(csr, roots);
+    }
+
+    private static int find(AtomicIntegerArray parents, int vertex) {
+        while (true) {
+            int parent = parents.get(vertex);
+            if (parent == vertex) {
+                return vertex;
+            }
+            int grandparent = parents.get(parent);
+            if (grandparent != parent) {
+                parents.compareAndSet(vertex, parent, grandparent);
+            }
+            vertex = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parents, int a, int b) {
+        while (true) {
+            int rootA = find(parents, a);
+            int rootB = find(parents, b);
+            if (rootA == rootB) {
+                return;
+            }
+            int low = Math.min(rootA, rootB);
+            int high = Math.max(rootA, rootB);
+            if (parents.compareAndSet(high, high, low)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Computes the strongly connected components, in which every vertex can reach every other one.
+     * <p>
+     * Each round first trims the vertices that have no remaining incoming or outgoing edges, which are
+     * components of their own, and then colors the remaining vertices in parallel by propagating the largest
+     * vertex id forward until no color changes. Every vertex whose color is its own id is the root of a
+     * component that consists of the vertices of its color that reach it, which a parallel backward search
+     * restricted to the color collects. The rounds repeat on the vertices that are left. This is the coloring
+     * algorithm of Orzan with the trimming step of McLendon et al. When assertions are enabled ({@code java -ea}),
+     * the result is checked against the sequential algorithm of Tarjan.
+     *
+     * @return the component of every vertex
+     */
+    public ComponentsResult<V> stronglyConnectedComponents() {
+        CsrGraph<V> csr = csr();
+        CsrGraph<V> reverse = csr.reverse();
+        int vertexCount = csr.vertexCount();
+        int chunks = chunks(vertexCount);
+
+        // A vertex is still active while its component is -1
+        AtomicIntegerArray components = new AtomicIntegerArray(vertexCount);
+        AtomicIntegerArray colors = new AtomicIntegerArray(vertexCount);
+        int[] inDegrees = new int[vertexCount];
+        int[] outDegrees = new int[vertexCount];
+        int[] queue = new int[vertexCount];
+        byte[] frontier = new byte[vertexCount];
+        byte[] nextFrontier = new byte[vertexCount];
+        int[] counts = new int[chunks];
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                components.set(v, -1);
+            }
+        });
+
+        int remaining = vertexCount;
+        while (remaining > 0) {
+            remaining -= trim(csr, reverse, components, inDegrees, outDegrees, queue);
+            if (remaining == 0) {
+                break;
+            }
+
+            invoke(chunks, chunk -> {
+                for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                    colors.set(v, v);
+                    frontier[v] = (byte) (components.get(v) == -1 ? 1 : 0);
+                }
+            });
+            byte[] current = frontier;
+            byte[] next = nextFrontier;
+            while (true) {
+                byte[] from = current;
+                byte[] to = next;
+                invoke(chunks, chunk -> {
+                    int changed = 0;
+                    for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                        if (from[v] == 0) {
+                            continue;
+                        }
+                        from[v] = 0;
+                        int color = colors.get(v);
+                        for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                            int w = csr.target(e);
+                            if (components.get(w) == -1 && raise(colors, w, color)) {
+                                to[w] = 1;
+                                changed++;
+                            }
+                        }
+                    }
+                    counts[chunk] = changed;
+                });
+                if (sum(counts) == 0) {
+                    break;
+                }
+                current = to;
+                next = from;
+            }
+
+            // Roots claim themselves, then every level claims the same-colored predecessors of the last one
+            byte[] roots = current;
+            invoke(chunks, chunk -> {
+                int claimed = 0;
+                for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                    roots[v] = 0;
+                    if (components.get(v) == -1 && colors.get(v) == v) {
+                        components.set(v, v);
+                        roots[v] = 1;
+                        claimed++;
+                    }
+                }
+                counts[chunk] = claimed;
+            });
+            int claimed = sum(counts);
+            byte[] level = roots;
+            byte[] nextLevel = next;
+            while (true) {
+                byte[] from = level;
+                byte[] to = nextLevel;
+                invoke(chunks, chunk -> {
+                    int found = 0;
+                    for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                        if (from[v] == 0) {
+                            continue;
+                        }
+                        from[v] = 0;
+                        int color = colors.get(v);
+                        for (int e = reverse.edgeStart(v), last = reverse.edgeEnd(v); e < last; e++) {
+                            int w = reverse.target(e);
+                            if (colors.get(w) == color && components.compareAndSet(w, -1, color)) {
+                                to[w] = 1;
+                                found++;
+                            }
+                        }
+                    }
+                    counts[chunk] = found;
+                });
+                int found = sum(counts);
+                if (found == 0) {
+                    break;
+                }
+                claimed += found;
+                level = to;
+                nextLevel = from;
+            }
+            remaining -= claimed;
+        }
+
+        int[] representatives = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            representatives[v] = components.get(v);
+        }
+        ComponentsResult<V> result = new ComponentsResult<>(csr, representatives);
+        assert samePartition(result, new ComponentsResult<>(csr, tarjan(csr)), vertexCount)
+                : "Strongly connected components differ from Tarjan's algorithm";
+        return result;
+    }
+
+    /**
+     * Computes the strongly connected components sequentially with Tarjan's algorithm, using explicit stacks so
+     * that long paths cannot overflow the call stack.
+     *
+     * @return the root of the component of every vertex
+     */
+    static int[] tarjan(CsrGraph<?> csr) {
+        int vertexCount = csr.vertexCount();
+        int[] order = new int[vertexCount];
+        int[] low = new int[vertexCount];
+        int[] roots = new int[vertexCount];
+        int[] edges = new int[vertexCount];
+        int[] callStack = new int[vertexCount];
+        int[] componentStack = new int[vertexCount];
+        boolean[] onStack = new boolean[vertexCount];
+        Arrays.fill(order, -1);
+        int counter = 0;
+        int componentTop = 0;
+
+        for (int start = 0; start < vertexCount; start++) {
+            if (order[start] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            callStack[callTop++] = start;
+            order[start] = low[start] = counter++;
+            edges[start] = csr.edgeStart(start);
+            componentStack[componentTop++] = start;
+            onStack[start] = true;
+            while (callTop > 0) {
+                int v = callStack[callTop - 1];
+                if (edges[v] < csr.edgeEnd(v)) {
+                    int w = csr.target(edges[v]++);
+                    if (order[w] == -1) {
+                        order[w] = low[w] = counter++;
+                        edges[w] = csr.edgeStart(w);
+                        componentStack[componentTop++] = w;
+                        onStack[w] = true;
+                        callStack[callTop++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], order[w]);
+                    }
+                    continue;
+                }
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == order[v]) {
+                    int w;
+                    do {
+                        w = componentStack[--componentTop];
+                        onStack[w] = false;
+                        roots[w] = v;
+                    } while (w != v);
+                }
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Checks if two results put the same vertices together. Components are numbered by their smallest vertex,
+     * so equal partitions have equal numbers.
+     */
+    private static boolean samePartition(ComponentsResult<?> a, ComponentsResult<?> b, int vertexCount) {
+        if (a.getComponentCount() != b.getComponentCount()) {
+            return false;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            if (a.component(v) != b.component(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the active vertices without active predecessors or successors, repeatedly, making each one a
+     * component of its own.
+     *
+     * @return the number of removed vertices
+     */
+    private int trim(CsrGraph<V> csr, CsrGraph<V> reverse, AtomicIntegerArray components, int[] inDegrees,
+                     int[] outDegrees, int[] queue) {
+        int vertexCount = csr.vertexCount();
+        invoke(chunks(vertexCount), chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                if (components.get(v) == -1) {
+                    inDegrees[v] = activeNeighbors(reverse, components, v);
+                    outDegrees[v] = activeNeighbors(csr, components, v);
+                }
+            }
+        });
+        int tail = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            if (components.get(v) == -1 && (inDegrees[v] == 0 || outDegrees[v] == 0)) {
+                components.set(v, v);
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                int w = csr.target(e);
+                if (w != v && components.get(w) == -1 && --inDegrees[w] == 0) {
+                    components.set(w, w);
+                    queue[tail++] = w;
+                }
+            }
+            for (int e = reverse.edgeStart(v), last = reverse.edgeEnd(v); e < last; e++) {
+                int w = reverse.target(e);
+                if (w != v && components.get(w) == -1 && --outDegrees[w] == 0) {
+                    components.set(w, w);
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private static int activeNeighbors(CsrGraph<?> csr, AtomicIntegerArray components, int vertex) {
+        int count = 0;
+        for (int e = csr.edgeStart(vertex), last = csr.edgeEnd(vertex); e < last; e++) {
+            int w = csr.target(e);
+            if (w != vertex && components.get(w) == -1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Raises the color of a vertex, returning true if the given color was larger.
+     */
+    private static boolean raise(AtomicIntegerArray colors, int vertex, int color) {
+        while (true) {
+            int current = colors.get(vertex);
+            if (current >= color) {
+                return false;
+            }
+            if (colors.compareAndSet(vertex, current, color)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Counts the triangles of the graph, ignoring edge directions, weights, self-loops and parallel edges.
+     * <p>
+     * Every edge is oriented from the endpoint of lower degree to the endpoint of higher degree, ties broken by
+     * id, which leaves every vertex with at most about {@code sqrt(2m)} outgoing neighbours. A triangle is then
+     * counted exactly once, as the intersection of the sorted out-neighbourhoods of the two lower endpoints of
+     * one of its oriented edges, and the intersections are computed in parallel.
+     *
+     * @return the number of triangles
+     */
+    public long countTriangles() {
+        CsrGraph<V> csr = csr();
+        CsrGraph<V> reverse = csr.reverse();
+        int vertexCount = csr.vertexCount();
+        int chunks = chunks(vertexCount);
+
+        int[] degrees = new int[vertexCount];
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                degrees[v] = csr.degree(v) + reverse.degree(v);
+            }
+        });
+
+        int[] offsets = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                int w = csr.target(e);
+                if (w != v) {
+                    offsets[(precedes(degrees, v, w) ? v : w) + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] neighbors = new int[offsets[vertexCount]];
+        int[] ends = Arrays.copyOf(offsets, vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = csr.edgeStart(v), last = csr.edgeEnd(v); e < last; e++) {
+                int w = csr.target(e);
+                if (w != v) {
+                    if (precedes(degrees, v, w)) {
+                        neighbors[ends[v]++] = w;
+                    } else {
+                        neighbors[ends[w]++] = v;
+                    }
+                }
+            }
+        }
+
+        // Sort every neighbourhood and drop the duplicates of parallel and antiparallel edges
+        invoke(chunks, chunk -> {
+            for (int v = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); v < end; v++) {
+                int start = offsets[v];
+                Arrays.sort(neighbors, start, ends[v]);
+                int size = start;
+                for (int i = start; i < ends[v]; i++) {
+                    if (size == start || neighbors[size - 1] != neighbors[i]) {
+                        neighbors[size++] = neighbors[i];
+                    }
+                }
+                ends[v] = size;
+            }
+        });
+
+        long[] parts = new long[chunks];
+        invoke(chunks, chunk -> {
+            long triangles = 0;
+            for (int u = chunk * CHUNK, end = chunkEnd(chunk, vertexCount); u < end; u++) {
+                for (int i = offsets[u]; i < ends[u]; i++) {
+                    int v = neighbors[i];
+                    int a = offsets[u];
+                    int b = offsets[v];
+                    while (a < ends[u] && b < ends[v]) {
+                        int difference = Integer.compare(neighbors[a], neighbors[b]);
+                        if (difference == 0) {
+                            triangles++;
+                            a++;
+                            b++;
+                        } else if (difference < 0) {
+                            a++;
+                        } else {
+                            b++;
+                        }
+                    }
+                }
+            }
+            parts[chunk] = triangles;
+        });
+        long total = 0;
+        for (long part : parts) {
+            total += part;
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether the first vertex comes before the second in the degree order used to orient edges.
+     */
+    private static boolean precedes(int[] degrees, int a, int b) {
+        return degrees[a] < degrees[b] || (degrees[a] == degrees[b] && a < b);
+    }
+
+    private static int chunks(int vertexCount) {
+        return (vertexCount + CHUNK - 1) / CHUNK;
+    }
+
+    private static int chunkEnd(int chunk, int vertexCount) {
+        return Math.min(vertexCount, (chunk + 1) * CHUNK);
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private void invoke(int chunks, IntConsumer action) {
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Graph analytics was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                // ForkJoin re-creates exceptions thrown by other workers around the original
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Graph analytics failed", cause);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generators for synthetic weighted graphs, used to benchmark the algorithms at different scales.
+ * <p>
+ * Every generator is deterministic for a given seed and labels its vertices with the integers
+ * {@code 0 .. n-1}, so the same graph can be rebuilt across runs.
+ */
+public final class GraphGenerators {
+    private GraphGenerators() {
+    }
+
+    /**
+     * Generates a uniform random graph in which every vertex has the same number of outgoing edges to
+     * uniformly chosen targets, with weights uniform in {@code [1, 100)}.
+     *
+     * @param vertexCount the number of vertices
+     * @param degree      the number of outgoing edges of every vertex
+     * @param seed        the random seed
+     * @return the generated graph
+     */
+    public static WeightedGraph<Integer> random(int vertexCount, int degree, long seed) {
+        Random random = new Random(seed);
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        List<Vertex<Integer>> vertices = addVertices(graph, vertexCount);
+        for (Vertex<Integer> source : vertices) {
+            for (int i = 0; i < degree; i++) {
+                Vertex<Integer> destination = vertices.get(random.nextInt(vertexCount));
+                graph.addEdge(source, destination, 1 + random.nextDouble() * 99);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Generates a road-like grid in which every vertex is connected to its four neighbours in both directions.
+     * Weights are close to 10 with random jitter, so shortest paths follow the grid but are not all tied.
+     *
+     * @param width  the number of columns
+     * @param height the number of rows
+     * @param seed   the random seed
+     * @return the generated graph, whose vertex {@code y * width + x} is at column x and row y
+     */
+    public static WeightedGraph<Integer> grid(int width, int height, long seed) {
+        Random random = new Random(seed);
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        List<Vertex<Integer>> vertices = addVertices(graph, width * height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Vertex<Integer> vertex = vertices.get(y * width + x);
+                if (x + 1 < width) {
+                    connect(graph, vertex, vertices.get(y * width + x + 1), 8 + random.nextDouble() * 4);
+                }
+                if (y + 1 < height) {
+                    connect(graph, vertex, vertices.get((y + 1) * width + x), 8 + random.nextDouble() * 4);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Generates a scale-free graph by preferential attachment, as in the Barabasi-Albert model.
+     * <p>
+     * Every new vertex is connected in both directions to {@code edgesPerVertex} existing vertices chosen with
+     * probability proportional to their degree, which yields a few hubs and a power-law degree distribution.
+     *
+     * @param vertexCount    the number of vertices
+     * @param edgesPerVertex the number of vertices every new vertex attaches to
+     * @param seed           the random seed
+     * @return the generated graph
+     */
+    public static WeightedGraph<Integer> powerLaw(int vertexCount, int edgesPerVertex, long seed) {
+        Random random = new Random(seed);
+        WeightedGraph<Integer> graph = new WeightedGraph<>();
+        List<Vertex<Integer>> vertices = addVertices(graph, vertexCount);
+        int seedCount = Math.min(vertexCount, edgesPerVertex + 1);
+        // Every edge endpoint is listed once, so sampling the list picks vertices proportionally to degree
+        int[] endpoints = new int[2 * (seedCount + (vertexCount - seedCount) * edgesPerVertex)];
+        int endpointCount = 0;
+        for (int v = 1; v < seedCount; v++) {
+            connect(graph, vertices.get(v - 1), vertices.get(v), 1 + random.nextDouble() * 99);
+            endpoints[endpointCount++] = v - 1;
+            endpoints[endpointCount++] = v;
+        }
+        int[] chosen = new int[edgesPerVertex];
+        for (int v = seedCount; v < vertexCount; v++) {
+            int count = 0;
+            while (count < edgesPerVertex) {
+                int target = endpoints[random.nextInt(endpointCount)];
+                boolean duplicate = false;
+                for (int i = 0; i < count; i++) {
+                    duplicate |= chosen[i] == target;
+                }
+                if (!duplicate) {
+                    chosen[count++] = target;
+                }
+            }
+            for (int target : chosen) {
+                connect(graph, vertices.get(v), vertices.get(target), 1 + random.nextDouble() * 99);
+                endpoints[endpointCount++] = v;
+                endpoints[endpointCount++] = target;
+            }
+        }
+        return graph;
+    }
+
+    private static List<Vertex<Integer>> addVertices(WeightedGraph<Integer> graph, int vertexCount) {
+        List<Vertex<Integer>> vertices = new ArrayList<>(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            Vertex<Integer> vertex = new Vertex<>(v);
+            vertices.add(vertex);
+            graph.addVertex(vertex);
+        }
+        return vertices;
+    }
+
+    private static void connect(WeightedGraph<Integer> graph, Vertex<Integer> a, Vertex<Integer> b, double weight) {
+        graph.addEdge(a, b, weight);
+        graph.addEdge(b, a, weight);
+    }
+}
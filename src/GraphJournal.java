@@ -0,0 +1,707 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable persistence for a {@link WeightedGraph}: a write-ahead log of its mutations plus periodic snapshots.
+ * <p>
+ * A journal is opened on a directory with {@link #open(Path, VertexCodec)}, which recovers the graph from the
+ * latest snapshot and the log records written after it, and then listens to the recovered graph. Every
+ * mutation is encoded into an in-memory buffer by the thread that applied it. A background thread writes the
+ * buffer in checksummed frames and forces it to disk; while one frame is being forced, the following mutations
+ * accumulate in a second buffer, so a single fsync covers every mutation applied in the meantime (group
+ * commit) and the mutating thread never waits for the disk unless the buffer is full. Mutations are therefore
+ * durable shortly after they are applied rather than when the mutating method returns; {@link #sync()} waits
+ * until everything applied so far is on disk.
+ * <p>
+ * Every {@code snapshotInterval} records the journal freezes the graph, which only copies the adjacency into a
+ * {@link CsrGraph}, and writes the copy in the {@link MappedCsrGraph} format on a background thread while the
+ * graph keeps changing and readers keep searching their own snapshots. Once a snapshot is on disk, the log
+ * segments and snapshots it makes obsolete are deleted, so recovery reads one snapshot and a bounded log tail.
+ * <p>
+ * Directory layout, with sequence numbers counting log records from 1:
+ * <pre>
+ * journal-&lt;first sequence&gt;.log   frames of int length, int CRC-32C, records
+ * snapshot-&lt;last sequence&gt;.csr   the graph after the record with that sequence number
+ * </pre>
+ * Vertices are logged by their ids in the graph, and their data is encoded with the {@link VertexCodec} of the
+ * journal. A frame torn by a crash at the end of the last segment is discarded on recovery.
+ * <p>
+ * If the log cannot be written, the journal stops logging but keeps listening: later mutations are still applied
+ * to the graph and passed to the listeners registered after the journal, since the journal never throws from
+ * its listener methods, but they are not logged and {@link #getDurableSequence()} stops advancing. The failure
+ * is reported by {@link #sync()}, {@link #close()} and {@link #getFailure()}. Like the graph
+ * itself, the journal expects mutations from one thread at a time; {@link #sync()} may be called from any
+ * thread.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class GraphJournal<V> implements GraphListener<V>, Closeable {
+    private static final byte VERTEX_ADDED = 1;
+    private static final byte EDGE_ADDED = 2;
+    private static final byte EDGE_REMOVED = 3;
+    private static final byte EDGE_WEIGHT_CHANGED = 4;
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long SEGMENT_BYTES = 1L << 26;
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 1L << 22;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".csr";
+
+    private final Path directory;
+    private final VertexCodec<V> codec;
+    private final WeightedGraph<V> graph;
+    private final long snapshotInterval;
+    private final Thread flusher;
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private ByteBuffer active = newBuffer(BUFFER_BYTES);
+    private ByteBuffer spare = newBuffer(BUFFER_BYTES);
+    private int activeRecords;
+    private long sequence;
+    private long durableSequence;
+    private long flushCount;
+    private boolean flusherIdle;
+    private boolean rotateRequested;
+    private boolean closed;
+    private Throwable failure;
+
+    // Only used by the flusher thread once it has started
+    private FileChannel segment;
+
+    // Only used by the mutating thread
+    private ByteBuffer record = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile long snapshotSequence;
+    private volatile CompletableFuture<Long> pendingSnapshot;
+
+    private GraphJournal(Path directory, VertexCodec<V> codec, WeightedGraph<V> graph, long sequence,
+                         long snapshotSequence, long snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.codec = codec;
+        this.graph = graph;
+        this.sequence = sequence;
+        this.durableSequence = sequence;
+        this.snapshotSequence = snapshotSequence;
+        this.snapshotInterval = snapshotInterval;
+        this.segment = FileChannel.open(segmentPath(sequence + 1), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        forceDirectory(directory);
+        deleteSegments(directory, snapshotSequence);
+        this.flusher = new Thread(this::flushLoop, "graph-journal-" + directory.getFileName());
+        flusher.setDaemon(true);
+        flusher.start();
+        graph.addListener(this);
+    }
+
+    /**
+     * Opens the journal in a directory with the default snapshot interval of about four million records.
+     *
+     * @param directory the directory of the journal, created if it does not exist
+     * @param codec     the codec of the vertex data
+     * @param <V>       the type of data stored in the vertices
+     * @return the journal, listening to the recovered graph
+     * @throws IOException if the directory cannot be read or written, or the journal is damaged
+     */
+    public static <V> GraphJournal<V> open(Path directory, VertexCodec<V> codec) throws IOException {
+        return open(directory, codec, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Opens the journal in a directory, recovering the graph from the latest snapshot and the log after it.
+     *
+     * @param directory        the directory of the journal, created if it does not exist
+     * @param codec            the codec of the vertex data
+     * @param snapshotInterval the number of records between automatic snapshots, or 0 to only take snapshots
+     *                         when {@link #snapshot()} is called
+     * @param <V>              the type of data stored in the vertices
+     * @return the journal, listening to the recovered graph
+     * @throws IOException              if the directory cannot be read or written, or the journal is damaged
+     * @throws IllegalArgumentException if the snapshot interval is negative
+     */
+    public static <V> GraphJournal<V> open(Path directory, VertexCodec<V> codec, long snapshotInterval)
+            throws IOException {
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval " + snapshotInterval + " is out of the range");
+        }
+        Files.createDirectories(directory);
+        WeightedGraph<V> graph = new WeightedGraph<>();
+        long snapshotSequence = 0;
+        List<Long> snapshots = list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            snapshotSequence = snapshots.get(snapshots.size() - 1);
+            load(MappedCsrGraph.open(snapshotPath(directory, snapshotSequence), codec), graph);
+        }
+
+        long sequence = snapshotSequence;
+        List<Long> segments = list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (int i = 0; i < segments.size(); i++) {
+            long first = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (!last && segments.get(i + 1) <= sequence + 1) {
+                // Every record of this segment is already in the snapshot
+                continue;
+            }
+            if (first > sequence + 1) {
+                throw new IOException("Journal " + directory + " is missing records " + (sequence + 1)
+                        + " to " + (first - 1));
+            }
+            sequence = replay(directory, first, sequence, last, codec, graph);
+        }
+        return new GraphJournal<>(directory, codec, graph, sequence, snapshotSequence, snapshotInterval);
+    }
+
+    /**
+     * Returns the graph recovered by this journal. Its mutations are logged until the journal is closed.
+     *
+     * @return the journaled graph
+     */
+    public WeightedGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the sequence number of the last logged mutation.
+     *
+     * @return the number of records logged since the journal was created
+     */
+    public long getSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last mutation that is known to be on disk. It stops advancing when
+     * the journal fails.
+     *
+     * @return the durable sequence number
+     */
+    public long getDurableSequence() {
+        synchronized (lock) {
+            return durableSequence;
+        }
+    }
+
+    /**
+     * Returns the error that stopped the journal from logging, if any. Mutations applied after the failure are
+     * in the graph but not in the log.
+     *
+     * @return the failure, or null if the journal is healthy
+     */
+    public Throwable getFailure() {
+        synchronized (lock) {
+            return failure;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the latest snapshot on disk.
+     *
+     * @return the last record included in the latest snapshot, or 0 if there is none
+     */
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    /**
+     * Returns the number of frames forced to disk since the journal was opened. Comparing it with the number of
+     * logged records shows how many mutations each fsync covered.
+     *
+     * @return the flush count
+     */
+    public long getFlushCount() {
+        synchronized (lock) {
+            return flushCount;
+        }
+    }
+
+    /**
+     * Waits until every mutation logged so far is on disk.
+     *
+     * @throws IOException           if the log cannot be written, now or since an earlier failure
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = sequence;
+            lock.notifyAll();
+            while (durableSequence < target) {
+                checkFailure();
+                if (closed && !flusher.isAlive()) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Journal sync was interrupted");
+                }
+            }
+            checkFailure();
+        }
+    }
+
+    /**
+     * Starts a snapshot of the current graph. Must be called by the thread that mutates the graph.
+     * <p>
+     * The graph is frozen on the calling thread and written on a background thread; when the snapshot is on
+     * disk, the log segments and older snapshots it covers are deleted. If a snapshot is still being written,
+     * that snapshot is returned instead.
+     *
+     * @return a future that completes with the sequence number of the snapshot once it is on disk
+     */
+    public CompletableFuture<Long> snapshot() {
+        return startSnapshot(false);
+    }
+
+    /**
+     * Starts a snapshot, or returns the one being written. An automatic snapshot, started from a listener
+     * method, returns null instead of throwing when the journal has failed or been closed.
+     */
+    private CompletableFuture<Long> startSnapshot(boolean automatic) {
+        CompletableFuture<Long> pending = pendingSnapshot;
+        if (pending != null && !pending.isDone()) {
+            return pending;
+        }
+        long snapshotAt;
+        synchronized (lock) {
+            if (automatic && !logging()) {
+                return null;
+            }
+            checkOpen();
+            snapshotAt = sequence;
+            // Start a new segment so the records before the snapshot can be deleted as a whole
+            rotateRequested = true;
+        }
+        CsrGraph<V> frozen = graph.freeze();
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Thread writer = new Thread(() -> {
+            try {
+                writeSnapshot(frozen, snapshotAt);
+                future.complete(snapshotAt);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, "graph-journal-snapshot-" + directory.getFileName());
+        writer.setDaemon(true);
+        pendingSnapshot = future;
+        writer.start();
+        return future;
+    }
+
+    /**
+     * Stops listening to the graph, writes the remaining records to disk and waits for a running snapshot.
+     *
+     * @throws IOException if the log cannot be written, now or since an earlier failure
+     */
+    @Override
+    public void close() throws IOException {
+        graph.removeListener(this);
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+            CompletableFuture<Long> pending = pendingSnapshot;
+            if (pending != null) {
+                pending.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Journal close was interrupted");
+        } catch (RuntimeException e) {
+            // A failed snapshot leaves the log intact, so the journal still recovers
+        } finally {
+            segment.close();
+        }
+        synchronized (lock) {
+            checkFailure();
+        }
+    }
+
+    @Override
+    public void vertexAdded(Vertex<V> vertex) {
+        byte[] data = codec.encode(vertex.getData());
+        record(1 + 2 * Integer.BYTES + data.length).put(VERTEX_ADDED).putInt(graph.indexOf(vertex))
+                .putInt(data.length).put(data);
+        append();
+    }
+
+    @Override
+    public void edgeAdded(Vertex<V> source, Vertex<V> destination, double weight) {
+        record(1 + 2 * Integer.BYTES + Double.BYTES).put(EDGE_ADDED).putInt(graph.indexOf(source))
+                .putInt(graph.indexOf(destination)).putDouble(weight);
+        append();
+    }
+
+    @Override
+    public void edgeRemoved(Vertex<V> source, Vertex<V> destination, double weight) {
+        record(1 + 2 * Integer.BYTES).put(EDGE_REMOVED).putInt(graph.indexOf(source))
+                .putInt(graph.indexOf(destination));
+        append();
+    }
+
+    @Override
+    public void edgeWeightChanged(Vertex<V> source, Vertex<V> destination, double oldWeight, double newWeight) {
+        record(1 + 2 * Integer.BYTES + Double.BYTES).put(EDGE_WEIGHT_CHANGED).putInt(graph.indexOf(source))
+                .putInt(graph.indexOf(destination)).putDouble(newWeight);
+        append();
+    }
+
+    /**
+     * Returns the cleared record buffer of the mutating thread, with room for a record of the given size.
+     */
+    private ByteBuffer record(int size) {
+        if (record.capacity() < size) {
+            record = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        record.clear();
+        return record;
+    }
+
+    /**
+     * Copies the encoded record into the active buffer, waiting for the flusher if the buffer is full, and
+     * starts a snapshot when one is due. The record is dropped once the journal has failed or been closed: the
+     * mutation has already been applied to the graph, so throwing would only hide it from the other listeners.
+     */
+    private void append() {
+        record.flip();
+        int size = record.remaining();
+        boolean snapshotDue;
+        synchronized (lock) {
+            if (!logging()) {
+                return;
+            }
+            while (active.remaining() < size) {
+                if (active.position() == FRAME_HEADER_BYTES) {
+                    // A record larger than the buffer gets a buffer of its own
+                    active = newBuffer(FRAME_HEADER_BYTES + size);
+                    break;
+                }
+                lock.notifyAll();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // The record cannot be dropped without leaving a gap in the log, so the journal stops here
+                    Thread.currentThread().interrupt();
+                    failure = new IOException("Journal append was interrupted", e);
+                    lock.notifyAll();
+                    return;
+                }
+                if (!logging()) {
+                    return;
+                }
+            }
+            active.put(record);
+            activeRecords++;
+            sequence++;
+            if (flusherIdle) {
+                lock.notifyAll();
+            }
+            snapshotDue = snapshotInterval > 0 && sequence - snapshotSequence >= snapshotInterval;
+        }
+        CompletableFuture<Long> pending = pendingSnapshot;
+        if (snapshotDue && (pending == null || pending.isDone())) {
+            startSnapshot(true);
+        }
+    }
+
+    private boolean logging() {
+        return failure == null && !closed;
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure instanceof IOException) {
+            throw new IOException("Journal write failed", failure);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal failed", failure);
+        }
+    }
+
+    /**
+     * Writes the accumulated records in frames until the journal is closed.
+     */
+    private void flushLoop() {
+        try {
+            while (true) {
+                ByteBuffer frame;
+                int records;
+                long last;
+                boolean rotate;
+                synchronized (lock) {
+                    while (activeRecords == 0 && !closed) {
+                        flusherIdle = true;
+                        lock.wait();
+                        flusherIdle = false;
+                    }
+                    if (activeRecords == 0) {
+                        return;
+                    }
+                    frame = active;
+                    records = activeRecords;
+                    last = sequence;
+                    rotate = rotateRequested;
+                    active = spare;
+                    activeRecords = 0;
+                    rotateRequested = false;
+                    // Writers blocked on a full buffer can continue with the empty one
+                    lock.notifyAll();
+                }
+
+                if (rotate || segment.size() >= SEGMENT_BYTES) {
+                    segment.close();
+                    segment = FileChannel.open(segmentPath(last - records + 1), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    forceDirectory(directory);
+                    deleteSegments(directory, snapshotSequence);
+                }
+                int length = frame.position() - FRAME_HEADER_BYTES;
+                CRC32C crc = new CRC32C();
+                crc.update(frame.array(), FRAME_HEADER_BYTES, length);
+                frame.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue());
+                frame.flip();
+                while (frame.hasRemaining()) {
+                    segment.write(frame);
+                }
+                segment.force(false);
+
+                synchronized (lock) {
+                    durableSequence = last;
+                    flushCount++;
+                    frame.clear().position(FRAME_HEADER_BYTES);
+                    spare = frame.capacity() == BUFFER_BYTES ? frame : newBuffer(BUFFER_BYTES);
+                    lock.notifyAll();
+                }
+            }
+        } catch (Throwable e) {
+            synchronized (lock) {
+                failure = e;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot file and deletes the files it makes obsolete.
+     */
+    private void writeSnapshot(CsrGraph<V> frozen, long snapshotAt) throws IOException {
+        Path target = snapshotPath(directory, snapshotAt);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        MappedCsrGraph.write(frozen, temporary, codec);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(directory);
+        snapshotSequence = snapshotAt;
+
+        for (long older : list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (older < snapshotAt) {
+                Files.deleteIfExists(snapshotPath(directory, older));
+            }
+        }
+        deleteSegments(directory, snapshotAt);
+    }
+
+    /**
+     * Deletes the log segments whose records are all included in a snapshot. A segment is obsolete when the
+     * next one starts no later than the first record after the snapshot; the last segment is never deleted
+     * because the flusher may be writing it.
+     */
+    private static void deleteSegments(Path directory, long snapshotAt) throws IOException {
+        List<Long> segments = list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (int i = 0; i + 1 < segments.size() && segments.get(i + 1) <= snapshotAt + 1; i++) {
+            Files.deleteIfExists(segmentPath(directory, segments.get(i)));
+        }
+    }
+
+    /**
+     * Replays one log segment into the graph, skipping the records up to the given sequence number.
+     *
+     * @return the sequence number of the last record in the segment
+     */
+    private static <V> long replay(Path directory, long first, long sequence, boolean last, VertexCodec<V> codec,
+                                   WeightedGraph<V> graph) throws IOException {
+        Path path = segmentPath(directory, first);
+        long current = first - 1;
+        long valid = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C crc = new CRC32C();
+            while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+                if (length < 0 || length > buffer.remaining() - FRAME_HEADER_BYTES) {
+                    break;
+                }
+                ByteBuffer records = buffer.slice(buffer.position() + FRAME_HEADER_BYTES, length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                crc.reset();
+                crc.update(records.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                while (records.hasRemaining()) {
+                    current++;
+                    apply(records, current > sequence, codec, graph);
+                }
+                buffer.position(buffer.position() + FRAME_HEADER_BYTES + length);
+                valid = buffer.position();
+            }
+            if (valid < channel.size()) {
+                if (!last) {
+                    throw new IOException("Journal segment " + path + " is damaged at byte " + valid);
+                }
+                // The tail of the last segment was torn by a crash before it was forced
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+        return Math.max(current, sequence);
+    }
+
+    /**
+     * Decodes one record and applies it to the graph if requested.
+     */
+    private static <V> void apply(ByteBuffer records, boolean applied, VertexCodec<V> codec,
+                                  WeightedGraph<V> graph) {
+        byte type = records.get();
+        switch (type) {
+            case VERTEX_ADDED: {
+                int id = records.getInt();
+                int length = records.getInt();
+                ByteBuffer data = records.slice(records.position(), length);
+                records.position(records.position() + length);
+                if (applied) {
+                    // Re-adding a vertex is logged as the removal of its edges followed by this record
+                    graph.addVertex(id < graph.vertexCount() ? graph.vertex(id) : new Vertex<>(codec.decode(data)));
+                }
+                break;
+            }
+            case EDGE_ADDED: {
+                int source = records.getInt();
+                int destination = records.getInt();
+                double weight = records.getDouble();
+                if (applied) {
+                    graph.addEdge(graph.vertex(source), graph.vertex(destination), weight);
+                }
+                break;
+            }
+            case EDGE_REMOVED: {
+                int source = records.getInt();
+                int destination = records.getInt();
+                if (applied) {
+                    graph.removeEdge(graph.vertex(source), graph.vertex(destination));
+                }
+                break;
+            }
+            case EDGE_WEIGHT_CHANGED: {
+                int source = records.getInt();
+                int destination = records.getInt();
+                double weight = records.getDouble();
+                if (applied) {
+                    graph.setEdgeWeight(graph.vertex(source), graph.vertex(destination), weight);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Record type " + type + " is out of the range");
+        }
+    }
+
+    /**
+     * Fills an empty graph with the vertices and edges of a snapshot, keeping their ids and edge order.
+     */
+    private static <V> void load(CsrGraph<V> snapshot, WeightedGraph<V> graph) {
+        int vertexCount = snapshot.vertexCount();
+        List<Vertex<V>> vertices = new ArrayList<>(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            Vertex<V> vertex = new Vertex<>(snapshot.vertex(v).getData());
+            graph.addVertex(vertex);
+            vertices.add(vertex);
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            Vertex<V> source = vertices.get(v);
+            for (int e = snapshot.edgeStart(v); e < snapshot.edgeEnd(v); e++) {
+                graph.addEdge(source, vertices.get(snapshot.target(e)), snapshot.weight(e));
+            }
+        }
+    }
+
+    /**
+     * Returns the sequence numbers in the names of the files with the given prefix and suffix, in order.
+     */
+    private static List<Long> list(Path directory, String prefix, String suffix) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    // Not a journal file
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private Path segmentPath(long first) {
+        return segmentPath(directory, first);
+    }
+
+    private static Path segmentPath(Path directory, long first) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", first) + SEGMENT_SUFFIX);
+    }
+
+    private static Path snapshotPath(Path directory, long sequence) {
+        return directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", sequence) + SNAPSHOT_SUFFIX);
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN).position(FRAME_HEADER_BYTES);
+    }
+
+    /**
+     * Forces the directory entry of created or renamed files to disk where the platform supports it.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the files themselves are forced
+        }
+    }
+}
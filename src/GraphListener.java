@@ -0,0 +1,47 @@
+/**
+ * GraphListener receives the mutations of a {@link WeightedGraph} after they have been applied.
+ * <p>
+ * All methods do nothing by default, so a listener only overrides the events it needs.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public interface GraphListener<V> {
+    /**
+     * Called after a vertex has been added. Re-adding a vertex first reports the removal of its outgoing edges.
+     *
+     * @param vertex the added vertex
+     */
+    default void vertexAdded(Vertex<V> vertex) {
+    }
+
+    /**
+     * Called after an edge has been added.
+     *
+     * @param source      the source vertex of the edge
+     * @param destination the destination vertex of the edge
+     * @param weight      the weight of the edge
+     */
+    default void edgeAdded(Vertex<V> source, Vertex<V> destination, double weight) {
+    }
+
+    /**
+     * Called after an edge has been removed.
+     *
+     * @param source      the source vertex of the edge
+     * @param destination the destination vertex of the edge
+     * @param weight      the weight the edge had
+     */
+    default void edgeRemoved(Vertex<V> source, Vertex<V> destination, double weight) {
+    }
+
+    /**
+     * Called after the weight of an edge has changed.
+     *
+     * @param source      the source vertex of the edge
+     * @param destination the destination vertex of the edge
+     * @param oldWeight   the previous weight of the edge
+     * @param newWeight   the new weight of the edge
+     */
+    default void edgeWeightChanged(Vertex<V> source, Vertex<V> destination, double oldWeight, double newWeight) {
+    }
+}
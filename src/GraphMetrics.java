@@ -0,0 +1,180 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of search and mutation metrics, with a slow-query log and JMX export.
+ * <p>
+ * Search metrics are switched on by starting the JVM with {@code -Dgraph.metrics=true}. The switch is read
+ * once into the constant {@link #ENABLED}, and every instrumented search guards its timing and recording with
+ * it, so when metrics are off the JIT removes the instrumentation and the searches run exactly as before.
+ * When they are on, {@link BFS} and {@link DijkstraSearch} record per query the latency, the vertices settled,
+ * the edges relaxed, the queue pushes and the decrease-key operations into the {@link SearchMetrics} of the
+ * algorithm. Queries that take at least the slow-query threshold are also kept, with their source,
+ * destination and work counters, in a log of the most recent ones. Graph sizes and mutation counts are
+ * collected for graphs passed to {@link #watch(String, WeightedGraph)}.
+ * <p>
+ * All metrics can be read through this class or exported as MBeans in the {@code graph} JMX domain with
+ * {@link #registerMBeans()}.
+ */
+public final class GraphMetrics {
+    /**
+     * Whether searches record metrics, set by the {@code graph.metrics} system property at startup.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("graph.metrics");
+
+    private static final String DOMAIN = "graph";
+    private static final int SLOW_QUERY_CAPACITY = 256;
+
+    private static final Map<String, SearchMetrics> SEARCHES = new ConcurrentHashMap<>();
+    private static final Map<String, MutationMetrics<?>> GRAPHS = new ConcurrentHashMap<>();
+    private static final ArrayDeque<QueryRecord> SLOW_QUERIES = new ArrayDeque<>();
+    private static volatile long slowQueryThresholdNanos = Long.MAX_VALUE;
+    private static boolean exported;
+
+    private GraphMetrics() {
+    }
+
+    /**
+     * Returns the metrics of a search algorithm, creating them on first use.
+     *
+     * @param algorithm the name of the algorithm
+     * @return the metrics of the algorithm
+     */
+    public static SearchMetrics search(String algorithm) {
+        return SEARCHES.computeIfAbsent(algorithm, name -> {
+            SearchMetrics metrics = new SearchMetrics(name);
+            export(metrics, "SearchMetrics", name);
+            return metrics;
+        });
+    }
+
+    /**
+     * Returns the metrics of every search algorithm that has been used.
+     *
+     * @return an unmodifiable view of the metrics by algorithm name
+     */
+    public static Map<String, SearchMetrics> getSearchMetrics() {
+        return Collections.unmodifiableMap(SEARCHES);
+    }
+
+    /**
+     * Starts collecting size and mutation metrics for a graph. Watching a graph registers a listener and works
+     * whether or not {@link #ENABLED} is set.
+     *
+     * @param name  the name of the graph in the metrics
+     * @param graph the graph to watch
+     * @param <V>   the type of data stored in the vertices
+     * @return the metrics of the graph
+     * @throws IllegalArgumentException if another graph is already watched under the same name
+     */
+    public static <V> MutationMetrics<V> watch(String name, WeightedGraph<V> graph) {
+        MutationMetrics<V> metrics = new MutationMetrics<>(graph);
+        if (GRAPHS.putIfAbsent(name, metrics) != null) {
+            throw new IllegalArgumentException("Graph name " + name + " is out of the range");
+        }
+        graph.addListener(metrics);
+        export(metrics, "MutationMetrics", name);
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of every watched graph.
+     *
+     * @return an unmodifiable view of the metrics by graph name
+     */
+    public static Map<String, MutationMetrics<?>> getMutationMetrics() {
+        return Collections.unmodifiableMap(GRAPHS);
+    }
+
+    /**
+     * Sets the latency from which a query is kept in the slow-query log.
+     *
+     * @param nanos the threshold in nanoseconds, or {@link Long#MAX_VALUE} to keep no queries
+     */
+    public static void setSlowQueryThresholdNanos(long nanos) {
+        slowQueryThresholdNanos = nanos;
+    }
+
+    /**
+     * Returns the latency from which a query is kept in the slow-query log.
+     *
+     * @return the threshold in nanoseconds
+     */
+    public static long getSlowQueryThresholdNanos() {
+        return slowQueryThresholdNanos;
+    }
+
+    /**
+     * Returns the most recent slow queries, oldest first.
+     *
+     * @return a copy of the slow-query log
+     */
+    public static List<QueryRecord> getSlowQueries() {
+        synchronized (SLOW_QUERIES) {
+            return new ArrayList<>(SLOW_QUERIES);
+        }
+    }
+
+    static void addSlowQuery(QueryRecord record) {
+        synchronized (SLOW_QUERIES) {
+            if (SLOW_QUERIES.size() == SLOW_QUERY_CAPACITY) {
+                SLOW_QUERIES.removeFirst();
+            }
+            SLOW_QUERIES.addLast(record);
+        }
+    }
+
+    /**
+     * Clears all search metrics, mutation counters and the slow-query log.
+     */
+    public static void reset() {
+        for (SearchMetrics metrics : SEARCHES.values()) {
+            metrics.reset();
+        }
+        for (MutationMetrics<?> metrics : GRAPHS.values()) {
+            metrics.reset();
+        }
+        synchronized (SLOW_QUERIES) {
+            SLOW_QUERIES.clear();
+        }
+    }
+
+    /**
+     * Registers every current and future metrics object with the platform MBean server, under names like
+     * {@code graph:type=SearchMetrics,name=Dijkstra}.
+     *
+     * @throws IllegalStateException if the MBeans cannot be registered
+     */
+    public static synchronized void registerMBeans() {
+        exported = true;
+        for (SearchMetrics metrics : SEARCHES.values()) {
+            export(metrics, "SearchMetrics", metrics.getAlgorithm());
+        }
+        for (Map.Entry<String, MutationMetrics<?>> entry : GRAPHS.entrySet()) {
+            export(entry.getValue(), "MutationMetrics", entry.getKey());
+        }
+    }
+
+    private static synchronized void export(Object metrics, String type, String name) {
+        if (!exported) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Metrics " + name + " could not be registered", e);
+        }
+    }
+}
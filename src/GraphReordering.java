@@ -0,0 +1,422 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A relabelled copy of a {@link CsrGraph} whose vertex ids follow a locality-improving order, together with
+ * the translation between the old and new ids.
+ * <p>
+ * Searches spend most of their time loading the offsets, labels and edges of the neighbours of a vertex. When
+ * neighbours have nearby ids, those loads hit the same cache lines and pages; when ids are scattered, every
+ * relaxation is a cache miss. The orders offered here put connected vertices close together:
+ * <ul>
+ * <li>{@link #reverseCuthillMcKee(CsrGraph)} numbers vertices breadth-first from a peripheral vertex of
+ * every component, visiting neighbours by increasing degree, and reverses the result, which keeps the id gap of
+ * most edges small;</li>
+ * <li>{@link #breadthFirst(CsrGraph)} numbers vertices in plain breadth-first order;</li>
+ * <li>{@link #byDegree(CsrGraph)} puts the vertices with the most edges first, so the hot hubs of a power-law
+ * graph share a few cache lines;</li>
+ * <li>{@link #hilbert(CsrGraph, ToDoubleFunction, ToDoubleFunction)} sorts geographic vertices along a Hilbert
+ * curve, so vertices that are close in space get close ids.</li>
+ * </ul>
+ * The orders treat edges as undirected. The reordered graph holds the same {@link Vertex} objects, so it can be
+ * queried with the original vertices, and every vertex keeps its edges in their original order.
+ * {@link #averageEdgeGap(CsrGraph)} measures the locality of any graph, so an order can be compared with the
+ * original one before it is adopted.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class GraphReordering<V> {
+    private static final int HILBERT_BITS = 16;
+
+    private final CsrGraph<V> graph;
+    private final int[] newToOld;
+    private final int[] oldToNew;
+
+    private GraphReordering(CsrGraph<V> graph, int[] newToOld, int[] oldToNew) {
+        this.graph = graph;
+        this.newToOld = newToOld;
+        this.oldToNew = oldToNew;
+    }
+
+    /**
+     * Relabels a graph in reverse Cuthill-McKee order.
+     *
+     * @param graph the graph to reorder
+     * @param <V>   the type of data stored in the vertices
+     * @return the reordering
+     */
+    public static <V> GraphReordering<V> reverseCuthillMcKee(CsrGraph<V> graph) {
+        int[] order = breadthFirstOrder(graph, true);
+        for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return of(graph, order);
+    }
+
+    /**
+     * Relabels a graph in breadth-first order, starting every component from its vertex with the lowest id.
+     *
+     * @param graph the graph to reorder
+     * @param <V>   the type of data stored in the vertices
+     * @return the reordering
+     */
+    public static <V> GraphReordering<V> breadthFirst(CsrGraph<V> graph) {
+        return of(graph, breadthFirstOrder(graph, false));
+    }
+
+    /**
+     * Relabels a graph by decreasing number of incoming and outgoing edges, keeping the original order among
+     * vertices of equal degree.
+     *
+     * @param graph the graph to reorder
+     * @param <V>   the type of data stored in the vertices
+     * @return the reordering
+     */
+    public static <V> GraphReordering<V> byDegree(CsrGraph<V> graph) {
+        int[] degrees = degrees(graph);
+        int[] order = sortByDegree(degrees);
+        for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        // The reversal above put equal degrees in decreasing id order; restore increasing ids within each run
+        for (int start = 0; start < order.length; ) {
+            int end = start;
+            while (end < order.length && degrees[order[end]] == degrees[order[start]]) {
+                end++;
+            }
+            for (int i = start, j = end - 1; i < j; i++, j--) {
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            start = end;
+        }
+        return of(graph, order);
+    }
+
+    /**
+     * Relabels a graph along a Hilbert curve through the coordinates of its vertices.
+     *
+     * @param graph the graph to reorder
+     * @param x     the function that extracts the x coordinate, or longitude, from the vertex data
+     * @param y     the function that extracts the y coordinate, or latitude, from the vertex data
+     * @param <V>   the type of data stored in the vertices
+     * @return the reordering
+     * @throws IllegalArgumentException if a coordinate is not finite
+     */
+    public static <V> GraphReordering<V> hilbert(CsrGraph<V> graph, ToDoubleFunction<V> x, ToDoubleFunction<V> y) {
+        int vertexCount = graph.vertexCount();
+        double[] xs = new double[vertexCount];
+        double[] ys = new double[vertexCount];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < vertexCount; v++) {
+            V data = graph.vertex(v).getData();
+            xs[v] = x.applyAsDouble(data);
+            ys[v] = y.applyAsDouble(data);
+            if (!Double.isFinite(xs[v]) || !Double.isFinite(ys[v])) {
+                throw new IllegalArgumentException("Coordinate " + (Double.isFinite(xs[v]) ? ys[v] : xs[v])
+                        + " is out of the range");
+            }
+            minX = Math.min(minX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxX = Math.max(maxX, xs[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+
+        // Map both axes onto the same grid so that the curve follows the real distances
+        int cells = 1 << HILBERT_BITS;
+        double extent = Math.max(maxX - minX, maxY - minY);
+        double scale = extent > 0 ? (cells - 1) / extent : 0;
+        long[] keys = new long[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            int cellX = (int) ((xs[v] - minX) * scale);
+            int cellY = (int) ((ys[v] - minY) * scale);
+            keys[v] = hilbertIndex(cellX, cellY) << 31 | v;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return of(graph, order);
+    }
+
+    /**
+     * Relabels a graph in an order computed elsewhere.
+     *
+     * @param graph the graph to reorder
+     * @param order the old id of every new id; every old id must appear exactly once
+     * @param <V>   the type of data stored in the vertices
+     * @return the reordering
+     * @throws IllegalArgumentException if the order is not a permutation of the vertex ids
+     */
+    public static <V> GraphReordering<V> of(CsrGraph<V> graph, int[] order) {
+        int vertexCount = graph.vertexCount();
+        if (order.length != vertexCount) {
+            throw new IllegalArgumentException("Order length " + order.length + " is out of the range");
+        }
+        int[] newToOld = order.clone();
+        int[] oldToNew = new int[vertexCount];
+        Arrays.fill(oldToNew, -1);
+        for (int i = 0; i < vertexCount; i++) {
+            int old = newToOld[i];
+            if (old < 0 || old >= vertexCount || oldToNew[old] != -1) {
+                throw new IllegalArgumentException("Vertex " + old + " is out of the range");
+            }
+            oldToNew[old] = i;
+        }
+
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < vertexCount; i++) {
+            offsets[i + 1] = offsets[i] + graph.degree(newToOld[i]);
+        }
+        int[] targets = new int[offsets[vertexCount]];
+        double[] weights = new double[targets.length];
+        List<Vertex<V>> vertices = new ArrayList<>(vertexCount);
+        Map<Vertex<V>, Integer> index = new HashMap<>(Math.max(16, (int) (vertexCount / 0.75f) + 1));
+        for (int i = 0, position = 0; i < vertexCount; i++) {
+            int old = newToOld[i];
+            Vertex<V> vertex = graph.vertex(old);
+            vertices.add(vertex);
+            index.put(vertex, i);
+            for (int e = graph.edgeStart(old), end = graph.edgeEnd(old); e < end; e++) {
+                targets[position] = oldToNew[graph.target(e)];
+                weights[position] = graph.weight(e);
+                position++;
+            }
+        }
+        return new GraphReordering<>(CsrGraph.of(vertices, index, offsets, targets, weights), newToOld, oldToNew);
+    }
+
+    /**
+     * Returns the average difference between the ids of the two ends of an edge, a measure of how far apart
+     * the data of neighbouring vertices is in memory. Lower is better.
+     *
+     * @param graph the graph to measure
+     * @return the average edge gap, or 0 for a graph without edges
+     */
+    public static double averageEdgeGap(CsrGraph<?> graph) {
+        long total = 0;
+        for (int v = 0; v < graph.vertexCount(); v++) {
+            for (int e = graph.edgeStart(v), end = graph.edgeEnd(v); e < end; e++) {
+                total += Math.abs(graph.target(e) - v);
+            }
+        }
+        return graph.edgeCount() == 0 ? 0 : (double) total / graph.edgeCount();
+    }
+
+    /**
+     * Returns the reordered graph.
+     *
+     * @return the relabelled CSR graph
+     */
+    public CsrGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the new id of a vertex.
+     *
+     * @param oldId the id of the vertex in the original graph
+     * @return the id of the vertex in the reordered graph
+     */
+    public int toNew(int oldId) {
+        return oldToNew[oldId];
+    }
+
+    /**
+     * Returns the original id of a vertex.
+     *
+     * @param newId the id of the vertex in the reordered graph
+     * @return the id of the vertex in the original graph
+     */
+    public int toOld(int newId) {
+        return newToOld[newId];
+    }
+
+    /**
+     * Returns the order of the vertices.
+     *
+     * @return a copy of the original id of every new id
+     */
+    public int[] getOrder() {
+        return newToOld.clone();
+    }
+
+    /**
+     * Numbers the vertices breadth-first over the edges in both directions, one component at a time. With
+     * degree ordering, this is the Cuthill-McKee order: components start from a pseudo-peripheral vertex found
+     * from their vertex of lowest degree, and the unnumbered neighbours of each vertex are numbered by
+     * increasing degree.
+     */
+    private static int[] breadthFirstOrder(CsrGraph<?> graph, boolean byDegree) {
+        int vertexCount = graph.vertexCount();
+        CsrGraph<?> reverse = graph.reverse();
+        int[] degrees = degrees(graph);
+        int[] candidates = byDegree ? sortByDegree(degrees) : null;
+        int[] order = new int[vertexCount];
+        boolean[] numbered = new boolean[vertexCount];
+        long[] neighbors = new long[16];
+        int count = 0;
+
+        for (int i = 0; i < vertexCount; i++) {
+            int candidate = byDegree ? candidates[i] : i;
+            if (numbered[candidate]) {
+                continue;
+            }
+            int start = byDegree ? peripheral(graph, reverse, degrees, candidate) : candidate;
+            numbered[start] = true;
+            order[count++] = start;
+            for (int head = count - 1; head < count; head++) {
+                int vertex = order[head];
+                int found = 0;
+                for (int direction = 0; direction < 2; direction++) {
+                    CsrGraph<?> edges = direction == 0 ? graph : reverse;
+                    for (int e = edges.edgeStart(vertex), end = edges.edgeEnd(vertex); e < end; e++) {
+                        int neighbor = edges.target(e);
+                        if (!numbered[neighbor]) {
+                            numbered[neighbor] = true;
+                            if (found == neighbors.length) {
+                                neighbors = Arrays.copyOf(neighbors, found * 2);
+                            }
+                            // Sorting degree and id packed together orders by degree, then by id
+                            neighbors[found++] = (long) degrees[neighbor] << 32 | neighbor;
+                        }
+                    }
+                }
+                if (byDegree) {
+                    Arrays.sort(neighbors, 0, found);
+                }
+                for (int j = 0; j < found; j++) {
+                    order[count++] = (int) neighbors[j];
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Finds a pseudo-peripheral vertex of the component of a start vertex with the George-Liu heuristic:
+     * repeatedly move to the lowest-degree vertex of the last breadth-first level while that increases the
+     * number of levels.
+     */
+    private static int peripheral(CsrGraph<?> graph, CsrGraph<?> reverse, int[] degrees, int start) {
+        long levels = levels(graph, reverse, degrees, start);
+        while (true) {
+            int next = (int) levels;
+            long nextLevels = levels(graph, reverse, degrees, next);
+            if ((nextLevels >>> 32) <= (levels >>> 32)) {
+                return start;
+            }
+            start = next;
+            levels = nextLevels;
+        }
+    }
+
+    /**
+     * Runs a breadth-first search over the edges in both directions in the workspace of the calling thread.
+     *
+     * @return the depth of the last level in the upper 32 bits and its lowest-degree vertex in the lower ones
+     */
+    private static long levels(CsrGraph<?> graph, CsrGraph<?> reverse, int[] degrees, int start) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(graph.vertexCount());
+            int[] queue = workspace.queue();
+            int head = 0;
+            int tail = 0;
+            workspace.set(start, 0, -1);
+            queue[tail++] = start;
+            int depth = 0;
+            int best = start;
+            while (head < tail) {
+                int vertex = queue[head++];
+                int vertexDepth = (int) workspace.distance(vertex);
+                if (vertexDepth > depth || vertexDepth == depth && degrees[vertex] < degrees[best]) {
+                    depth = vertexDepth;
+                    best = vertex;
+                }
+                for (int direction = 0; direction < 2; direction++) {
+                    CsrGraph<?> edges = direction == 0 ? graph : reverse;
+                    for (int e = edges.edgeStart(vertex), end = edges.edgeEnd(vertex); e < end; e++) {
+                        int neighbor = edges.target(e);
+                        if (!workspace.reached(neighbor)) {
+                            workspace.set(neighbor, vertexDepth + 1, vertex);
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                }
+            }
+            return (long) depth << 32 | best;
+        }
+    }
+
+    /**
+     * Returns the number of outgoing plus incoming edges of every vertex.
+     */
+    private static int[] degrees(CsrGraph<?> graph) {
+        CsrGraph<?> reverse = graph.reverse();
+        int[] degrees = new int[graph.vertexCount()];
+        for (int v = 0; v < degrees.length; v++) {
+            degrees[v] = graph.degree(v) + reverse.degree(v);
+        }
+        return degrees;
+    }
+
+    /**
+     * Returns the vertices sorted by increasing degree with a counting sort, keeping id order among equal
+     * degrees.
+     */
+    private static int[] sortByDegree(int[] degrees) {
+        int maxDegree = 0;
+        for (int degree : degrees) {
+            maxDegree = Math.max(maxDegree, degree);
+        }
+        int[] starts = new int[maxDegree + 2];
+        for (int degree : degrees) {
+            starts[degree + 1]++;
+        }
+        for (int d = 0; d <= maxDegree; d++) {
+            starts[d + 1] += starts[d];
+        }
+        int[] sorted = new int[degrees.length];
+        for (int v = 0; v < degrees.length; v++) {
+            sorted[starts[degrees[v]]++] = v;
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the position of a cell on the Hilbert curve that fills the grid of {@code 2^HILBERT_BITS} cells
+     * per side.
+     */
+    private static long hilbertIndex(int x, int y) {
+        long index = 0;
+        for (int half = 1 << (HILBERT_BITS - 1); half > 0; half >>= 1) {
+            int rx = (x & half) > 0 ? 1 : 0;
+            int ry = (y & half) > 0 ? 1 : 0;
+            index += (long) half * half * ((3 * rx) ^ ry);
+            // Rotate the quadrant so that the curve stays continuous
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = half - 1 - x;
+                    y = half - 1 - y;
+                }
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,300 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A graph shared between many concurrent readers and a single writer.
+ * <p>
+ * Readers call {@link #snapshot()} and search the returned immutable {@link CsrGraph}; they never block and
+ * always see a consistent version, even while mutations are being applied. The writer collects mutations in
+ * a {@link Batch} and commits it, which applies the batch to a private {@link WeightedGraph} and atomically
+ * publishes a new snapshot. Batches that only change edge weights copy the weight array of the current
+ * snapshot and share its vertex table and adjacency, so live weight feeds do not rebuild the graph. A batch
+ * is checked against the current snapshot before any of it is applied, so a batch that refers to a missing
+ * vertex or edge publishes nothing and readers keep the previous snapshot.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class GraphStore<V> {
+    private final WeightedGraph<V> master;
+    private final AtomicReference<Published<V>> published;
+    private final Object writeLock = new Object();
+
+    /**
+     * Constructs an empty store.
+     */
+    public GraphStore() {
+        this(new WeightedGraph<>());
+    }
+
+    /**
+     * Constructs a store that takes ownership of the specified graph.
+     * <p>
+     * The graph must not be modified by the caller afterwards; all mutations go through batches.
+     *
+     * @param graph the initial graph
+     */
+    public GraphStore(WeightedGraph<V> graph) {
+        this.master = graph;
+        this.published = new AtomicReference<>(new Published<>(graph.freeze(), 0));
+    }
+
+    /**
+     * Returns the latest published snapshot. This never blocks.
+     *
+     * @return the current immutable graph
+     */
+    public CsrGraph<V> snapshot() {
+        return published.get().graph;
+    }
+
+    /**
+     * Returns the version of the latest published snapshot, which increases with every committed batch.
+     *
+     * @return the current version
+     */
+    public long version() {
+        return published.get().version;
+    }
+
+    /**
+     * Starts a new batch of mutations.
+     *
+     * @return an empty batch
+     */
+    public Batch beginBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Applies the mutations of a batch to the master graph and publishes the resulting snapshot.
+     */
+    private void commit(List<Mutation<V>> mutations, boolean structural) {
+        synchronized (writeLock) {
+            Published<V> current = published.get();
+            CsrGraph<V> graph = current.graph;
+            // The master graph applies mutations one at a time, so check them all before it sees the first
+            new Check<>(graph).run(mutations);
+            double[] weights = structural ? null : graph.copyWeights();
+            for (Mutation<V> mutation : mutations) {
+                mutation.apply(master, graph, weights);
+            }
+            CsrGraph<V> next = structural ? master.freeze() : graph.withWeights(weights);
+            published.set(new Published<>(next, current.version + 1));
+        }
+    }
+
+    /**
+     * A batch of mutations that becomes visible to readers atomically when committed.
+     * <p>
+     * A batch is meant to be filled and committed by one thread.
+     */
+    public class Batch {
+        private final List<Mutation<V>> mutations = new ArrayList<>();
+        private boolean structural;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds a vertex to the graph.
+         *
+         * @param vertex the vertex to add
+         * @return this batch
+         */
+        public Batch addVertex(Vertex<V> vertex) {
+            structural = true;
+            mutations.add(new Mutation<>(Mutation.ADD_VERTEX, vertex, null, 0.0));
+            return this;
+        }
+
+        /**
+         * Adds an edge with the specified source, destination, and weight to the graph.
+         *
+         * @param source      the source vertex of the edge
+         * @param destination the destination vertex of the edge
+         * @param weight      the weight associated with the edge
+         * @return this batch
+         */
+        public Batch addEdge(Vertex<V> source, Vertex<V> destination, double weight) {
+            structural = true;
+            mutations.add(new Mutation<>(Mutation.ADD_EDGE, source, destination, weight));
+            return this;
+        }
+
+        /**
+         * Removes the first edge from the source vertex to the destination vertex.
+         *
+         * @param source      the source vertex of the edge
+         * @param destination the destination vertex of the edge
+         * @return this batch
+         */
+        public Batch removeEdge(Vertex<V> source, Vertex<V> destination) {
+            structural = true;
+            mutations.add(new Mutation<>(Mutation.REMOVE_EDGE, source, destination, 0.0));
+            return this;
+        }
+
+        /**
+         * Sets the weight of the first edge from the source vertex to the destination vertex.
+         *
+         * @param source      the source vertex of the edge
+         * @param destination the destination vertex of the edge
+         * @param weight      the new weight of the edge
+         * @return this batch
+         */
+        public Batch setEdgeWeight(Vertex<V> source, Vertex<V> destination, double weight) {
+            mutations.add(new Mutation<>(Mutation.SET_EDGE_WEIGHT, source, destination, weight));
+            return this;
+        }
+
+        /**
+         * Applies the batch and publishes a new snapshot.
+         *
+         * @throws IllegalArgumentException if a mutation refers to a missing vertex or edge, or a weight is NaN;
+         *                                  nothing of the batch is then applied or published
+         */
+        public void commit() {
+            GraphStore.this.commit(mutations, structural);
+        }
+    }
+
+    /**
+     * One mutation of a batch.
+     */
+    private static final class Mutation<V> {
+        static final int ADD_VERTEX = 0;
+        static final int ADD_EDGE = 1;
+        static final int REMOVE_EDGE = 2;
+        static final int SET_EDGE_WEIGHT = 3;
+
+        private final int kind;
+        private final Vertex<V> source;
+        private final Vertex<V> destination;
+        private final double weight;
+
+        Mutation(int kind, Vertex<V> source, Vertex<V> destination, double weight) {
+            this.kind = kind;
+            this.source = source;
+            this.destination = destination;
+            this.weight = weight;
+        }
+
+        /**
+         * Applies the mutation to the master graph. The weights array is only present for batches without
+         * structural changes, and is updated along with the master.
+         */
+        void apply(WeightedGraph<V> graph, CsrGraph<V> snapshot, double[] weights) {
+            switch (kind) {
+                case ADD_VERTEX:
+                    graph.addVertex(source);
+                    break;
+                case ADD_EDGE:
+                    graph.addEdge(source, destination, weight);
+                    break;
+                case REMOVE_EDGE:
+                    graph.removeEdge(source, destination);
+                    break;
+                default:
+                    graph.setEdgeWeight(source, destination, weight);
+                    if (weights != null) {
+                        weights[snapshot.edgeIndex(snapshot.indexOf(source), snapshot.indexOf(destination))] = weight;
+                    }
+            }
+        }
+    }
+
+    /**
+     * Replays a batch against the vertex and edge counts it would produce, starting from the current snapshot,
+     * and fails on the first mutation the master graph would refuse.
+     */
+    private static final class Check<V> {
+        private final CsrGraph<V> snapshot;
+        private final Map<Vertex<V>, Integer> addedVertices = new IdentityHashMap<>();
+        private final IntSet clearedVertices = new IntSet();
+        private final Map<Long, Integer> edgeCounts = new HashMap<>();
+
+        Check(CsrGraph<V> snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        void run(List<Mutation<V>> mutations) {
+            for (Mutation<V> mutation : mutations) {
+                if (mutation.kind == Mutation.ADD_VERTEX) {
+                    addVertex(mutation.source);
+                    continue;
+                }
+                long edge = edge(indexOf(mutation.source), indexOf(mutation.destination));
+                int count = edgeCounts.computeIfAbsent(edge, this::initialCount);
+                if (mutation.kind != Mutation.REMOVE_EDGE && Double.isNaN(mutation.weight)) {
+                    throw new IllegalArgumentException("Edge weight " + mutation.weight + " is out of the range");
+                }
+                if (mutation.kind == Mutation.ADD_EDGE) {
+                    edgeCounts.put(edge, count + 1);
+                } else if (count == 0) {
+                    throw new IllegalArgumentException("Edge " + mutation.source + " -> " + mutation.destination
+                            + " is out of the range");
+                } else if (mutation.kind == Mutation.REMOVE_EDGE) {
+                    edgeCounts.put(edge, count - 1);
+                }
+            }
+        }
+
+        /**
+         * Records a new vertex, or the outgoing edges an existing vertex drops when it is added again.
+         */
+        private void addVertex(Vertex<V> vertex) {
+            if (!snapshot.containsVertex(vertex) && !addedVertices.containsKey(vertex)) {
+                addedVertices.put(vertex, snapshot.vertexCount() + addedVertices.size());
+                return;
+            }
+            int id = indexOf(vertex);
+            clearedVertices.add(id);
+            edgeCounts.keySet().removeIf(edge -> (int) (edge >>> 32) == id);
+        }
+
+        private int indexOf(Vertex<V> vertex) {
+            Integer added = addedVertices.get(vertex);
+            return added != null ? added : snapshot.indexOf(vertex);
+        }
+
+        /**
+         * Counts the parallel edges of a pair in the snapshot, which new and cleared vertices no longer have.
+         */
+        private int initialCount(long edge) {
+            int source = (int) (edge >>> 32);
+            int target = (int) edge;
+            if (source >= snapshot.vertexCount() || target >= snapshot.vertexCount()
+                    || clearedVertices.contains(source)) {
+                return 0;
+            }
+            int count = 0;
+            for (int e = snapshot.edgeStart(source), end = snapshot.edgeEnd(source); e < end; e++) {
+                if (snapshot.target(e) == target) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static long edge(int source, int target) {
+            return (long) source << 32 | target;
+        }
+    }
+
+    /**
+     * A snapshot together with its version, published as one reference.
+     */
+    private static final class Published<V> {
+        private final CsrGraph<V> graph;
+        private final long version;
+
+        Published(CsrGraph<V> graph, long version) {
+            this.graph = graph;
+            this.version = version;
+        }
+    }
+}
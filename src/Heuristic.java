@@ -0,0 +1,40 @@
+/**
+ * Estimates the remaining cost from a vertex to a target vertex for informed searches such as {@link AStarSearch}.
+ * <p>
+ * The estimate must never exceed the true shortest-path distance (admissible) for the search to return
+ * shortest paths. Consistent heuristics, whose estimate drops by at most the weight of each edge, also
+ * guarantee that every vertex is settled at most once.
+ * <p>
+ * Searches call the heuristic while they hold the {@link SearchWorkspace} of the calling thread, so an estimate
+ * must not run a search such as {@link BFS} or {@link DijkstraSearch} on the same thread; that search would
+ * fail with an {@link IllegalStateException}. Heuristics that need distances should precompute them, like
+ * {@link LandmarkHeuristic}.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+@FunctionalInterface
+public interface Heuristic<V> {
+    /**
+     * Estimates the shortest-path distance from a vertex to the target.
+     *
+     * @param vertex the vertex to estimate from
+     * @param target the target vertex of the search
+     * @return a lower bound on the distance from the vertex to the target
+     */
+    double estimate(Vertex<V> vertex, Vertex<V> target);
+
+    /**
+     * Estimates the shortest-path distance between two vertex ids of a CSR graph.
+     * <p>
+     * Searches call this form in their inner loop. Heuristics that are precomputed per vertex id can
+     * override it to skip the vertex lookups.
+     *
+     * @param graph  the graph being searched
+     * @param vertex the id of the vertex to estimate from
+     * @param target the id of the target vertex of the search
+     * @return a lower bound on the distance from the vertex to the target
+     */
+    default double estimate(CsrGraph<V> graph, int vertex, int target) {
+        return estimate(graph.vertex(vertex), graph.vertex(target));
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Built-in heuristics for geo-embedded and planar vertex data.
+ */
+public final class Heuristics {
+    /**
+     * The mean radius of the Earth in metres.
+     */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private Heuristics() {
+    }
+
+    /**
+     * Returns a heuristic that always estimates zero, which makes A* behave like Dijkstra's algorithm.
+     *
+     * @param <V> the type of data stored in the vertices
+     * @return the zero heuristic
+     */
+    public static <V> Heuristic<V> zero() {
+        return (vertex, target) -> 0.0;
+    }
+
+    /**
+     * Returns the straight-line distance between planar coordinates of the vertex data.
+     * <p>
+     * The heuristic is admissible when every edge weight is at least the Euclidean distance between its endpoints.
+     *
+     * @param x   extracts the x coordinate from the vertex data
+     * @param y   extracts the y coordinate from the vertex data
+     * @param <V> the type of data stored in the vertices
+     * @return the Euclidean heuristic
+     */
+    public static <V> Heuristic<V> euclidean(ToDoubleFunction<V> x, ToDoubleFunction<V> y) {
+        return (vertex, target) -> {
+            double dx = x.applyAsDouble(vertex.getData()) - x.applyAsDouble(target.getData());
+            double dy = y.applyAsDouble(vertex.getData()) - y.applyAsDouble(target.getData());
+            return Math.sqrt(dx * dx + dy * dy);
+        };
+    }
+
+    /**
+     * Returns the great-circle distance in metres between latitude and longitude coordinates of the vertex data.
+     * <p>
+     * The heuristic is admissible when edge weights are lengths in metres along the surface of the Earth.
+     *
+     * @param latitude  extracts the latitude in degrees from the vertex data
+     * @param longitude extracts the longitude in degrees from the vertex data
+     * @param <V>       the type of data stored in the vertices
+     * @return the haversine heuristic
+     */
+    public static <V> Heuristic<V> haversine(ToDoubleFunction<V> latitude, ToDoubleFunction<V> longitude) {
+        return scaled(haversineRadians(latitude, longitude), EARTH_RADIUS_METERS);
+    }
+
+    /**
+     * Returns a heuristic that multiplies the estimates of another heuristic by a constant factor.
+     * <p>
+     * Scaling a distance heuristic by the reciprocal of the maximum speed turns it into a travel-time
+     * heuristic; factors above one trade optimality for fewer explored vertices. Both forms of
+     * {@link Heuristic#estimate} are delegated, so a scaled heuristic keeps the per-id estimates of a
+     * precomputed one such as {@link LandmarkHeuristic}.
+     *
+     * @param heuristic the heuristic to scale
+     * @param factor    the factor to multiply the estimates by
+     * @param <V>       the type of data stored in the vertices
+     * @return the scaled heuristic
+     */
+    public static <V> Heuristic<V> scaled(Heuristic<V> heuristic, double factor) {
+        return new Heuristic<V>() {
+            @Override
+            public double estimate(Vertex<V> vertex, Vertex<V> target) {
+                return heuristic.estimate(vertex, target) * factor;
+            }
+
+            @Override
+            public double estimate(CsrGraph<V> graph, int vertex, int target) {
+                return heuristic.estimate(graph, vertex, target) * factor;
+            }
+        };
+    }
+
+    /**
+     * Returns the central angle in radians between latitude and longitude coordinates of the vertex data.
+     */
+    private static <V> Heuristic<V> haversineRadians(ToDoubleFunction<V> latitude, ToDoubleFunction<V> longitude) {
+        return (vertex, target) -> {
+            double lat1 = Math.toRadians(latitude.applyAsDouble(vertex.getData()));
+            double lat2 = Math.toRadians(latitude.applyAsDouble(target.getData()));
+            double dLat = lat2 - lat1;
+            double dLon = Math.toRadians(longitude.applyAsDouble(target.getData())
+                    - longitude.applyAsDouble(vertex.getData()));
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            return 2 * Math.asin(Math.min(1.0, Math.sqrt(a)));
+        };
+    }
+}
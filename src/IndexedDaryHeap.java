@@ -0,0 +1,265 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min-heap of integer ids ordered by primitive double keys.
+ * <p>
+ * Each id appears at most once, and its key can be lowered in place with {@link #decreaseKey(int, double)},
+ * so a shortest-path search never holds stale entries and the heap never grows beyond the number of ids.
+ * All storage is preallocated; once sized, no operation allocates.
+ */
+public class IndexedDaryHeap {
+    private static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    private int[] heap;
+    private int[] positions;
+    private double[] keys;
+    private int size;
+
+    /**
+     * Constructs a 4-ary heap for ids in the range {@code 0..capacity-1}.
+     *
+     * @param capacity the number of distinct ids the heap can hold
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Constructs a heap with the specified arity for ids in the range {@code 0..capacity-1}.
+     *
+     * @param capacity the number of distinct ids the heap can hold
+     * @param arity    the number of children of each heap node
+     * @throws IllegalArgumentException if the arity is less than 2
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity " + arity + " is out of the range");
+        }
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Grows the heap so that it can hold ids in the range {@code 0..capacity-1}.
+     *
+     * @param capacity the required capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) {
+            return;
+        }
+        int oldCapacity = positions.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldCapacity, capacity, -1);
+    }
+
+    /**
+     * Returns the number of ids the heap can hold.
+     *
+     * @return the capacity of the heap
+     */
+    public int capacity() {
+        return positions.length;
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     *
+     * @return the size of the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the heap is empty.
+     *
+     * @return true if the heap contains no ids, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the heap contains the specified id.
+     *
+     * @param id the id to check
+     * @return true if the id is in the heap, false otherwise
+     */
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    /**
+     * Returns the key of an id in the heap.
+     *
+     * @param id the id to look up
+     * @return the current key of the id
+     * @throws NoSuchElementException if the id is not in the heap
+     */
+    public double key(int id) {
+        if (positions[id] < 0) {
+            throw new NoSuchElementException("Id " + id + " is not in the heap");
+        }
+        return keys[id];
+    }
+
+    /**
+     * Inserts an id with the specified key.
+     *
+     * @param id  the id to insert
+     * @param key the key of the id
+     * @throws IllegalArgumentException if the id is already in the heap
+     */
+    public void insert(int id, double key) {
+        if (positions[id] >= 0) {
+            throw new IllegalArgumentException("Id " + id + " is already in the heap");
+        }
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of an id in the heap.
+     *
+     * @param id  the id to update
+     * @param key the new key
+     * @return true if the key was lowered, false if the new key is not smaller than the current one
+     * @throws NoSuchElementException if the id is not in the heap
+     */
+    public boolean decreaseKey(int id, double key) {
+        int position = positions[id];
+        if (position < 0) {
+            throw new NoSuchElementException("Id " + id + " is not in the heap");
+        }
+        if (key >= keys[id]) {
+            return false;
+        }
+        keys[id] = key;
+        siftUp(position);
+        return true;
+    }
+
+    /**
+     * Inserts an id, or lowers its key if it is already in the heap.
+     *
+     * @param id  the id to insert or update
+     * @param key the key of the id
+     * @return true if the heap changed, false if the id was present with a key that is not larger
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        if (positions[id] < 0) {
+            insert(id, key);
+            return true;
+        }
+        return decreaseKey(id, key);
+    }
+
+    /**
+     * Returns the id with the smallest key without removing it.
+     *
+     * @return the id with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Returns the smallest key in the heap.
+     *
+     * @return the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double minKey() {
+        return keys[peekMin()];
+    }
+
+    /**
+     * Removes and returns the id with the smallest key.
+     *
+     * @return the id with the smallest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int pollMin() {
+        int min = peekMin();
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes all ids from the heap in time proportional to its size.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        while (position > 0) {
+            int parentPosition = (position - 1) / arity;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        double key = keys[id];
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + arity, size);
+            int minPosition = firstChild;
+            double minKey = keys[heap[firstChild]];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                double childKey = keys[heap[child]];
+                if (childKey < minKey) {
+                    minPosition = child;
+                    minKey = childKey;
+                }
+            }
+            if (minKey >= key) {
+                break;
+            }
+            int child = heap[minPosition];
+            heap[position] = child;
+            positions[child] = position;
+            position = minPosition;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+
+/**
+ * A map from non-negative int keys, such as vertex ids, to primitive double values.
+ * <p>
+ * Entries live in two parallel arrays with open addressing and linear probing, so lookups neither box keys or
+ * values nor allocate entry objects. Removal shifts the following entries of the probe run back instead of
+ * leaving tombstones. The table is at most half full and doubles when it grows past that.
+ */
+public class IntDoubleMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs an empty map.
+     */
+    public IntDoubleMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty map pre-sized for the expected number of entries.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntDoubleMap(int expectedSize) {
+        allocate(IntSet.tableSize(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key          the key to look up
+     * @param defaultValue the value to return if the key is absent
+     * @return the value of the key, or the default value
+     */
+    public double get(int key, double defaultValue) {
+        for (int slot = IntSet.slot(key, mask); ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Checks if the map contains a key.
+     *
+     * @param key the key to check
+     * @return true if the key is present, false otherwise
+     */
+    public boolean containsKey(int key) {
+        for (int slot = IntSet.slot(key, mask); ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   the key, which must not be negative
+     * @param value the value of the key
+     * @throws IllegalArgumentException if the key is negative
+     */
+    public void put(int key, double value) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key " + key + " is out of the range");
+        }
+        int slot = IntSet.slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) >> 1) {
+            rehash();
+        }
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key to remove
+     * @return true if the key was present, false otherwise
+     */
+    public boolean remove(int key) {
+        int slot = IntSet.slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move every later entry of the run whose home slot is not after the gap into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = IntSet.slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map has no entries.
+     *
+     * @return true if the map is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries, keeping the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Calls the visitor for every entry, in no particular order.
+     *
+     * @param visitor the visitor of the entries
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                visitor.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = IntSet.slot(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Receives the entries of an {@link IntDoubleMap}.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Receives one entry.
+         *
+         * @param key   the key of the entry
+         * @param value the value of the entry
+         */
+        void accept(int key, double value);
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * A set of non-negative int keys, such as vertex ids.
+ * <p>
+ * Keys live in one array with open addressing and linear probing, like {@link IntDoubleMap} and
+ * {@link IntIntMap}, so membership tests neither box keys nor allocate nodes.
+ */
+public class IntSet {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int size;
+    private int mask;
+
+    /**
+     * Constructs an empty set.
+     */
+    public IntSet() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty set pre-sized for the expected number of keys.
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public IntSet(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    /**
+     * Returns the table capacity for the expected number of keys: a power of two at least twice as large.
+     *
+     * @param expectedSize the expected number of keys
+     * @return the table capacity
+     */
+    static int tableSize(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > 1 << 29) {
+            throw new IllegalArgumentException("Size " + expectedSize + " is out of the range");
+        }
+        return Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+
+    /**
+     * Returns the home slot of a key. Dense ids are scattered with a multiplicative hash so that runs of
+     * consecutive keys do not form long probe sequences.
+     *
+     * @param key  the key
+     * @param mask the table capacity minus one
+     * @return the home slot of the key
+     */
+    static int slot(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Checks if the set contains a key.
+     *
+     * @param key the key to check
+     * @return true if the key is present, false otherwise
+     */
+    public boolean contains(int key) {
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            int current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key, which must not be negative
+     * @return true if the key was added, false if it was already present
+     * @throws IllegalArgumentException if the key is negative
+     */
+    public boolean add(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Key " + key + " is out of the range");
+        }
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > (mask + 1) >> 1) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key to remove
+     * @return true if the key was present, false otherwise
+     */
+    public boolean remove(int key) {
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Move every later key of the run whose home slot is not after the gap into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the set has no keys.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys, keeping the table.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Returns the keys in an array, in no particular order.
+     *
+     * @return the keys
+     */
+    public int[] toArray() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        allocate(oldKeys.length * 2);
+        for (int key : oldKeys) {
+            if (key != EMPTY) {
+                int slot = slot(key, mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+}
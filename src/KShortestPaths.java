@@ -0,0 +1,450 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Alternative routes between two vertices: the k shortest simple paths, and penalty-based alternatives.
+ * <p>
+ * {@link #findPaths(Vertex, Vertex, int)} implements Yen's algorithm with Lawler's refinement, so each new path
+ * is only spurred from the vertex where it left its parent onwards. Every query first builds the shortest-path
+ * tree towards the destination with one Dijkstra search over {@link CsrGraph#reverse()}, and all spur searches
+ * reuse it twice. When the tree path from a spur vertex avoids the root path and the removed edges, it is the
+ * spur path and no search runs at all, which is the common case on road-like graphs. Otherwise the spur search
+ * is an A* search that uses the tree distances as its heuristic; removing vertices and edges only makes paths
+ * longer, so the heuristic stays admissible and consistent and the search explores little beyond the answer.
+ * The spur searches of one path are independent and run in parallel on a ForkJoin pool, each with the heap
+ * and labels of its worker thread.
+ * <p>
+ * {@link #findAlternatives(Vertex, Vertex, int, double)} repeatedly finds the shortest path and then makes the
+ * edges of the found path more expensive, which yields routes that share fewer edges than the k shortest paths,
+ * which often differ only by a small detour.
+ * <p>
+ * Routes are sequences of vertices; parallel edges between the same vertices count as one, with the smallest
+ * weight. Edge weights must be non-negative.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class KShortestPaths<V> {
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Constructs a KShortestPaths object with the specified weighted graph, using the common ForkJoin pool.
+     *
+     * @param graph the weighted graph to search
+     */
+    public KShortestPaths(WeightedGraph<V> graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a KShortestPaths object with the specified weighted graph and pool.
+     *
+     * @param graph the weighted graph to search
+     * @param pool  the pool that runs the spur searches
+     */
+    public KShortestPaths(WeightedGraph<V> graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a KShortestPaths object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to search
+     * @param pool     the pool that runs the spur searches
+     */
+    public KShortestPaths(CsrGraph<V> snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        CsrGraph<V> csr = graph != null ? graph.freeze() : snapshot;
+        if (csr.minWeight() < 0) {
+            throw new IllegalArgumentException("Edge weight " + csr.minWeight() + " is out of the range");
+        }
+        return csr;
+    }
+
+    /**
+     * Finds the k shortest simple paths from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param k           the number of paths to find
+     * @return up to k routes without repeated vertices, by increasing cost; empty if the destination is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph, k is not positive or an edge
+     *                                  weight is negative
+     */
+    public List<Route<V>> findPaths(Vertex<V> source, Vertex<V> destination, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Path count " + k + " is out of the range");
+        }
+        CsrGraph<V> csr = csr();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        Tree tree = new Tree(csr, to);
+        if (tree.distances[from] == Double.POSITIVE_INFINITY) {
+            return new ArrayList<>();
+        }
+        double[] weights = csr.copyWeights();
+
+        List<Path> accepted = new ArrayList<>();
+        PriorityQueue<Path> candidates = new PriorityQueue<>();
+        Set<Path> seen = new HashSet<>();
+        Path first = tree.pathFrom(csr, weights, new int[0], new double[1], from);
+        accepted.add(first);
+        seen.add(first);
+
+        while (accepted.size() < k) {
+            Path last = accepted.get(accepted.size() - 1);
+            int spurCount = last.vertices.length - 1 - last.deviation;
+            Path[] spurs = new Path[Math.max(0, spurCount)];
+            List<Path> previous = new ArrayList<>(accepted);
+            invoke(spurs.length, i -> spurs[i] = spur(csr, weights, tree, last, last.deviation + i, previous));
+            for (Path spur : spurs) {
+                if (spur != null && seen.add(spur)) {
+                    candidates.add(spur);
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.poll());
+        }
+
+        List<Route<V>> routes = new ArrayList<>(accepted.size());
+        for (Path path : accepted) {
+            routes.add(new Route<>(csr, path.vertices, path.cost));
+        }
+        return routes;
+    }
+
+    /**
+     * Finds alternative routes with the penalty method.
+     * <p>
+     * The first route is the shortest path. After each route is found, the weight of every edge on it is
+     * multiplied by {@code 1 + penalty} for the following searches, so later routes avoid the edges already
+     * used unless the detour costs more than the penalty. Searches that find an already returned route still
+     * raise its weights; the method gives up after {@code 4 * k} searches.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param k           the number of routes to find
+     * @param penalty     the relative weight increase of a used edge, for example 0.3
+     * @return up to k distinct routes in the order they were found, with their costs under the original
+     *         weights; empty if the destination is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph, k or the penalty is not
+     *                                  positive, or an edge weight is negative
+     */
+    public List<Route<V>> findAlternatives(Vertex<V> source, Vertex<V> destination, int k, double penalty) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Path count " + k + " is out of the range");
+        }
+        if (!(penalty > 0) || Double.isInfinite(penalty)) {
+            throw new IllegalArgumentException("Penalty " + penalty + " is out of the range");
+        }
+        CsrGraph<V> csr = csr();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        Tree tree = new Tree(csr, to);
+        List<Route<V>> routes = new ArrayList<>();
+        if (tree.distances[from] == Double.POSITIVE_INFINITY) {
+            return routes;
+        }
+        double[] original = csr.copyWeights();
+        double[] weights = original.clone();
+
+        Set<Path> seen = new HashSet<>();
+        Scratch state = scratch.get();
+        for (int search = 0; search < 4 * k && routes.size() < k; search++) {
+            state.block(csr.vertexCount());
+            Path path = search(csr, weights, tree, new int[0], new double[1], from, new int[0], state);
+            int[] vertices = path.vertices;
+            if (seen.add(path)) {
+                double cost = 0.0;
+                for (int i = 0; i + 1 < vertices.length; i++) {
+                    cost += original[lightestEdge(csr, weights, vertices[i], vertices[i + 1])];
+                }
+                routes.add(new Route<>(csr, vertices, cost));
+            }
+            for (int i = 0; i + 1 < vertices.length; i++) {
+                for (int e = csr.edgeStart(vertices[i]), end = csr.edgeEnd(vertices[i]); e < end; e++) {
+                    if (csr.target(e) == vertices[i + 1]) {
+                        weights[e] *= 1 + penalty;
+                    }
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Finds the shortest path that leaves the given path at one of its vertices.
+     *
+     * @param index    the position of the spur vertex on the path
+     * @param accepted the paths found so far, whose next edges from the same root are removed
+     * @return the spur path joined to its root, or null if there is none
+     */
+    private Path spur(CsrGraph<V> csr, double[] weights, Tree tree, Path path, int index, List<Path> accepted) {
+        Scratch state = scratch.get();
+        int[] vertices = path.vertices;
+        int spurVertex = vertices[index];
+
+        // Remove the edge that every accepted path with the same root takes out of the spur vertex
+        int[] removed = new int[accepted.size()];
+        int removedCount = 0;
+        for (Path other : accepted) {
+            if (other.vertices.length > index + 1 && other.hasPrefix(vertices, index + 1)) {
+                removed[removedCount++] = other.vertices[index + 1];
+            }
+        }
+
+        // Remove the root vertices so that the spur path cannot loop back through them
+        state.block(csr.vertexCount());
+        for (int i = 0; i < index; i++) {
+            state.blocked[vertices[i]] = state.generation;
+        }
+        int[] root = Arrays.copyOf(vertices, index);
+        double[] rootCosts = Arrays.copyOf(path.prefixCost, index + 1);
+
+        // The tree path from the spur vertex is the shortest possible, so it is the answer if it is allowed
+        int next = tree.next[spurVertex];
+        if (next != -1 && !contains(removed, removedCount, next)) {
+            boolean allowed = true;
+            for (int v = next; v != -1; v = tree.next[v]) {
+                if (state.blocked[v] == state.generation) {
+                    allowed = false;
+                    break;
+                }
+            }
+            if (allowed) {
+                return tree.pathFrom(csr, weights, root, rootCosts, spurVertex);
+            }
+        }
+        return search(csr, weights, tree, root, rootCosts, spurVertex, Arrays.copyOf(removed, removedCount), state);
+    }
+
+    /**
+     * Runs an A* search from the spur vertex to the target of the tree, guided by the distances of the tree and
+     * skipping the blocked vertices of the scratch state and the removed first edges.
+     *
+     * @param root      the vertices before the spur vertex
+     * @param rootCosts the cost of every root prefix, followed by the cost up to the spur vertex
+     * @return the path found joined to its root, or null if the target is unreachable
+     */
+    private Path search(CsrGraph<V> csr, double[] weights, Tree tree, int[] root, double[] rootCosts,
+                        int spurVertex, int[] removed, Scratch state) {
+        DistanceLabels labels = state.labels = DijkstraSearch.prepare(state.labels, csr.vertexCount());
+        IndexedDaryHeap queue = state.queue = DijkstraSearch.prepare(state.queue, csr.vertexCount());
+        int generation = state.generation;
+        int[] blocked = state.blocked;
+        double[] heuristic = tree.distances;
+        int target = tree.target;
+        double rootCost = rootCosts[root.length];
+
+        labels.set(spurVertex, 0.0, -1);
+        queue.insert(spurVertex, heuristic[spurVertex]);
+        while (!queue.isEmpty()) {
+            int currentVertex = queue.pollMin();
+            if (currentVertex == target) {
+                int length = 0;
+                for (int v = target; v != -1; v = labels.parent(v)) {
+                    length++;
+                }
+                int[] vertices = Arrays.copyOf(root, root.length + length);
+                double[] prefixCost = Arrays.copyOf(rootCosts, vertices.length);
+                int position = vertices.length;
+                for (int v = target; v != -1; v = labels.parent(v)) {
+                    vertices[--position] = v;
+                    prefixCost[position] = rootCost + labels.distance(v);
+                }
+                return new Path(vertices, prefixCost, root.length);
+            }
+            double currentDistance = labels.distance(currentVertex);
+            for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                int neighborVertex = csr.target(e);
+                if (blocked[neighborVertex] == generation || heuristic[neighborVertex] == Double.POSITIVE_INFINITY
+                        || currentVertex == spurVertex && contains(removed, removed.length, neighborVertex)) {
+                    continue;
+                }
+                double distanceThroughCurrent = currentDistance + weights[e];
+                if (distanceThroughCurrent < labels.distance(neighborVertex)) {
+                    labels.set(neighborVertex, distanceThroughCurrent, currentVertex);
+                    queue.insertOrDecrease(neighborVertex, distanceThroughCurrent + heuristic[neighborVertex]);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lightest edge from one vertex to another under the given weights.
+     */
+    private static int lightestEdge(CsrGraph<?> csr, double[] weights, int source, int target) {
+        int best = -1;
+        for (int e = csr.edgeStart(source), end = csr.edgeEnd(source); e < end; e++) {
+            if (csr.target(e) == target && (best == -1 || weights[e] < weights[best])) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    private void invoke(int count, IntConsumer action) {
+        if (count <= 1) {
+            IntStream.range(0, count).forEach(action);
+            return;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("K shortest paths search was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                // ForkJoin re-creates exceptions thrown by other workers around the original
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("K shortest paths search failed", cause);
+        }
+    }
+
+    /**
+     * The shortest-path tree towards the destination: the distance of every vertex to it and the next vertex
+     * on the way.
+     */
+    private static final class Tree {
+        private final int target;
+        private final double[] distances;
+        private final int[] next;
+
+        Tree(CsrGraph<?> csr, int target) {
+            this.target = target;
+            this.distances = new double[csr.vertexCount()];
+            this.next = new int[csr.vertexCount()];
+            DijkstraSearch.shortestPaths(csr.reverse(), target, distances, next,
+                    new IndexedDaryHeap(csr.vertexCount()));
+        }
+
+        /**
+         * Joins a root path to the tree path from the spur vertex.
+         *
+         * @param root      the vertices before the spur vertex
+         * @param rootCosts the cost of every root prefix, followed by the cost up to the spur vertex
+         * @param vertex    the spur vertex
+         */
+        Path pathFrom(CsrGraph<?> csr, double[] weights, int[] root, double[] rootCosts, int vertex) {
+            int length = 0;
+            for (int v = vertex; v != -1; v = next[v]) {
+                length++;
+            }
+            int[] vertices = Arrays.copyOf(root, root.length + length);
+            double[] prefixCost = Arrays.copyOf(rootCosts, vertices.length);
+            double cost = rootCosts[root.length];
+            int position = root.length;
+            for (int v = vertex; v != -1; v = next[v]) {
+                if (position > root.length) {
+                    cost += weights[lightestEdge(csr, weights, vertices[position - 1], v)];
+                }
+                vertices[position] = v;
+                prefixCost[position] = cost;
+                position++;
+            }
+            return new Path(vertices, prefixCost, root.length);
+        }
+    }
+
+    /**
+     * A simple path with the cost of each of its prefixes and the position where it left the path it was
+     * spurred from. Paths are equal when they visit the same vertices.
+     */
+    private static final class Path implements Comparable<Path> {
+        private final int[] vertices;
+        private final double[] prefixCost;
+        private final int deviation;
+        private final double cost;
+        private final int hash;
+
+        Path(int[] vertices, double[] prefixCost, int deviation) {
+            this.vertices = vertices;
+            this.prefixCost = prefixCost;
+            this.deviation = deviation;
+            this.cost = prefixCost[vertices.length - 1];
+            this.hash = Arrays.hashCode(vertices);
+        }
+
+        boolean hasPrefix(int[] other, int length) {
+            return Arrays.equals(vertices, 0, length, other, 0, length);
+        }
+
+        @Override
+        public int compareTo(Path other) {
+            int result = Double.compare(cost, other.cost);
+            return result != 0 ? result : Integer.compare(vertices.length, other.vertices.length);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Path && Arrays.equals(vertices, ((Path) other).vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The heap, labels and blocked-vertex stamps of one thread, reused by all of its spur searches.
+     */
+    private static class Scratch {
+        private IndexedDaryHeap queue;
+        private DistanceLabels labels;
+        private int[] blocked;
+        private int generation;
+
+        /**
+         * Starts a new set of blocked vertices, clearing the stamps only when the generation wraps around.
+         */
+        void block(int vertexCount) {
+            if (blocked == null || blocked.length < vertexCount) {
+                blocked = new int[vertexCount];
+                generation = 0;
+            }
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(blocked, 0);
+                generation = 1;
+            }
+        }
+    }
+}
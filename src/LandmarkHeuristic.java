@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ALT (A*, landmarks, triangle inequality) lower bounds precomputed from a handful of Dijkstra runs.
+ * <p>
+ * For every landmark {@code L} the distances {@code d(L, v)} and {@code d(v, L)} to all vertices are stored.
+ * By the triangle inequality, {@code d(v, t) >= d(L, t) - d(L, v)} and {@code d(v, t) >= d(v, L) - d(t, L)},
+ * and the largest of these bounds over all landmarks is used as the estimate. The bounds are admissible and
+ * consistent for non-negative edge weights, but only valid for the snapshot they were computed on: when a search
+ * runs over any other snapshot, for example after the graph was mutated, the estimate is 0 and the search falls
+ * back to Dijkstra's order until a new heuristic is built. Vertices that are not in the snapshot also get an
+ * estimate of 0.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class LandmarkHeuristic<V> implements Heuristic<V> {
+    private final CsrGraph<V> graph;
+    private final int[] landmarks;
+    private final double[][] fromLandmark;
+    private final double[][] toLandmark;
+
+    /**
+     * Selects landmarks by farthest-point sampling and precomputes their distances.
+     *
+     * @param graph         the snapshot to compute lower bounds for
+     * @param landmarkCount the number of landmarks to select
+     * @throws IllegalArgumentException if the landmark count is not positive
+     */
+    public LandmarkHeuristic(CsrGraph<V> graph, int landmarkCount) {
+        this(graph, selectLandmarks(graph, landmarkCount));
+    }
+
+    /**
+     * Precomputes the distances of the specified landmarks.
+     *
+     * @param graph     the snapshot to compute lower bounds for
+     * @param landmarks the landmark vertices
+     * @throws IllegalArgumentException if a landmark is not present in the graph
+     */
+    public LandmarkHeuristic(CsrGraph<V> graph, List<Vertex<V>> landmarks) {
+        this.graph = graph;
+        this.landmarks = new int[landmarks.size()];
+        for (int i = 0; i < landmarks.size(); i++) {
+            this.landmarks[i] = graph.indexOf(landmarks.get(i));
+        }
+        this.fromLandmark = new double[this.landmarks.length][];
+        this.toLandmark = new double[this.landmarks.length][];
+
+        CsrGraph<V> reverse = graph.reverse();
+        IntStream.range(0, this.landmarks.length).parallel().forEach(i -> {
+            IndexedDaryHeap heap = new IndexedDaryHeap(graph.vertexCount());
+            fromLandmark[i] = new double[graph.vertexCount()];
+            DijkstraSearch.shortestPaths(graph, this.landmarks[i], fromLandmark[i], null, heap);
+            toLandmark[i] = new double[graph.vertexCount()];
+            DijkstraSearch.shortestPaths(reverse, this.landmarks[i], toLandmark[i], null, heap);
+        });
+    }
+
+    /**
+     * Returns the selected landmark vertices.
+     *
+     * @return the landmarks
+     */
+    public List<Vertex<V>> getLandmarks() {
+        List<Vertex<V>> result = new ArrayList<>(landmarks.length);
+        for (int landmark : landmarks) {
+            result.add(graph.vertex(landmark));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public double estimate(Vertex<V> vertex, Vertex<V> target) {
+        // Vertices added after the snapshot have no landmark distances
+        if (!graph.containsVertex(vertex) || !graph.containsVertex(target)) {
+            return 0.0;
+        }
+        return estimate(graph.indexOf(vertex), graph.indexOf(target));
+    }
+
+    @Override
+    public double estimate(CsrGraph<V> graph, int vertex, int target) {
+        // Bounds of an older snapshot can overestimate once edges are added or made cheaper
+        return graph == this.graph ? estimate(vertex, target) : 0.0;
+    }
+
+    /**
+     * Returns the landmark lower bound on the distance between two vertex ids.
+     *
+     * @param vertex the id of the vertex to estimate from
+     * @param target the id of the target vertex
+     * @return a lower bound on the distance from the vertex to the target
+     */
+    public double estimate(int vertex, int target) {
+        double bound = 0.0;
+        for (int i = 0; i < landmarks.length; i++) {
+            double[] from = fromLandmark[i];
+            double[] to = toLandmark[i];
+            // Unreachable landmarks give no information, so their terms are skipped
+            if (from[vertex] != Double.POSITIVE_INFINITY && from[target] != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, from[target] - from[vertex]);
+            }
+            if (to[vertex] != Double.POSITIVE_INFINITY && to[target] != Double.POSITIVE_INFINITY) {
+                bound = Math.max(bound, to[vertex] - to[target]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Picks landmarks that are far from each other, starting from the vertex farthest from vertex 0.
+     */
+    private static <V> List<Vertex<V>> selectLandmarks(CsrGraph<V> graph, int landmarkCount) {
+        if (landmarkCount <= 0) {
+            throw new IllegalArgumentException("Landmark count " + landmarkCount + " is out of the range");
+        }
+        List<Vertex<V>> selected = new ArrayList<>();
+        int vertexCount = graph.vertexCount();
+        if (vertexCount == 0) {
+            return selected;
+        }
+
+        IndexedDaryHeap heap = new IndexedDaryHeap(vertexCount);
+        double[] distances = new double[vertexCount];
+        double[] nearest = new double[vertexCount];
+        boolean[] chosen = new boolean[vertexCount];
+        DijkstraSearch.shortestPaths(graph, 0, nearest, null, heap);
+
+        while (selected.size() < Math.min(landmarkCount, vertexCount)) {
+            int farthest = -1;
+            for (int v = 0; v < vertexCount; v++) {
+                if (!chosen[v] && (farthest == -1 || score(nearest[v]) > score(nearest[farthest]))) {
+                    farthest = v;
+                }
+            }
+            chosen[farthest] = true;
+            selected.add(graph.vertex(farthest));
+
+            DijkstraSearch.shortestPaths(graph, farthest, distances, null, heap);
+            for (int v = 0; v < vertexCount; v++) {
+                nearest[v] = selected.size() == 1 ? distances[v] : Math.min(nearest[v], distances[v]);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Ranks unreachable vertices first so that every weakly connected region gets a landmark.
+     */
+    private static double score(double distance) {
+        return distance == Double.POSITIVE_INFINITY ? Double.MAX_VALUE : distance;
+    }
+}
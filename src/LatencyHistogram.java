@@ -0,0 +1,158 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative long values with a bounded relative error, in the style of
+ * HdrHistogram.
+ * <p>
+ * Values below 32 are counted exactly. Larger values fall into log-linear buckets: every power of two is split
+ * into 32 equal sub-buckets, so a reported percentile is at most about 3% above the recorded value. The whole
+ * {@code long} range fits in 1,888 counters, so recording is a bucket computation and one atomic increment,
+ * without allocation or locks.
+ * <p>
+ * The counters are striped: there is one array of them per stripe, up to one per processor, and a thread
+ * always increments the array its identity hash selects. Concurrent recorders thus rarely write the same
+ * counter or cache line, and reads add up the stripes.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 16;
+
+    private final AtomicLongArray[] stripes;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, processors * 2 - 1)));
+        stripes = new AtomicLongArray[stripeCount];
+        for (int s = 0; s < stripeCount; s++) {
+            stripes[s] = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long clamped = Math.max(0L, value);
+        stripe().incrementAndGet(bucket(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0.0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Returns the value below which the specified percentage of the recorded values fall.
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the highest value of the bucket that holds the percentile, capped at the maximum, or 0 if
+     * nothing was recorded
+     * @throws IllegalArgumentException if the percentile is out of the range
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile " + percentile + " is out of the range");
+        }
+        // Sum the stripes once, so both passes see the same counts while other threads keep recording
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int b = 0; b < BUCKET_COUNT; b++) {
+                counts[b] += stripe.get(b);
+            }
+        }
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            total += counts[b];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKET_COUNT; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                long highest = b + 1 < BUCKET_COUNT ? lowestValue(b + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(highest, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently with the reset may be partly kept.
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int b = 0; b < BUCKET_COUNT; b++) {
+                stripe.set(b, 0L);
+            }
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns the counters of the calling thread, spreading its identity hash so that consecutive hashes land
+     * on different stripes.
+     */
+    private AtomicLongArray stripe() {
+        int hash = System.identityHashCode(Thread.currentThread()) * 0x9E3779B9;
+        return stripes[(hash >>> 16) & (stripes.length - 1)];
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+}
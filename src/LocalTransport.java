@@ -0,0 +1,38 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link MessageTransport} for shards in the same process, which hands batches over through one lock-free
+ * queue per receiving shard without copying them.
+ */
+public class LocalTransport implements MessageTransport {
+    private final List<ConcurrentLinkedQueue<MessageBatch>> inboxes;
+
+    /**
+     * Constructs a LocalTransport for the specified number of shards.
+     *
+     * @param shardCount the number of shards
+     */
+    public LocalTransport(int shardCount) {
+        inboxes = new ArrayList<>(shardCount);
+        for (int s = 0; s < shardCount; s++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    @Override
+    public void send(int targetShard, MessageBatch batch) {
+        inboxes.get(targetShard).add(batch);
+    }
+
+    @Override
+    public List<MessageBatch> receive(int shard) {
+        ConcurrentLinkedQueue<MessageBatch> inbox = inboxes.get(shard);
+        List<MessageBatch> batches = new ArrayList<>();
+        for (MessageBatch batch = inbox.poll(); batch != null; batch = inbox.poll()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link CsrGraph} read directly from a memory-mapped graph file.
+ * <p>
+ * The file holds a header, the CSR offsets, targets and weights, a table of payload offsets and the payload
+ * section with the encoded data of every vertex, all little-endian and aligned for direct access:
+ * <pre>
+ * int magic, int version, int vertexCount, int edgeCount, long payloadLength, long reserved
+ * int[vertexCount + 1] offsets, int[edgeCount] targets, padding to 8 bytes, double[edgeCount] weights
+ * int[vertexCount + 1] payloadOffsets, byte[payloadLength] payload
+ * </pre>
+ * Opening a file maps its sections without reading them, so startup does not depend on the size of the graph,
+ * searches read the page cache directly and several processes that open the same file share its pages.
+ * Vertices are decoded from the payload on first access and then kept, so {@link #vertex(int)} keeps returning
+ * the same object and {@link #indexOf(Vertex)} only knows vertices that have been handed out. Each section is
+ * limited to 2 GB, which bounds the graph to about 268 million edges.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class MappedCsrGraph<V> extends CsrGraph<V> {
+    private static final int MAGIC = 0x43535247;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+
+    private MappedCsrGraph(List<Vertex<V>> vertices, Map<Vertex<V>, Integer> index,
+                           IntBuffer offsets, IntBuffer targets, DoubleBuffer weights) {
+        super(vertices, index);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Writes a graph to a file that can be opened with {@link #open(Path, VertexCodec)}.
+     *
+     * @param graph the graph to write, for example the result of {@link WeightedGraph#freeze()}
+     * @param path  the file to create or replace
+     * @param codec the codec that encodes the vertex data
+     * @param <V>   the type of data stored in the vertices
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if a section of the graph exceeds 2 GB
+     */
+    public static <V> void write(CsrGraph<V> graph, Path path, VertexCodec<V> codec) throws IOException {
+        int vertexCount = graph.vertexCount();
+        int edgeCount = graph.edgeCount();
+        if ((long) edgeCount * Double.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Edge count " + edgeCount + " is out of the range");
+        }
+        Layout layout = new Layout(vertexCount, edgeCount);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            // The payload goes first so that its offsets and length are known when the header is written
+            channel.position(layout.payloadPosition);
+            int[] payloadOffsets = new int[vertexCount + 1];
+            long payloadLength = 0;
+            for (int v = 0; v < vertexCount; v++) {
+                byte[] bytes = codec.encode(graph.vertex(v).getData());
+                payloadLength += bytes.length;
+                if (payloadLength > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Payload length " + payloadLength + " is out of the range");
+                }
+                payloadOffsets[v + 1] = (int) payloadLength;
+                for (int position = 0; position < bytes.length; ) {
+                    int length = Math.min(buffer.remaining(), bytes.length - position);
+                    buffer.put(bytes, position, length);
+                    position += length;
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer);
+                    }
+                }
+            }
+            flush(channel, buffer);
+
+            channel.position(0);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(vertexCount).putInt(edgeCount)
+                    .putLong(payloadLength).putLong(0L);
+            for (int v = 0; v <= vertexCount; v++) {
+                putInt(channel, buffer, v == 0 ? 0 : graph.edgeEnd(v - 1));
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                putInt(channel, buffer, graph.target(e));
+            }
+            if ((vertexCount + 1 + edgeCount) % 2 != 0) {
+                // Align the weights to 8 bytes
+                putInt(channel, buffer, 0);
+            }
+            for (int e = 0; e < edgeCount; e++) {
+                if (buffer.remaining() < Double.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putDouble(graph.weight(e));
+            }
+            for (int offset : payloadOffsets) {
+                putInt(channel, buffer, offset);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Opens a graph file written by {@link #write(CsrGraph, Path, VertexCodec)}.
+     *
+     * @param path  the file to open
+     * @param codec the codec that decodes the vertex data
+     * @param <V>   the type of data stored in the vertices
+     * @return the mapped graph
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file does not contain a graph
+     */
+    public static <V> MappedCsrGraph<V> open(Path path, VertexCodec<V> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IllegalArgumentException("File " + path + " does not contain a graph");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("File " + path + " does not contain a graph");
+            }
+            int vertexCount = header.getInt();
+            int edgeCount = header.getInt();
+            long payloadLength = header.getLong();
+            Layout layout = new Layout(vertexCount, edgeCount);
+            if (vertexCount < 0 || edgeCount < 0 || payloadLength < 0 || payloadLength > Integer.MAX_VALUE
+                    || channel.size() < layout.payloadPosition + payloadLength) {
+                throw new IllegalArgumentException("File " + path + " is truncated");
+            }
+
+            IntBuffer offsets = map(channel, layout.offsetsPosition, 4L * (vertexCount + 1)).asIntBuffer();
+            IntBuffer targets = map(channel, layout.targetsPosition, 4L * edgeCount).asIntBuffer();
+            DoubleBuffer weights = map(channel, layout.weightsPosition, 8L * edgeCount).asDoubleBuffer();
+            IntBuffer payloadOffsets = map(channel, layout.payloadOffsetsPosition, 4L * (vertexCount + 1))
+                    .asIntBuffer();
+            ByteBuffer payload = map(channel, layout.payloadPosition, payloadLength);
+
+            Map<Vertex<V>, Integer> index = new ConcurrentHashMap<>();
+            List<Vertex<V>> vertices = new LazyVertices<>(codec, payloadOffsets, payload, index, vertexCount);
+            return new MappedCsrGraph<>(vertices, index, offsets, targets, weights);
+        }
+    }
+
+    @Override
+    public int edgeCount() {
+        return targets.capacity();
+    }
+
+    @Override
+    public int edgeStart(int vertex) {
+        return offsets.get(vertex);
+    }
+
+    @Override
+    public int edgeEnd(int vertex) {
+        return offsets.get(vertex + 1);
+    }
+
+    @Override
+    public int target(int edge) {
+        return targets.get(edge);
+    }
+
+    @Override
+    public double weight(int edge) {
+        return weights.get(edge);
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The byte positions of the sections of a graph file.
+     */
+    private static class Layout {
+        private final long offsetsPosition;
+        private final long targetsPosition;
+        private final long weightsPosition;
+        private final long payloadOffsetsPosition;
+        private final long payloadPosition;
+
+        Layout(int vertexCount, int edgeCount) {
+            offsetsPosition = HEADER_BYTES;
+            targetsPosition = offsetsPosition + 4L * (vertexCount + 1);
+            long targetsEnd = targetsPosition + 4L * edgeCount;
+            weightsPosition = (targetsEnd + 7) & ~7L;
+            payloadOffsetsPosition = weightsPosition + 8L * edgeCount;
+            payloadPosition = payloadOffsetsPosition + 4L * (vertexCount + 1);
+        }
+    }
+
+    /**
+     * The vertex table of a mapped graph, which decodes every vertex on first access.
+     */
+    private static class LazyVertices<V> extends AbstractList<Vertex<V>> {
+        private final VertexCodec<V> codec;
+        private final IntBuffer payloadOffsets;
+        private final ByteBuffer payload;
+        private final Map<Vertex<V>, Integer> index;
+        private final AtomicReferenceArray<Vertex<V>> decoded;
+
+        LazyVertices(VertexCodec<V> codec, IntBuffer payloadOffsets, ByteBuffer payload,
+                     Map<Vertex<V>, Integer> index, int vertexCount) {
+            this.codec = codec;
+            this.payloadOffsets = payloadOffsets;
+            this.payload = payload;
+            this.index = index;
+            this.decoded = new AtomicReferenceArray<>(vertexCount);
+        }
+
+        @Override
+        public Vertex<V> get(int id) {
+            Vertex<V> vertex = decoded.get(id);
+            if (vertex != null) {
+                return vertex;
+            }
+            int start = payloadOffsets.get(id);
+            int end = payloadOffsets.get(id + 1);
+            Vertex<V> created = new Vertex<>(codec.decode(payload.slice(start, end - start)));
+            // Register before publishing, so any thread that sees the vertex can also look up its id
+            index.put(created, id);
+            if (decoded.compareAndSet(id, null, created)) {
+                return created;
+            }
+            index.remove(created);
+            return decoded.get(id);
+        }
+
+        @Override
+        public int size() {
+            return decoded.length();
+        }
+    }
+}
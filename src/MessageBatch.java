@@ -0,0 +1,148 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A batch of distance messages sent from one shard to another during a superstep of a {@link BspEngine}.
+ * <p>
+ * Every message offers a new tentative distance to a vertex of the receiving shard, addressed by its local
+ * index there, together with the global id of the vertex it came from. Messages are kept in parallel primitive
+ * arrays and can be written to and read from a {@link ByteBuffer}, so a transport between processes only has to
+ * move bytes.
+ */
+public class MessageBatch {
+    private static final int MESSAGE_BYTES = Integer.BYTES + Double.BYTES + Integer.BYTES;
+
+    private final int sourceShard;
+    private int[] targets;
+    private double[] values;
+    private int[] senders;
+    private int size;
+
+    /**
+     * Constructs an empty batch sent by the specified shard.
+     *
+     * @param sourceShard the number of the sending shard
+     */
+    public MessageBatch(int sourceShard) {
+        this.sourceShard = sourceShard;
+        this.targets = new int[16];
+        this.values = new double[16];
+        this.senders = new int[16];
+    }
+
+    /**
+     * Returns the number of the shard that sent this batch.
+     *
+     * @return the sending shard
+     */
+    public int getSourceShard() {
+        return sourceShard;
+    }
+
+    /**
+     * Appends a message to the batch.
+     *
+     * @param target the local index of the target vertex in the receiving shard
+     * @param value  the offered distance
+     * @param sender the global id of the vertex the distance comes from
+     */
+    public void add(int target, double value, int sender) {
+        if (size == targets.length) {
+            targets = Arrays.copyOf(targets, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            senders = Arrays.copyOf(senders, size * 2);
+        }
+        targets[size] = target;
+        values[size] = value;
+        senders[size] = sender;
+        size++;
+    }
+
+    /**
+     * Returns the number of messages in the batch.
+     *
+     * @return the number of messages
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the local index of the target vertex of a message.
+     *
+     * @param message the index of the message
+     * @return the local index of the target in the receiving shard
+     */
+    public int target(int message) {
+        return targets[message];
+    }
+
+    /**
+     * Returns the distance offered by a message.
+     *
+     * @param message the index of the message
+     * @return the offered distance
+     */
+    public double value(int message) {
+        return values[message];
+    }
+
+    /**
+     * Returns the global id of the vertex a message comes from.
+     *
+     * @param message the index of the message
+     * @return the global id of the sender
+     */
+    public int sender(int message) {
+        return senders[message];
+    }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(ByteBuffer)} needs for this batch.
+     *
+     * @return the serialized size in bytes
+     */
+    public int serializedSize() {
+        return 2 * Integer.BYTES + size * MESSAGE_BYTES;
+    }
+
+    /**
+     * Writes the batch to a buffer at its current position.
+     *
+     * @param buffer the buffer to write to, with at least {@link #serializedSize()} bytes remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(sourceShard).putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(targets[i]).putDouble(values[i]).putInt(senders[i]);
+        }
+    }
+
+    /**
+     * Reads a batch written by {@link #writeTo(ByteBuffer)} from a buffer at its current position.
+     *
+     * @param buffer the buffer to read from
+     * @return the batch
+     * @throws IllegalArgumentException if the buffer does not contain a whole batch
+     */
+    public static MessageBatch readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < 2 * Integer.BYTES) {
+            throw new IllegalArgumentException("Buffer " + buffer + " does not contain a message batch");
+        }
+        MessageBatch batch = new MessageBatch(buffer.getInt());
+        int size = buffer.getInt();
+        if (size < 0 || (long) size * MESSAGE_BYTES > buffer.remaining()) {
+            throw new IllegalArgumentException("Buffer " + buffer + " does not contain a message batch");
+        }
+        batch.targets = new int[Math.max(size, 1)];
+        batch.values = new double[Math.max(size, 1)];
+        batch.senders = new int[Math.max(size, 1)];
+        for (int i = 0; i < size; i++) {
+            batch.targets[i] = buffer.getInt();
+            batch.values[i] = buffer.getDouble();
+            batch.senders[i] = buffer.getInt();
+        }
+        batch.size = size;
+        return batch;
+    }
+}
@@ -0,0 +1,29 @@
+import java.util.List;
+
+/**
+ * MessageTransport moves message batches between the shards of a {@link BspEngine}.
+ * <p>
+ * The engine separates sending from receiving with a barrier: during a superstep every shard sends its
+ * batches, and after all shards have finished sending, every shard receives the batches addressed to it.
+ * A shard does not send again until every shard has received, so a transport only has to deliver each batch
+ * once and does not need to tell supersteps apart. Implementations must allow different shards to send and
+ * receive concurrently. {@link LocalTransport} keeps the batches in memory; a transport that serializes
+ * them with {@link MessageBatch#writeTo(java.nio.ByteBuffer)} can connect shards in different processes.
+ */
+public interface MessageTransport {
+    /**
+     * Sends a batch to a shard.
+     *
+     * @param targetShard the number of the receiving shard
+     * @param batch       the batch to send
+     */
+    void send(int targetShard, MessageBatch batch);
+
+    /**
+     * Returns and removes the batches sent to a shard since it last received.
+     *
+     * @param shard the number of the receiving shard
+     * @return the received batches, in no particular order
+     */
+    List<MessageBatch> receive(int shard);
+}
@@ -0,0 +1,90 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size and mutation counters of a {@link WeightedGraph}, maintained by a {@link GraphListener} registered
+ * through {@link GraphMetrics#watch(String, WeightedGraph)}.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class MutationMetrics<V> implements GraphListener<V>, MutationMetricsMBean {
+    private final WeightedGraph<V> graph;
+    private final LongAdder verticesAdded = new LongAdder();
+    private final LongAdder edgesAdded = new LongAdder();
+    private final LongAdder edgesRemoved = new LongAdder();
+    private final LongAdder weightChanges = new LongAdder();
+    private volatile long startNanos = System.nanoTime();
+
+    MutationMetrics(WeightedGraph<V> graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public void vertexAdded(Vertex<V> vertex) {
+        verticesAdded.increment();
+    }
+
+    @Override
+    public void edgeAdded(Vertex<V> source, Vertex<V> destination, double weight) {
+        edgesAdded.increment();
+    }
+
+    @Override
+    public void edgeRemoved(Vertex<V> source, Vertex<V> destination, double weight) {
+        edgesRemoved.increment();
+    }
+
+    @Override
+    public void edgeWeightChanged(Vertex<V> source, Vertex<V> destination, double oldWeight, double newWeight) {
+        weightChanges.increment();
+    }
+
+    @Override
+    public int getVertexCount() {
+        return graph.vertexCount();
+    }
+
+    @Override
+    public long getEdgeCount() {
+        return graph.edgeCount();
+    }
+
+    @Override
+    public long getVerticesAdded() {
+        return verticesAdded.sum();
+    }
+
+    @Override
+    public long getEdgesAdded() {
+        return edgesAdded.sum();
+    }
+
+    @Override
+    public long getEdgesRemoved() {
+        return edgesRemoved.sum();
+    }
+
+    @Override
+    public long getWeightChanges() {
+        return weightChanges.sum();
+    }
+
+    @Override
+    public long getMutationCount() {
+        return verticesAdded.sum() + edgesAdded.sum() + edgesRemoved.sum() + weightChanges.sum();
+    }
+
+    @Override
+    public double getMutationsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0.0 : getMutationCount() / seconds;
+    }
+
+    @Override
+    public void reset() {
+        verticesAdded.reset();
+        edgesAdded.reset();
+        edgesRemoved.reset();
+        weightChanges.reset();
+        startNanos = System.nanoTime();
+    }
+}
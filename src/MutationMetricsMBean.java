@@ -0,0 +1,65 @@
+/**
+ * The JMX view of the {@link MutationMetrics} of one watched graph.
+ */
+public interface MutationMetricsMBean {
+    /**
+     * Returns the current number of vertices.
+     *
+     * @return the vertex count
+     */
+    int getVertexCount();
+
+    /**
+     * Returns the current number of edges.
+     *
+     * @return the edge count
+     */
+    long getEdgeCount();
+
+    /**
+     * Returns the number of vertex additions, including re-added vertices.
+     *
+     * @return the vertex addition count
+     */
+    long getVerticesAdded();
+
+    /**
+     * Returns the number of edge additions.
+     *
+     * @return the edge addition count
+     */
+    long getEdgesAdded();
+
+    /**
+     * Returns the number of edge removals.
+     *
+     * @return the edge removal count
+     */
+    long getEdgesRemoved();
+
+    /**
+     * Returns the number of edge weight changes.
+     *
+     * @return the weight change count
+     */
+    long getWeightChanges();
+
+    /**
+     * Returns the total number of mutations.
+     *
+     * @return the mutation count
+     */
+    long getMutationCount();
+
+    /**
+     * Returns the average number of mutations per second since the graph was watched or the metrics were reset.
+     *
+     * @return the mutation rate
+     */
+    double getMutationsPerSecond();
+
+    /**
+     * Clears all counters and restarts the rate measurement.
+     */
+    void reset();
+}
@@ -0,0 +1,69 @@
+/**
+ * The result of {@link GraphAnalytics#pageRank(double, double, int)}: the rank of every vertex and how the
+ * iteration ended.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class PageRankResult<V> {
+    private final CsrGraph<V> graph;
+    private final double[] ranks;
+    private final int iterationCount;
+    private final double residual;
+    private final boolean converged;
+
+    PageRankResult(CsrGraph<V> graph, double[] ranks, int iterationCount, double residual, boolean converged) {
+        this.graph = graph;
+        this.ranks = ranks;
+        this.iterationCount = iterationCount;
+        this.residual = residual;
+        this.converged = converged;
+    }
+
+    /**
+     * Returns the rank of the specified vertex. The ranks of all vertices sum to 1.
+     *
+     * @param vertex the vertex to look up
+     * @return the rank of the vertex
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public double getRank(Vertex<V> vertex) {
+        return ranks[graph.indexOf(vertex)];
+    }
+
+    /**
+     * Returns the rank of the vertex with the specified id.
+     *
+     * @param vertex the id of the vertex
+     * @return the rank of the vertex
+     */
+    public double rank(int vertex) {
+        return ranks[vertex];
+    }
+
+    /**
+     * Returns the number of iterations that were run.
+     *
+     * @return the number of iterations
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Returns the L1 norm of the change of the ranks in the last iteration.
+     *
+     * @return the last residual
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Returns whether the residual fell below the tolerance before the iteration limit was reached.
+     *
+     * @return true if the ranks converged
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
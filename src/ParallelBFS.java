@@ -0,0 +1,266 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Level-synchronous, direction-optimizing breadth-first search that expands each level in parallel.
+ * <p>
+ * Small frontiers are expanded top-down: every frontier vertex claims its unvisited neighbours in a shared
+ * visited bitset with a compare-and-set. Once the edges leaving the frontier outnumber the edges that would
+ * have to be checked from the unvisited side, the search switches to bottom-up: every unvisited vertex looks
+ * for a parent in the frontier bitset among its incoming edges and stops at the first hit. Bottom-up work is
+ * split into blocks of 64-vertex words, so each task owns the bits it writes. The heuristic follows Beamer
+ * et al., "Direction-Optimizing Breadth-First Search".
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class ParallelBFS<V> {
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int TOP_DOWN_CHUNK = 1024;
+    private static final int BOTTOM_UP_WORDS = 64;
+
+    private WeightedGraph<V> graph;
+    private CsrGraph<V> snapshot;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a ParallelBFS object with the specified weighted graph, using the common ForkJoin pool.
+     *
+     * @param graph the weighted graph to perform BFS on
+     */
+    public ParallelBFS(WeightedGraph<V> graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelBFS object with the specified weighted graph and pool.
+     *
+     * @param graph the weighted graph to perform BFS on
+     * @param pool  the pool that expands the levels
+     */
+    public ParallelBFS(WeightedGraph<V> graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a ParallelBFS object that runs directly against the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to perform BFS on
+     * @param pool     the pool that expands the levels
+     */
+    public ParallelBFS(CsrGraph<V> snapshot, ForkJoinPool pool) {
+        this.snapshot = snapshot;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the CSR graph to search, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        return graph != null ? graph.freeze() : snapshot;
+    }
+
+    /**
+     * Performs breadth-first search starting from the specified start vertex.
+     *
+     * @param startVertex the start vertex for the BFS
+     * @return the visit order and depth of every reached vertex
+     */
+    public BfsResult<V> breadthFirstSearch(Vertex<V> startVertex) {
+        CsrGraph<V> csr = csr();
+        CsrGraph<V> reverse = csr.reverse();
+        int vertexCount = csr.vertexCount();
+        int wordCount = (vertexCount + 63) >>> 6;
+        int start = csr.indexOf(startVertex);
+
+        AtomicLongArray visited = new AtomicLongArray(wordCount);
+        int[] depths = new int[vertexCount];
+        Arrays.fill(depths, -1);
+        int[] order = new int[vertexCount];
+        int reached = 0;
+
+        visited.set(start >>> 6, 1L << start);
+        depths[start] = 0;
+        order[reached++] = start;
+
+        int[] frontier = {start};
+        int frontierSize = 1;
+        long[] frontierBits = null;
+        long frontierEdges = csr.degree(start);
+        long unexploredEdges = csr.edgeCount() - frontierEdges;
+        boolean bottomUp = false;
+        int previousSize = 0;
+        int level = 0;
+
+        while (frontierSize > 0) {
+            if (!bottomUp && frontierSize > previousSize && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+                frontierBits = toBits(frontier, frontierSize, wordCount);
+            } else if (bottomUp && frontierSize < previousSize && frontierSize < vertexCount / BETA) {
+                bottomUp = false;
+            }
+            previousSize = frontierSize;
+
+            int depth = level + 1;
+            if (bottomUp) {
+                long[] next = new long[wordCount];
+                long[] current = frontierBits;
+                int blocks = (wordCount + BOTTOM_UP_WORDS - 1) / BOTTOM_UP_WORDS;
+                int[] counts = new int[blocks];
+                invoke(IntStream.range(0, blocks), block -> counts[block] =
+                        bottomUpBlock(reverse, block, current, next, visited, depths, depth));
+                frontierBits = next;
+                frontierSize = 0;
+                for (int count : counts) {
+                    frontierSize += count;
+                }
+                frontier = toArray(next, frontierSize);
+            } else {
+                int[] current = frontier;
+                int size = frontierSize;
+                int chunks = (size + TOP_DOWN_CHUNK - 1) / TOP_DOWN_CHUNK;
+                int[][] discovered = new int[chunks][];
+                invoke(IntStream.range(0, chunks), chunk -> discovered[chunk] =
+                        topDownChunk(csr, current, chunk * TOP_DOWN_CHUNK,
+                                Math.min(size, (chunk + 1) * TOP_DOWN_CHUNK), visited, depths, depth));
+                frontierSize = 0;
+                for (int[] part : discovered) {
+                    frontierSize += part.length;
+                }
+                frontier = new int[frontierSize];
+                int position = 0;
+                for (int[] part : discovered) {
+                    System.arraycopy(part, 0, frontier, position, part.length);
+                    position += part.length;
+                }
+            }
+
+            System.arraycopy(frontier, 0, order, reached, frontierSize);
+            reached += frontierSize;
+            frontierEdges = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                frontierEdges += csr.degree(frontier[i]);
+            }
+            unexploredEdges -= frontierEdges;
+            level++;
+        }
+
+        return new BfsResult<>(csr, Arrays.copyOf(order, reached), depths, level);
+    }
+
+    /**
+     * Expands one chunk of the frontier top-down and returns the vertices it claimed.
+     */
+    private static <V> int[] topDownChunk(CsrGraph<V> csr, int[] frontier, int from, int to,
+                                          AtomicLongArray visited, int[] depths, int depth) {
+        int[] discovered = new int[16];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int vertex = frontier[i];
+            for (int e = csr.edgeStart(vertex), end = csr.edgeEnd(vertex); e < end; e++) {
+                int neighbor = csr.target(e);
+                if (claim(visited, neighbor)) {
+                    depths[neighbor] = depth;
+                    if (count == discovered.length) {
+                        discovered = Arrays.copyOf(discovered, count * 2);
+                    }
+                    discovered[count++] = neighbor;
+                }
+            }
+        }
+        return Arrays.copyOf(discovered, count);
+    }
+
+    /**
+     * Sets the visited bit of a vertex, returning true if this call was the one that set it.
+     */
+    private static boolean claim(AtomicLongArray visited, int vertex) {
+        int word = vertex >>> 6;
+        long bit = 1L << vertex;
+        while (true) {
+            long current = visited.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Checks every unvisited vertex of a block of words for a parent in the frontier and returns how many joined.
+     */
+    private static <V> int bottomUpBlock(CsrGraph<V> reverse, int block, long[] frontier, long[] next,
+                                         AtomicLongArray visited, int[] depths, int depth) {
+        int vertexCount = reverse.vertexCount();
+        int firstWord = block * BOTTOM_UP_WORDS;
+        int lastWord = Math.min(next.length, firstWord + BOTTOM_UP_WORDS);
+        int count = 0;
+        for (int word = firstWord; word < lastWord; word++) {
+            long seen = visited.get(word);
+            long joined = 0;
+            int base = word << 6;
+            for (int bit = 0; bit < 64 && base + bit < vertexCount; bit++) {
+                if ((seen & (1L << bit)) != 0) {
+                    continue;
+                }
+                int vertex = base + bit;
+                for (int e = reverse.edgeStart(vertex), end = reverse.edgeEnd(vertex); e < end; e++) {
+                    int parent = reverse.target(e);
+                    if ((frontier[parent >>> 6] & (1L << parent)) != 0) {
+                        joined |= 1L << bit;
+                        depths[vertex] = depth;
+                        count++;
+                        break;
+                    }
+                }
+            }
+            if (joined != 0) {
+                // This task owns the word in bottom-up steps, so no other thread writes it concurrently
+                visited.set(word, seen | joined);
+                next[word] = joined;
+            }
+        }
+        return count;
+    }
+
+    private static long[] toBits(int[] vertices, int size, int wordCount) {
+        long[] bits = new long[wordCount];
+        for (int i = 0; i < size; i++) {
+            bits[vertices[i] >>> 6] |= 1L << vertices[i];
+        }
+        return bits;
+    }
+
+    private static int[] toArray(long[] bits, int size) {
+        int[] vertices = new int[size];
+        int count = 0;
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                vertices[count++] = (word << 6) + Long.numberOfTrailingZeros(value);
+                value &= value - 1;
+            }
+        }
+        return vertices;
+    }
+
+    private void invoke(IntStream tasks, IntConsumer action) {
+        try {
+            pool.submit(() -> tasks.parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Breadth-first search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Breadth-first search failed", e.getCause());
+        }
+    }
+}
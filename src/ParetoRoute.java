@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One route of the Pareto set returned by {@link ParetoSearch}: a path and its cost for every criterion.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class ParetoRoute<V> {
+    private final CsrGraph<V> graph;
+    private final int[] vertices;
+    private final double[] costs;
+
+    ParetoRoute(CsrGraph<V> graph, int[] vertices, double[] costs) {
+        this.graph = graph;
+        this.vertices = vertices;
+        this.costs = costs;
+    }
+
+    /**
+     * Returns the data of the vertices on the route, in the same form as {@link Search#findPath(Vertex, Vertex)}.
+     *
+     * @return the list of vertices from the source to the destination
+     */
+    public List<V> getPath() {
+        List<V> path = new ArrayList<>(vertices.length);
+        for (int vertex : vertices) {
+            path.add(graph.vertex(vertex).getData());
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of edges on the route.
+     *
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return vertices.length - 1;
+    }
+
+    /**
+     * Returns the total of one cost over the edges of the route.
+     *
+     * @param criterion the index of the cost
+     * @return the cost of the route for that criterion
+     */
+    public double getCost(int criterion) {
+        return costs[criterion];
+    }
+
+    /**
+     * Returns the totals of all costs over the edges of the route.
+     *
+     * @return a copy of the cost vector of the route
+     */
+    public double[] getCosts() {
+        return costs.clone();
+    }
+
+    @Override
+    public String toString() {
+        return getPath() + " " + Arrays.toString(costs);
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multi-criteria route search: finds every Pareto-optimal path between two vertices for the costs of
+ * {@link CostVectors}.
+ * <p>
+ * A path is Pareto-optimal when no other path is at least as cheap in every criterion and cheaper in one. The
+ * search is Martins' label-setting algorithm: every vertex keeps a set of labels, one per non-dominated partial
+ * path reaching it, and labels are settled in the order of the sum of their costs, so a settled label can never
+ * be dominated by a later one. A new label is dropped as soon as a label of the same vertex or of the
+ * destination dominates or equals it, and it removes the unsettled labels of its vertex that it dominates, so
+ * the search only extends partial paths that can still lead to a Pareto-optimal route.
+ * <p>
+ * Labels live in primitive arrays of the thread's scratch state, linked into per-vertex lists, and the priority
+ * queue is an {@link IndexedDaryHeap} over label ids, so queries do not allocate per label once the arrays have
+ * grown. Pareto sets can grow exponentially with the path length on adversarial graphs;
+ * {@link #findPaths(Vertex, Vertex, int)} bounds the work of one query. An instance can serve concurrent
+ * queries.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class ParetoSearch<V> {
+    private final CostVectors<V> costs;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Constructs a ParetoSearch object that searches the graph of the specified cost vectors.
+     *
+     * @param costs the costs of the edges
+     */
+    public ParetoSearch(CostVectors<V> costs) {
+        this.costs = costs;
+    }
+
+    /**
+     * Finds the Pareto set of paths from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @return one route per distinct Pareto-optimal cost vector, in lexicographic order of the costs; empty if
+     *         the destination is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph
+     */
+    public List<ParetoRoute<V>> findPaths(Vertex<V> source, Vertex<V> destination) {
+        return findPaths(source, destination, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the Pareto set of paths from the source vertex to the destination vertex, creating at most the
+     * specified number of labels.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param labelLimit  the maximum number of labels the search may create
+     * @return one route per distinct Pareto-optimal cost vector, in lexicographic order of the costs; empty if
+     *         the destination is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph or the limit is not positive
+     * @throws IllegalStateException    if the search needs more labels than the limit
+     */
+    public List<ParetoRoute<V>> findPaths(Vertex<V> source, Vertex<V> destination, int labelLimit) {
+        if (labelLimit <= 0) {
+            throw new IllegalArgumentException("Label limit " + labelLimit + " is out of the range");
+        }
+        CsrGraph<V> csr = costs.getGraph();
+        int from = csr.indexOf(source);
+        int to = csr.indexOf(destination);
+        int criteria = costs.criteria();
+        double[] edgeCosts = costs.costArray();
+        Scratch state = scratch.get();
+        state.reset(csr.vertexCount(), criteria);
+        double[] candidate = new double[criteria];
+
+        List<Integer> results = new ArrayList<>();
+        IndexedDaryHeap queue = state.queue;
+        queue.insert(state.add(from, -1, candidate), 0.0);
+        while (!queue.isEmpty()) {
+            int label = queue.pollMin();
+            if (state.dead[label]) {
+                continue;
+            }
+            int currentVertex = state.vertices[label];
+            if (currentVertex == to) {
+                // Paths through the destination only come back to it dominated
+                results.add(label);
+                continue;
+            }
+            int base = label * criteria;
+            for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                int neighborVertex = csr.target(e);
+                double key = 0;
+                for (int c = 0; c < criteria; c++) {
+                    candidate[c] = state.costs[base + c] + edgeCosts[e * criteria + c];
+                    key += candidate[c];
+                }
+                if (state.dominated(to, candidate) || state.dominated(neighborVertex, candidate)) {
+                    continue;
+                }
+                state.removeDominated(neighborVertex, candidate);
+                if (state.labelCount == labelLimit) {
+                    throw new IllegalStateException("Pareto search exceeded " + labelLimit + " labels");
+                }
+                queue.insert(state.add(neighborVertex, label, candidate), key);
+            }
+        }
+
+        List<ParetoRoute<V>> routes = new ArrayList<>(results.size());
+        for (int label : results) {
+            int length = 0;
+            for (int l = label; l != -1; l = state.parents[l]) {
+                length++;
+            }
+            int[] vertices = new int[length];
+            for (int l = label; l != -1; l = state.parents[l]) {
+                vertices[--length] = state.vertices[l];
+            }
+            double[] total = Arrays.copyOfRange(state.costs, label * criteria, (label + 1) * criteria);
+            routes.add(new ParetoRoute<>(csr, vertices, total));
+        }
+        routes.sort((a, b) -> Arrays.compare(a.getCosts(), b.getCosts()));
+        return routes;
+    }
+
+    /**
+     * The labels, per-vertex label lists and heap of one thread, reused by all of its queries.
+     * <p>
+     * Each vertex has a singly linked list of its live labels, whose head is stamped with the generation of the
+     * query like {@link DistanceLabels}, so starting a query does not clear the per-vertex arrays.
+     */
+    private static class Scratch {
+        private int[] heads = new int[0];
+        private int[] stamps = new int[0];
+        private int generation;
+        private int criteria;
+        private int labelCount;
+        private int[] vertices = new int[64];
+        private int[] parents = new int[64];
+        private int[] next = new int[64];
+        private boolean[] dead = new boolean[64];
+        private double[] costs = new double[64];
+        private IndexedDaryHeap queue;
+
+        void reset(int vertexCount, int criteria) {
+            if (vertexCount > stamps.length) {
+                heads = new int[vertexCount];
+                stamps = new int[vertexCount];
+                generation = 0;
+            }
+            generation++;
+            if (generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+            this.criteria = criteria;
+            labelCount = 0;
+            if (costs.length < vertices.length * criteria) {
+                costs = new double[vertices.length * criteria];
+            }
+            queue = DijkstraSearch.prepare(queue, vertices.length);
+        }
+
+        int head(int vertex) {
+            return stamps[vertex] == generation ? heads[vertex] : -1;
+        }
+
+        /**
+         * Creates a label and links it into the list of its vertex.
+         */
+        int add(int vertex, int parent, double[] labelCosts) {
+            if (labelCount == vertices.length) {
+                int capacity = vertices.length * 2;
+                vertices = Arrays.copyOf(vertices, capacity);
+                parents = Arrays.copyOf(parents, capacity);
+                next = Arrays.copyOf(next, capacity);
+                dead = Arrays.copyOf(dead, capacity);
+                costs = Arrays.copyOf(costs, capacity * criteria);
+                queue.ensureCapacity(capacity);
+            }
+            int label = labelCount++;
+            vertices[label] = vertex;
+            parents[label] = parent;
+            dead[label] = false;
+            System.arraycopy(labelCosts, 0, costs, label * criteria, criteria);
+            next[label] = head(vertex);
+            heads[vertex] = label;
+            stamps[vertex] = generation;
+            return label;
+        }
+
+        /**
+         * Checks if a live label of the vertex is at least as cheap as the costs in every criterion.
+         */
+        boolean dominated(int vertex, double[] candidate) {
+            for (int label = head(vertex); label != -1; label = next[label]) {
+                int base = label * criteria;
+                int c = 0;
+                while (c < criteria && costs[base + c] <= candidate[c]) {
+                    c++;
+                }
+                if (c == criteria) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Kills and unlinks the labels of the vertex that the costs dominate. Only unsettled labels can be
+         * dominated, since settled ones have a smaller cost sum; killed labels are skipped when they leave the
+         * heap.
+         */
+        void removeDominated(int vertex, double[] candidate) {
+            int previous = -1;
+            for (int label = head(vertex); label != -1; label = next[label]) {
+                int base = label * criteria;
+                int c = 0;
+                while (c < criteria && candidate[c] <= costs[base + c]) {
+                    c++;
+                }
+                if (c == criteria) {
+                    dead[label] = true;
+                    if (previous == -1) {
+                        heads[vertex] = next[label];
+                    } else {
+                        next[previous] = next[label];
+                    }
+                } else {
+                    previous = label;
+                }
+            }
+        }
+    }
+}
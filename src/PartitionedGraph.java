@@ -0,0 +1,359 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A graph split into shards that each own a disjoint set of vertices and their outgoing edges.
+ * <p>
+ * Vertices keep the dense ids of the {@link CsrGraph} they came from and are assigned to shards either by a
+ * hash of their id, which balances any graph, or by contiguous id ranges, which keeps neighbourhoods together
+ * when the ids follow the structure of the graph. Every shard stores its edges as primitive arrays. An edge
+ * whose target lives in the same shard points at the local index of the target; a boundary edge points at
+ * a ghost slot instead, which stands for the remote target and records the shard that owns it and the target's
+ * local index there. Shards therefore never read each other's arrays, and a {@link BspEngine} only needs the
+ * ghost slots to address messages, which is what would let the shards live in separate processes.
+ * <p>
+ * The vertex data stays in one table shared by all shards. The partitioned graph is immutable.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class PartitionedGraph<V> {
+    private final List<Vertex<V>> vertices;
+    private final Map<Vertex<V>, Integer> index;
+    private final int[] owners;
+    private final int[] localIndices;
+    private final Shard[] shards;
+    private final int edgeCount;
+
+    private PartitionedGraph(CsrGraph<V> graph, int[] owners, int shardCount) {
+        int vertexCount = graph.vertexCount();
+        this.vertices = new ArrayList<>(vertexCount);
+        this.index = new HashMap<>(vertexCount * 2);
+        for (int v = 0; v < vertexCount; v++) {
+            Vertex<V> vertex = graph.vertex(v);
+            vertices.add(vertex);
+            index.put(vertex, v);
+        }
+        this.owners = owners;
+        this.localIndices = new int[vertexCount];
+        this.edgeCount = graph.edgeCount();
+
+        int[] sizes = new int[shardCount];
+        for (int v = 0; v < vertexCount; v++) {
+            localIndices[v] = sizes[owners[v]]++;
+        }
+        int[][] members = new int[shardCount][];
+        for (int s = 0; s < shardCount; s++) {
+            members[s] = new int[sizes[s]];
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            members[owners[v]][localIndices[v]] = v;
+        }
+        this.shards = new Shard[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            shards[s] = new Shard(s, graph, members[s], owners, localIndices);
+        }
+    }
+
+    /**
+     * Splits a graph into shards by a hash of the vertex ids.
+     *
+     * @param graph      the graph to split, for example the result of {@link WeightedGraph#freeze()}
+     * @param shardCount the number of shards
+     * @param <V>        the type of data stored in the vertices
+     * @return the partitioned graph
+     * @throws IllegalArgumentException if the shard count is not positive
+     */
+    public static <V> PartitionedGraph<V> hashPartitioned(CsrGraph<V> graph, int shardCount) {
+        checkShardCount(shardCount);
+        int[] owners = new int[graph.vertexCount()];
+        for (int v = 0; v < owners.length; v++) {
+            owners[v] = Math.floorMod(mix(v), shardCount);
+        }
+        return new PartitionedGraph<>(graph, owners, shardCount);
+    }
+
+    /**
+     * Splits a graph into shards of contiguous vertex ids of nearly equal size.
+     *
+     * @param graph      the graph to split, for example the result of {@link WeightedGraph#freeze()}
+     * @param shardCount the number of shards
+     * @param <V>        the type of data stored in the vertices
+     * @return the partitioned graph
+     * @throws IllegalArgumentException if the shard count is not positive
+     */
+    public static <V> PartitionedGraph<V> rangePartitioned(CsrGraph<V> graph, int shardCount) {
+        checkShardCount(shardCount);
+        int[] owners = new int[graph.vertexCount()];
+        for (int v = 0; v < owners.length; v++) {
+            owners[v] = (int) ((long) v * shardCount / owners.length);
+        }
+        return new PartitionedGraph<>(graph, owners, shardCount);
+    }
+
+    private static void checkShardCount(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count " + shardCount + " is out of the range");
+        }
+    }
+
+    /**
+     * Scrambles the bits of a vertex id, so that hash partitioning does not follow patterns in the ids.
+     */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the number of edges
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the shard with the specified number.
+     *
+     * @param shard the number of the shard
+     * @return the shard
+     */
+    public Shard shard(int shard) {
+        return shards[shard];
+    }
+
+    /**
+     * Returns the dense id of the specified vertex.
+     *
+     * @param vertex the vertex to look up
+     * @return the id of the vertex
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int indexOf(Vertex<V> vertex) {
+        Integer id = index.get(vertex);
+        if (id == null) {
+            throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
+        }
+        return id;
+    }
+
+    /**
+     * Returns the vertex with the specified dense id.
+     *
+     * @param id the id of the vertex
+     * @return the vertex
+     */
+    public Vertex<V> vertex(int id) {
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the shard that owns the vertex with the specified id.
+     *
+     * @param id the id of the vertex
+     * @return the number of the owning shard
+     */
+    public int owner(int id) {
+        return owners[id];
+    }
+
+    /**
+     * Returns the index of the vertex with the specified id within its owning shard.
+     *
+     * @param id the id of the vertex
+     * @return the local index of the vertex
+     */
+    public int localIndex(int id) {
+        return localIndices[id];
+    }
+
+    /**
+     * Returns the number of edges whose endpoints live in different shards.
+     *
+     * @return the number of boundary edges
+     */
+    public long getBoundaryEdgeCount() {
+        long count = 0;
+        for (Shard shard : shards) {
+            count += shard.getBoundaryEdgeCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the fraction of edges that cross shards, which bounds the message traffic of a traversal.
+     *
+     * @return the edge cut between 0 and 1, or 0 for a graph without edges
+     */
+    public double getEdgeCut() {
+        return edgeCount == 0 ? 0.0 : (double) getBoundaryEdgeCount() / edgeCount;
+    }
+
+    /**
+     * One shard of a partitioned graph: its vertices, their outgoing edges and the ghost slots of the remote
+     * vertices those edges reach.
+     */
+    public static class Shard {
+        private final int id;
+        private final int[] vertices;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final int[] ghosts;
+        private final int[] ghostOwners;
+        private final int[] ghostIndices;
+        private final int boundaryEdgeCount;
+
+        Shard(int id, CsrGraph<?> graph, int[] vertices, int[] owners, int[] localIndices) {
+            this.id = id;
+            this.vertices = vertices;
+            this.offsets = new int[vertices.length + 1];
+            for (int i = 0; i < vertices.length; i++) {
+                offsets[i + 1] = offsets[i] + graph.degree(vertices[i]);
+            }
+            int edges = offsets[vertices.length];
+            this.targets = new int[edges];
+            this.weights = new double[edges];
+
+            // Ghost slots are numbered in order of first appearance; a boundary edge stores ~slot
+            IntIntMap slots = new IntIntMap();
+            int[] ghostList = new int[16];
+            int boundary = 0;
+            int e = 0;
+            for (int vertex : vertices) {
+                for (int g = graph.edgeStart(vertex), end = graph.edgeEnd(vertex); g < end; g++, e++) {
+                    int target = graph.target(g);
+                    weights[e] = graph.weight(g);
+                    if (owners[target] == id) {
+                        targets[e] = localIndices[target];
+                    } else {
+                        int slot = slots.get(target, -1);
+                        if (slot == -1) {
+                            slot = slots.size();
+                            slots.put(target, slot);
+                            if (slot == ghostList.length) {
+                                ghostList = Arrays.copyOf(ghostList, slot * 2);
+                            }
+                            ghostList[slot] = target;
+                        }
+                        targets[e] = ~slot;
+                        boundary++;
+                    }
+                }
+            }
+            this.boundaryEdgeCount = boundary;
+            this.ghosts = Arrays.copyOf(ghostList, slots.size());
+            this.ghostOwners = new int[ghosts.length];
+            this.ghostIndices = new int[ghosts.length];
+            for (int slot = 0; slot < ghosts.length; slot++) {
+                ghostOwners[slot] = owners[ghosts[slot]];
+                ghostIndices[slot] = localIndices[ghosts[slot]];
+            }
+        }
+
+        /**
+         * Returns the number of this shard.
+         *
+         * @return the shard number
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the number of vertices owned by this shard.
+         *
+         * @return the number of vertices
+         */
+        public int vertexCount() {
+            return vertices.length;
+        }
+
+        /**
+         * Returns the number of edges leaving the vertices of this shard.
+         *
+         * @return the number of edges
+         */
+        public int edgeCount() {
+            return targets.length;
+        }
+
+        /**
+         * Returns the number of edges of this shard whose target lives in another shard.
+         *
+         * @return the number of boundary edges
+         */
+        public int getBoundaryEdgeCount() {
+            return boundaryEdgeCount;
+        }
+
+        /**
+         * Returns the number of distinct remote vertices reached by the boundary edges of this shard.
+         *
+         * @return the number of ghost vertices
+         */
+        public int getGhostVertexCount() {
+            return ghosts.length;
+        }
+
+        /**
+         * Returns the global id of the vertex with the specified local index.
+         *
+         * @param local the local index of the vertex
+         * @return the global id
+         */
+        public int vertex(int local) {
+            return vertices[local];
+        }
+
+        int edgeStart(int local) {
+            return offsets[local];
+        }
+
+        int edgeEnd(int local) {
+            return offsets[local + 1];
+        }
+
+        /**
+         * Returns the local index of the target of an edge, or the complement {@code ~slot} of its ghost slot
+         * if the target lives in another shard.
+         */
+        int target(int edge) {
+            return targets[edge];
+        }
+
+        double weight(int edge) {
+            return weights[edge];
+        }
+
+        int ghostOwner(int slot) {
+            return ghostOwners[slot];
+        }
+
+        int ghostIndex(int slot) {
+            return ghostIndices[slot];
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * A single source-destination pair of a batch path query.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class PathQuery<V> {
+    private Vertex<V> source;
+    private Vertex<V> destination;
+
+    /**
+     * Constructs a query for a path from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     */
+    public PathQuery(Vertex<V> source, Vertex<V> destination) {
+        this.source = source;
+        this.destination = destination;
+    }
+
+    /**
+     * Returns the source vertex of the query.
+     *
+     * @return the source vertex
+     */
+    public Vertex<V> getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the destination vertex of the query.
+     *
+     * @return the destination vertex
+     */
+    public Vertex<V> getDestination() {
+        return destination;
+    }
+}
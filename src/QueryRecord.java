@@ -0,0 +1,115 @@
+/**
+ * A search query that took at least the slow-query threshold of {@link GraphMetrics}, with the work it did.
+ */
+public class QueryRecord {
+    private final String algorithm;
+    private final Object source;
+    private final Object destination;
+    private final long timestampMillis;
+    private final long latencyNanos;
+    private final long verticesSettled;
+    private final long edgesRelaxed;
+    private final long heapPushes;
+    private final long decreaseKeys;
+
+    QueryRecord(String algorithm, Object source, Object destination, long timestampMillis, long latencyNanos,
+                long verticesSettled, long edgesRelaxed, long heapPushes, long decreaseKeys) {
+        this.algorithm = algorithm;
+        this.source = source;
+        this.destination = destination;
+        this.timestampMillis = timestampMillis;
+        this.latencyNanos = latencyNanos;
+        this.verticesSettled = verticesSettled;
+        this.edgesRelaxed = edgesRelaxed;
+        this.heapPushes = heapPushes;
+        this.decreaseKeys = decreaseKeys;
+    }
+
+    /**
+     * Returns the name of the algorithm that ran the query.
+     *
+     * @return the algorithm name
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the data of the source vertex.
+     *
+     * @return the source
+     */
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the data of the destination vertex.
+     *
+     * @return the destination, or null for a query from the source to all vertices
+     */
+    public Object getDestination() {
+        return destination;
+    }
+
+    /**
+     * Returns the time the query finished.
+     *
+     * @return the wall-clock time in milliseconds since the epoch
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Returns the latency of the query.
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * Returns the number of vertices the query settled or visited.
+     *
+     * @return the number of settled vertices
+     */
+    public long getVerticesSettled() {
+        return verticesSettled;
+    }
+
+    /**
+     * Returns the number of edges the query scanned.
+     *
+     * @return the number of relaxed edges
+     */
+    public long getEdgesRelaxed() {
+        return edgesRelaxed;
+    }
+
+    /**
+     * Returns the number of vertices the query added to its priority queue or FIFO queue.
+     *
+     * @return the number of pushes
+     */
+    public long getHeapPushes() {
+        return heapPushes;
+    }
+
+    /**
+     * Returns the number of keys the query lowered in its priority queue.
+     *
+     * @return the number of decrease-key operations
+     */
+    public long getDecreaseKeys() {
+        return decreaseKeys;
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + " " + source + " -> " + destination + ": " + latencyNanos / 1000 + " us, "
+                + verticesSettled + " settled, " + edgesRelaxed + " relaxed, " + heapPushes + " pushes, "
+                + decreaseKeys + " decrease-keys";
+    }
+}
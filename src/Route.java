@@ -0,0 +1,85 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One route returned by {@link KShortestPaths}: a simple path and its cost under the original edge weights.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class Route<V> {
+    private final CsrGraph<V> graph;
+    private final int[] vertices;
+    private final double cost;
+
+    Route(CsrGraph<V> graph, int[] vertices, double cost) {
+        this.graph = graph;
+        this.vertices = vertices;
+        this.cost = cost;
+    }
+
+    /**
+     * Returns the data of the vertices on the route, in the same form as {@link Search#findPath(Vertex, Vertex)}.
+     *
+     * @return the list of vertices from the source to the destination
+     */
+    public List<V> getPath() {
+        List<V> path = new ArrayList<>(vertices.length);
+        for (int vertex : vertices) {
+            path.add(graph.vertex(vertex).getData());
+        }
+        return path;
+    }
+
+    /**
+     * Returns the vertices on the route.
+     *
+     * @return an unmodifiable list of the vertices from the source to the destination
+     */
+    public List<Vertex<V>> getVertices() {
+        return new AbstractList<Vertex<V>>() {
+            @Override
+            public Vertex<V> get(int index) {
+                return graph.vertex(vertices[index]);
+            }
+
+            @Override
+            public int size() {
+                return vertices.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the id of the vertex at a position of the route.
+     *
+     * @param index the position on the route
+     * @return the id of the vertex
+     */
+    public int vertex(int index) {
+        return vertices[index];
+    }
+
+    /**
+     * Returns the number of edges on the route.
+     *
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return vertices.length - 1;
+    }
+
+    /**
+     * Returns the total weight of the edges on the route.
+     *
+     * @return the cost of the route
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return getPath() + " (" + cost + ")";
+    }
+}
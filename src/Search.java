@@ -1,3 +1,4 @@
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,4 +15,21 @@ public interface Search<V> {
      * @return a list of data representing the path from the source to the destination
      */
     List<V> findPath(Vertex<V> source, Vertex<V> destination);
+
+    /**
+     * Finds a path for every query of a batch.
+     * <p>
+     * The default implementation answers the queries one by one with {@link #findPath(Vertex, Vertex)};
+     * implementations can share work between queries with the same source.
+     *
+     * @param queries the source-destination pairs to answer
+     * @return the paths, in the same order as the queries
+     */
+    default List<List<V>> findPaths(List<PathQuery<V>> queries) {
+        List<List<V>> paths = new ArrayList<>(queries.size());
+        for (PathQuery<V> query : queries) {
+            paths.add(findPath(query.getSource(), query.getDestination()));
+        }
+        return paths;
+    }
 }
@@ -0,0 +1,26 @@
+/**
+ * The work done by one search query, filled in by the search loops when metrics are enabled.
+ * <p>
+ * The loops count in local variables and store the totals here once at the end, so the counters add no memory
+ * traffic to the loops and are removed entirely by the JIT when {@link GraphMetrics#ENABLED} is false.
+ */
+final class SearchCounters {
+    long settled;
+    long relaxed;
+    long pushes;
+    long decreases;
+
+    void set(long settled, long relaxed, long pushes, long decreases) {
+        this.settled = settled;
+        this.relaxed = relaxed;
+        this.pushes = pushes;
+        this.decreases = decreases;
+    }
+
+    void add(long settled, long relaxed, long pushes, long decreases) {
+        this.settled += settled;
+        this.relaxed += relaxed;
+        this.pushes += pushes;
+        this.decreases += decreases;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Query counts, work counters and latency distribution of one search algorithm.
+ * <p>
+ * Counters are {@link LongAdder}s, which stripe concurrent updates across cells, so searches running on many
+ * threads do not contend on a shared counter. Instances are created and recorded by the searches through
+ * {@link GraphMetrics#search(String)} only when metrics are enabled.
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+    private final String algorithm;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder verticesSettled = new LongAdder();
+    private final LongAdder edgesRelaxed = new LongAdder();
+    private final LongAdder heapPushes = new LongAdder();
+    private final LongAdder decreaseKeys = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    SearchMetrics(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Records one query.
+     *
+     * @param startNanos  the {@link System#nanoTime()} at which the query started
+     * @param counters    the work done by the query
+     * @param source      the data of the source vertex
+     * @param destination the data of the destination vertex, or null for a query to all vertices
+     */
+    void record(long startNanos, SearchCounters counters, Object source, Object destination) {
+        record(startNanos, counters.settled, counters.relaxed, counters.pushes, counters.decreases, source,
+                destination);
+    }
+
+    /**
+     * Records one query.
+     *
+     * @param startNanos  the {@link System#nanoTime()} at which the query started
+     * @param settled     the number of vertices settled
+     * @param relaxed     the number of edges relaxed
+     * @param pushes      the number of queue insertions
+     * @param decreases   the number of decrease-key operations
+     * @param source      the data of the source vertex
+     * @param destination the data of the destination vertex, or null for a query to all vertices
+     */
+    void record(long startNanos, long settled, long relaxed, long pushes, long decreases, Object source,
+                Object destination) {
+        long latency = System.nanoTime() - startNanos;
+        queries.increment();
+        verticesSettled.add(settled);
+        edgesRelaxed.add(relaxed);
+        heapPushes.add(pushes);
+        decreaseKeys.add(decreases);
+        latencies.record(latency);
+        if (latency >= GraphMetrics.getSlowQueryThresholdNanos()) {
+            GraphMetrics.addSlowQuery(new QueryRecord(algorithm, source, destination, System.currentTimeMillis(),
+                    latency, settled, relaxed, pushes, decreases));
+        }
+    }
+
+    /**
+     * Returns the name of the algorithm.
+     *
+     * @return the algorithm name
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the latency distribution in nanoseconds.
+     *
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    @Override
+    public long getVerticesSettled() {
+        return verticesSettled.sum();
+    }
+
+    @Override
+    public long getEdgesRelaxed() {
+        return edgesRelaxed.sum();
+    }
+
+    @Override
+    public long getHeapPushes() {
+        return heapPushes.sum();
+    }
+
+    @Override
+    public long getDecreaseKeys() {
+        return decreaseKeys.sum();
+    }
+
+    @Override
+    public double getMeanVerticesSettled() {
+        long count = queries.sum();
+        return count == 0 ? 0.0 : (double) verticesSettled.sum() / count;
+    }
+
+    @Override
+    public double getMeanEdgesRelaxed() {
+        long count = queries.sum();
+        return count == 0 ? 0.0 : (double) edgesRelaxed.sum() / count;
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latencies.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP50LatencyMicros() {
+        return latencies.getValueAtPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99LatencyMicros() {
+        return latencies.getValueAtPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999LatencyMicros() {
+        return latencies.getValueAtPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return latencies.getMax() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        queries.reset();
+        verticesSettled.reset();
+        edgesRelaxed.reset();
+        heapPushes.reset();
+        decreaseKeys.reset();
+        latencies.reset();
+    }
+}
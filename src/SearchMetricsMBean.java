@@ -0,0 +1,93 @@
+/**
+ * The JMX view of the {@link SearchMetrics} of one algorithm. Latencies are in microseconds.
+ */
+public interface SearchMetricsMBean {
+    /**
+     * Returns the number of recorded queries.
+     *
+     * @return the query count
+     */
+    long getQueryCount();
+
+    /**
+     * Returns the total number of vertices settled by all queries.
+     *
+     * @return the settled vertex count
+     */
+    long getVerticesSettled();
+
+    /**
+     * Returns the total number of edges relaxed by all queries.
+     *
+     * @return the relaxed edge count
+     */
+    long getEdgesRelaxed();
+
+    /**
+     * Returns the total number of queue pushes by all queries.
+     *
+     * @return the push count
+     */
+    long getHeapPushes();
+
+    /**
+     * Returns the total number of decrease-key operations by all queries.
+     *
+     * @return the decrease-key count
+     */
+    long getDecreaseKeys();
+
+    /**
+     * Returns the mean number of vertices settled per query.
+     *
+     * @return the mean settled vertex count
+     */
+    double getMeanVerticesSettled();
+
+    /**
+     * Returns the mean number of edges relaxed per query.
+     *
+     * @return the mean relaxed edge count
+     */
+    double getMeanEdgesRelaxed();
+
+    /**
+     * Returns the mean latency.
+     *
+     * @return the mean latency in microseconds
+     */
+    double getMeanLatencyMicros();
+
+    /**
+     * Returns the median latency.
+     *
+     * @return the median latency in microseconds
+     */
+    double getP50LatencyMicros();
+
+    /**
+     * Returns the 99th percentile latency.
+     *
+     * @return the 99th percentile latency in microseconds
+     */
+    double getP99LatencyMicros();
+
+    /**
+     * Returns the 99.9th percentile latency.
+     *
+     * @return the 99.9th percentile latency in microseconds
+     */
+    double getP999LatencyMicros();
+
+    /**
+     * Returns the largest latency.
+     *
+     * @return the maximum latency in microseconds
+     */
+    double getMaxLatencyMicros();
+
+    /**
+     * Clears all counters and the latency histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,161 @@
+/**
+ * Reusable per-thread state for graph searches: distance and parent labels, a vertex queue and a heap.
+ * <p>
+ * Each thread has a small pool of workspaces, taken with {@link #acquire(int)}. {@link #reset(int)} starts
+ * a new search in constant time, because the labels are stamped with the generation of the search that wrote
+ * them like {@link DistanceLabels}, and the queue and heap only grow when a larger graph is searched. A search
+ * that takes its workspace from the pool therefore allocates nothing once the thread has seen the graph, and
+ * its cost depends on the vertices it touches rather than on the size of the graph.
+ * <p>
+ * A workspace belongs to its thread and is held from {@link #acquire(int)} until {@link #close()}, so a search
+ * takes it in a try-with-resources statement and reads its results before closing it. Taking a slot that is
+ * still held throws an {@link IllegalStateException} instead of letting a nested search, for example one run by
+ * a {@link Heuristic} or by the iterator of a collection passed to {@link Subgraphs}, overwrite the labels of
+ * the search around it. Searches that need two label sets at once, like a bidirectional search, hold the slots
+ * {@link #FORWARD} and {@link #BACKWARD}.
+ */
+public final class SearchWorkspace implements AutoCloseable {
+    /**
+     * The slot of single-direction searches and of the forward half of a bidirectional search.
+     */
+    public static final int FORWARD = 0;
+
+    /**
+     * The slot of the backward half of a bidirectional search.
+     */
+    public static final int BACKWARD = 1;
+
+    private static final ThreadLocal<SearchWorkspace[]> POOL =
+            ThreadLocal.withInitial(() -> new SearchWorkspace[]{new SearchWorkspace(), new SearchWorkspace()});
+
+    private DistanceLabels labels;
+    private IndexedDaryHeap heap;
+    private int[] queue = new int[0];
+    private boolean held;
+
+    private SearchWorkspace() {
+    }
+
+    /**
+     * Takes the workspace of the calling thread for single-direction searches.
+     *
+     * @return the {@link #FORWARD} workspace of the thread
+     * @throws IllegalStateException if the workspace is already held by a search on this thread
+     */
+    public static SearchWorkspace acquire() {
+        return acquire(FORWARD);
+    }
+
+    /**
+     * Takes a workspace of the calling thread, which stays held until it is closed.
+     *
+     * @param slot {@link #FORWARD} or {@link #BACKWARD}
+     * @return the workspace of the thread for that slot
+     * @throws IllegalArgumentException if the slot is out of the range
+     * @throws IllegalStateException    if the workspace is already held by a search on this thread
+     */
+    public static SearchWorkspace acquire(int slot) {
+        if (slot != FORWARD && slot != BACKWARD) {
+            throw new IllegalArgumentException("Slot " + slot + " is out of the range");
+        }
+        SearchWorkspace workspace = POOL.get()[slot];
+        if (workspace.held) {
+            throw new IllegalStateException("Search workspace " + slot + " is already in use on this thread");
+        }
+        workspace.held = true;
+        return workspace;
+    }
+
+    /**
+     * Releases the workspace, so the next search on this thread can take it.
+     */
+    @Override
+    public void close() {
+        held = false;
+    }
+
+    /**
+     * Starts a new search over a graph with the specified number of vertices, marking every vertex unreached
+     * and emptying the heap.
+     *
+     * @param vertexCount the number of vertices in the graph being searched
+     * @return this workspace
+     */
+    public SearchWorkspace reset(int vertexCount) {
+        labels = DijkstraSearch.prepare(labels, vertexCount);
+        heap = DijkstraSearch.prepare(heap, vertexCount);
+        if (queue.length < vertexCount) {
+            queue = new int[vertexCount];
+        }
+        return this;
+    }
+
+    /**
+     * Checks if the vertex has been labelled since the last reset.
+     *
+     * @param vertex the id of the vertex
+     * @return true if the vertex has a label, false otherwise
+     */
+    public boolean reached(int vertex) {
+        return labels.reached(vertex);
+    }
+
+    /**
+     * Returns the label distance of the vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the distance, or positive infinity if the vertex has not been reached
+     */
+    public double distance(int vertex) {
+        return labels.distance(vertex);
+    }
+
+    /**
+     * Returns the label parent of the vertex.
+     *
+     * @param vertex the id of the vertex
+     * @return the id of the parent, or -1 if the vertex is the root or has not been reached
+     */
+    public int parent(int vertex) {
+        return labels.parent(vertex);
+    }
+
+    /**
+     * Labels the vertex with a distance and parent.
+     *
+     * @param vertex   the id of the vertex
+     * @param distance the distance of the vertex
+     * @param parent   the id of the parent, or -1 for the root
+     */
+    public void set(int vertex, double distance, int parent) {
+        labels.set(vertex, distance, parent);
+    }
+
+    /**
+     * Returns a queue array that can hold every vertex of the graph passed to the last reset. Its contents are
+     * left over from earlier searches.
+     *
+     * @return the queue array
+     */
+    public int[] queue() {
+        return queue;
+    }
+
+    /**
+     * Returns the heap, empty after the last reset and able to hold every vertex of the graph.
+     *
+     * @return the heap
+     */
+    public IndexedDaryHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Returns the labels, for the searches that pass them to {@link DijkstraSearch}'s shared routines.
+     *
+     * @return the distance labels
+     */
+    DistanceLabels labels() {
+        return labels;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extraction of small standalone graphs from a large {@link CsrGraph}, for running many local queries on a
+ * region without touching the rest of the graph.
+ * <p>
+ * The result is a compact {@link CsrGraph} with its own dense ids {@code 0..k-1} that holds the same
+ * {@link Vertex} objects as the source graph, so it can be passed to {@link DijkstraSearch}, {@link BFS} or any
+ * other class that accepts a CSR graph and queried with the original vertices. Extraction marks the selected
+ * vertices in the {@link SearchWorkspace} of the calling thread, so it never allocates or scans anything
+ * proportional to the source graph: its cost is the number of selected vertices plus their outgoing edges.
+ */
+public final class Subgraphs {
+    private Subgraphs() {
+    }
+
+    /**
+     * Extracts the subgraph induced by a set of vertices: the vertices and every edge between two of them.
+     *
+     * @param graph    the source graph
+     * @param vertices the vertices to keep; they get ids in the order of the collection, and duplicates are
+     *                 ignored. The collection is iterated while the workspace of the calling thread is held,
+     *                 so its iterator must not run a search on the same thread
+     * @param <V>      the type of data stored in the vertices
+     * @return the induced subgraph
+     * @throws IllegalArgumentException if a vertex is not present in the graph
+     * @throws IllegalStateException    if the workspace of the thread is already held by a search
+     */
+    public static <V> CsrGraph<V> induced(CsrGraph<V> graph, Collection<Vertex<V>> vertices) {
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(graph.vertexCount());
+            int[] members = workspace.queue();
+            int memberCount = 0;
+            for (Vertex<V> vertex : vertices) {
+                int id = graph.indexOf(vertex);
+                if (!workspace.reached(id)) {
+                    // The parent slot of a selected vertex holds its id in the subgraph
+                    workspace.set(id, 0, memberCount);
+                    members[memberCount++] = id;
+                }
+            }
+            return build(graph, workspace, members, memberCount);
+        }
+    }
+
+    /**
+     * Extracts the k-hop neighborhood of a vertex: the subgraph induced by every vertex reachable from it over
+     * at most the specified number of outgoing edges.
+     *
+     * @param graph  the source graph
+     * @param center the vertex at the center of the neighborhood, which gets id 0
+     * @param hops   the maximum number of edges from the center
+     * @param <V>    the type of data stored in the vertices
+     * @return the neighborhood subgraph, with vertices in breadth-first order
+     * @throws IllegalArgumentException if the vertex is not present in the graph or the hop count is negative
+     */
+    public static <V> CsrGraph<V> neighborhood(CsrGraph<V> graph, Vertex<V> center, int hops) {
+        if (hops < 0) {
+            throw new IllegalArgumentException("Hop count " + hops + " is out of the range");
+        }
+        int start = graph.indexOf(center);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            workspace.reset(graph.vertexCount());
+            int[] members = workspace.queue();
+            int head = 0;
+            int tail = 0;
+
+            // The distance slot of a selected vertex holds its hop count, and its parent slot its id in the subgraph
+            workspace.set(start, 0, tail);
+            members[tail++] = start;
+            while (head < tail) {
+                int currentVertex = members[head++];
+                double depth = workspace.distance(currentVertex);
+                if (depth == hops) {
+                    continue;
+                }
+                for (int e = graph.edgeStart(currentVertex), end = graph.edgeEnd(currentVertex); e < end; e++) {
+                    int neighborVertex = graph.target(e);
+                    if (!workspace.reached(neighborVertex)) {
+                        workspace.set(neighborVertex, depth + 1, tail);
+                        members[tail++] = neighborVertex;
+                    }
+                }
+            }
+            return build(graph, workspace, members, tail);
+        }
+    }
+
+    /**
+     * Extracts the k-hop neighborhood of a vertex from the current snapshot of a weighted graph.
+     *
+     * @param graph  the source graph
+     * @param center the vertex at the center of the neighborhood, which gets id 0
+     * @param hops   the maximum number of edges from the center
+     * @param <V>    the type of data stored in the vertices
+     * @return the neighborhood subgraph, with vertices in breadth-first order
+     * @throws IllegalArgumentException if the vertex is not present in the graph or the hop count is negative
+     * @see #neighborhood(CsrGraph, Vertex, int)
+     */
+    public static <V> CsrGraph<V> neighborhood(WeightedGraph<V> graph, Vertex<V> center, int hops) {
+        return neighborhood(graph.freeze(), center, hops);
+    }
+
+    /**
+     * Copies the selected vertices and the edges between them into a new CSR graph, keeping the order of the
+     * edges of every vertex.
+     */
+    private static <V> CsrGraph<V> build(CsrGraph<V> graph, SearchWorkspace workspace, int[] members,
+                                         int memberCount) {
+        int[] offsets = new int[memberCount + 1];
+        for (int i = 0; i < memberCount; i++) {
+            int count = 0;
+            for (int e = graph.edgeStart(members[i]), end = graph.edgeEnd(members[i]); e < end; e++) {
+                if (workspace.reached(graph.target(e))) {
+                    count++;
+                }
+            }
+            offsets[i + 1] = offsets[i] + count;
+        }
+
+        int[] targets = new int[offsets[memberCount]];
+        double[] weights = new double[targets.length];
+        List<Vertex<V>> vertices = new ArrayList<>(memberCount);
+        Map<Vertex<V>, Integer> index = new HashMap<>(Math.max(16, (int) (memberCount / 0.75f) + 1));
+        for (int i = 0, position = 0; i < memberCount; i++) {
+            Vertex<V> vertex = graph.vertex(members[i]);
+            vertices.add(vertex);
+            index.put(vertex, i);
+            for (int e = graph.edgeStart(members[i]), end = graph.edgeEnd(members[i]); e < end; e++) {
+                int target = graph.target(e);
+                if (workspace.reached(target)) {
+                    targets[position] = workspace.parent(target);
+                    weights[position] = graph.weight(e);
+                    position++;
+                }
+            }
+        }
+        return CsrGraph.of(vertices, index, offsets, targets, weights);
+    }
+}
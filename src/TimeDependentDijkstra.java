@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Earliest-arrival searches over the time-dependent travel times of {@link TravelTimeProfiles}.
+ * <p>
+ * The search is Dijkstra's algorithm with arrival times as labels: an edge entered at the arrival time of its
+ * tail is left at {@link TravelTimeProfiles#arrivalTime(int, double)}. Because every profile is FIFO, waiting
+ * at a vertex never helps and the first time a vertex is settled is its earliest arrival, so the search is
+ * exact and settles every vertex once, like its static counterpart. The heap and labels come from the
+ * {@link SearchWorkspace} of the calling thread, and an instance can serve concurrent queries.
+ *
+ * @param <V> the type of vertex in the graph
+ */
+public class TimeDependentDijkstra<V> {
+    private final TravelTimeProfiles<V> profiles;
+
+    /**
+     * Constructs a TimeDependentDijkstra object that searches the graph of the specified profiles.
+     *
+     * @param profiles the travel time profiles of the edges
+     */
+    public TimeDependentDijkstra(TravelTimeProfiles<V> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * Returns the earliest arrival time at the destination when leaving the source at the departure time.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param departure   the departure time
+     * @return the earliest arrival time, or positive infinity if the destination is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph
+     */
+    public double earliestArrival(Vertex<V> source, Vertex<V> destination, double departure) {
+        CsrGraph<V> csr = profiles.getGraph();
+        int to = csr.indexOf(destination);
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            return settle(workspace, csr.indexOf(source), to, departure).distance(to);
+        }
+    }
+
+    /**
+     * Finds the fastest path from the source vertex to the destination vertex for the departure time.
+     *
+     * @param source      the source vertex
+     * @param destination the destination vertex
+     * @param departure   the departure time
+     * @return the list of vertices on the path, or only the destination if it is unreachable
+     * @throws IllegalArgumentException if a vertex is not present in the graph
+     */
+    public List<V> findPath(Vertex<V> source, Vertex<V> destination, double departure) {
+        CsrGraph<V> csr = profiles.getGraph();
+        int to = csr.indexOf(destination);
+        LinkedList<V> path = new LinkedList<>();
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            DistanceLabels labels = settle(workspace, csr.indexOf(source), to, departure);
+            for (int v = to; v != -1; v = labels.parent(v)) {
+                path.addFirst(csr.vertex(v).getData());
+            }
+        }
+        return new ArrayList<>(path);
+    }
+
+    /**
+     * Computes the earliest arrival time at every vertex when leaving the source at the departure time.
+     *
+     * @param source    the source vertex
+     * @param departure the departure time
+     * @return a map containing every vertex and its earliest arrival time, positive infinity if unreachable
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public Map<Vertex<V>, Double> arrivalTimes(Vertex<V> source, double departure) {
+        CsrGraph<V> csr = profiles.getGraph();
+        Map<Vertex<V>, Double> result = new HashMap<>();
+        try (SearchWorkspace workspace = SearchWorkspace.acquire()) {
+            DistanceLabels labels = settle(workspace, csr.indexOf(source), -1, departure);
+            for (int v = 0; v < csr.vertexCount(); v++) {
+                result.put(csr.vertex(v), labels.distance(v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the search from the source until the target is settled, or over the whole reachable graph if the
+     * target is -1.
+     *
+     * @return the labels of the held workspace, which is reset first, holding arrival times and parents
+     */
+    private DistanceLabels settle(SearchWorkspace workspace, int from, int to, double departure) {
+        CsrGraph<V> csr = profiles.getGraph();
+        workspace.reset(csr.vertexCount());
+        DistanceLabels labels = workspace.labels();
+        IndexedDaryHeap queue = workspace.heap();
+        labels.set(from, departure, -1);
+        queue.insert(from, departure);
+
+        while (!queue.isEmpty()) {
+            int currentVertex = queue.pollMin();
+            if (currentVertex == to) {
+                break;
+            }
+            double currentTime = labels.distance(currentVertex);
+            for (int e = csr.edgeStart(currentVertex), end = csr.edgeEnd(currentVertex); e < end; e++) {
+                int neighborVertex = csr.target(e);
+                double arrival = profiles.arrivalTime(e, currentTime);
+                if (arrival < labels.distance(neighborVertex)) {
+                    labels.set(neighborVertex, arrival, currentVertex);
+                    queue.insertOrDecrease(neighborVertex, arrival);
+                }
+            }
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,307 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Time-dependent travel times for the edges of a {@link CsrGraph}, searched by {@link TimeDependentDijkstra}.
+ * <p>
+ * A profile is a periodic piecewise-linear function of the departure time, given by breakpoints within one
+ * period, for example a day of 86400 seconds. Between breakpoints the travel time is interpolated linearly,
+ * and after the last breakpoint it runs towards the first one of the next period. Every profile must have the
+ * FIFO property: departing later never means arriving earlier, so no slope of the function may fall below -1.
+ * Edges without a profile keep their static weight as a constant travel time.
+ * <p>
+ * Profiles are stored once and shared: each edge holds the id of its profile in an int array, and all
+ * breakpoints live in two float arrays indexed by profile. Identical profiles added for different edges are
+ * stored once, so memory grows with the number of edges plus the number of distinct profiles rather than with
+ * the number of edges times the breakpoints per profile. Storing the breakpoints as floats keeps them within
+ * a hundredth of a second over a day.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class TravelTimeProfiles<V> {
+    private final CsrGraph<V> graph;
+    private final double period;
+    private final int[] edgeProfiles;
+    private final int[] profileStarts;
+    private final float[] times;
+    private final float[] travelTimes;
+
+    private TravelTimeProfiles(CsrGraph<V> graph, double period, int[] edgeProfiles, int[] profileStarts,
+                               float[] times, float[] travelTimes) {
+        this.graph = graph;
+        this.period = period;
+        this.edgeProfiles = edgeProfiles;
+        this.profileStarts = profileStarts;
+        this.times = times;
+        this.travelTimes = travelTimes;
+    }
+
+    /**
+     * Returns the graph whose edges the profiles belong to.
+     *
+     * @return the CSR graph
+     */
+    public CsrGraph<V> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the length of one period of the profiles.
+     *
+     * @return the period
+     */
+    public double getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the number of distinct profiles.
+     *
+     * @return the profile count
+     */
+    public int profileCount() {
+        return profileStarts.length - 1;
+    }
+
+    /**
+     * Returns the total number of breakpoints of the distinct profiles.
+     *
+     * @return the breakpoint count
+     */
+    public int breakpointCount() {
+        return times.length;
+    }
+
+    /**
+     * Checks if an edge has a profile.
+     *
+     * @param edge the index of the edge
+     * @return true if the edge has a time-dependent travel time, false if it uses its static weight
+     */
+    public boolean hasProfile(int edge) {
+        return edgeProfiles[edge] >= 0;
+    }
+
+    /**
+     * Returns the travel time of an edge when entering it at the specified time.
+     *
+     * @param edge      the index of the edge
+     * @param departure the time the edge is entered
+     * @return the travel time
+     */
+    public double travelTime(int edge, double departure) {
+        int profile = edgeProfiles[edge];
+        if (profile < 0) {
+            return graph.weight(edge);
+        }
+        int start = profileStarts[profile];
+        int end = profileStarts[profile + 1];
+        if (end - start == 1) {
+            return travelTimes[start];
+        }
+        double time = departure - Math.floor(departure / period) * period;
+        // The last breakpoint at or before the time; before the first breakpoint the wrap segment applies
+        int low = start;
+        int high = end - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        int left = low - 1;
+        double leftTime;
+        double rightTime;
+        int right;
+        if (left < start) {
+            left = end - 1;
+            right = start;
+            leftTime = times[left] - period;
+            rightTime = times[right];
+        } else if (left == end - 1) {
+            right = start;
+            leftTime = times[left];
+            rightTime = times[right] + period;
+        } else {
+            right = left + 1;
+            leftTime = times[left];
+            rightTime = times[right];
+        }
+        double fraction = (time - leftTime) / (rightTime - leftTime);
+        return travelTimes[left] + fraction * (travelTimes[right] - travelTimes[left]);
+    }
+
+    /**
+     * Returns the time of arrival at the head of an edge when entering it at the specified time.
+     *
+     * @param edge      the index of the edge
+     * @param departure the time the edge is entered
+     * @return the arrival time, which never decreases with the departure time
+     */
+    public double arrivalTime(int edge, double departure) {
+        return departure + travelTime(edge, departure);
+    }
+
+    /**
+     * Collects the profiles of the edges of one graph.
+     *
+     * @param <V> the type of data stored in the vertices
+     */
+    public static class Builder<V> {
+        private final CsrGraph<V> graph;
+        private final double period;
+        private final int[] edgeProfiles;
+        private final Map<Profile, Integer> profileIds = new HashMap<>();
+        private int[] profileStarts = new int[16];
+        private float[] times = new float[64];
+        private float[] travelTimes = new float[64];
+        private int profileCount;
+        private int breakpointCount;
+
+        /**
+         * Constructs a builder for the edges of the specified graph, with every edge on its static weight.
+         *
+         * @param graph  the graph whose edges get profiles
+         * @param period the length of one period, for example 86400 for a day in seconds
+         * @throws IllegalArgumentException if the period is not positive or the graph has a negative weight
+         */
+        public Builder(CsrGraph<V> graph, double period) {
+            if (!(period > 0) || Double.isInfinite(period)) {
+                throw new IllegalArgumentException("Period " + period + " is out of the range");
+            }
+            if (graph.minWeight() < 0) {
+                throw new IllegalArgumentException("Edge weight " + graph.minWeight() + " is out of the range");
+            }
+            this.graph = graph;
+            this.period = period;
+            this.edgeProfiles = new int[graph.edgeCount()];
+            Arrays.fill(edgeProfiles, -1);
+        }
+
+        /**
+         * Adds a profile, or finds an identical one added before.
+         *
+         * @param times       the breakpoint times, strictly increasing within {@code [0, period)}
+         * @param travelTimes the non-negative travel time at each breakpoint
+         * @return the id of the profile, to be passed to {@link #setProfile(int, int)}
+         * @throws IllegalArgumentException if the breakpoints are invalid or the profile is not FIFO
+         */
+        public int addProfile(double[] times, double[] travelTimes) {
+            if (times.length == 0 || times.length != travelTimes.length) {
+                throw new IllegalArgumentException("Breakpoint count " + times.length + " is out of the range");
+            }
+            for (int i = 0; i < times.length; i++) {
+                // Compare the stored float values, so that rounding cannot merge two breakpoints
+                float time = (float) times[i];
+                if (!(time >= 0 && time < period) || i > 0 && !(time > (float) times[i - 1])) {
+                    throw new IllegalArgumentException("Breakpoint time " + times[i] + " is out of the range");
+                }
+                if (!(travelTimes[i] >= 0) || Double.isInfinite(travelTimes[i])) {
+                    throw new IllegalArgumentException("Travel time " + travelTimes[i] + " is out of the range");
+                }
+            }
+            for (int i = 0; i < times.length && times.length > 1; i++) {
+                int next = (i + 1) % times.length;
+                double span = next == 0 ? times[0] + period - times[i] : times[next] - times[i];
+                // FIFO: the arrival time t + f(t) must not decrease along the segment
+                if (travelTimes[next] - travelTimes[i] < -span) {
+                    throw new IllegalArgumentException("Profile segment at " + times[i] + " is not FIFO");
+                }
+            }
+
+            Profile key = new Profile(times, travelTimes);
+            Integer existing = profileIds.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (profileCount + 2 > profileStarts.length) {
+                profileStarts = Arrays.copyOf(profileStarts, profileStarts.length * 2);
+            }
+            while (breakpointCount + times.length > this.times.length) {
+                this.times = Arrays.copyOf(this.times, this.times.length * 2);
+                this.travelTimes = Arrays.copyOf(this.travelTimes, this.travelTimes.length * 2);
+            }
+            for (int i = 0; i < times.length; i++) {
+                this.times[breakpointCount] = (float) times[i];
+                this.travelTimes[breakpointCount] = (float) travelTimes[i];
+                breakpointCount++;
+            }
+            profileStarts[++profileCount] = breakpointCount;
+            profileIds.put(key, profileCount - 1);
+            return profileCount - 1;
+        }
+
+        /**
+         * Assigns a profile to an edge.
+         *
+         * @param edge    the index of the edge in the graph
+         * @param profile the id returned by {@link #addProfile(double[], double[])}, or -1 to use the static
+         *                weight of the edge
+         * @return this builder
+         * @throws IllegalArgumentException if the edge or the profile is out of the range
+         */
+        public Builder<V> setProfile(int edge, int profile) {
+            if (edge < 0 || edge >= edgeProfiles.length) {
+                throw new IllegalArgumentException("Edge " + edge + " is out of the range");
+            }
+            if (profile < -1 || profile >= profileCount) {
+                throw new IllegalArgumentException("Profile " + profile + " is out of the range");
+            }
+            edgeProfiles[edge] = profile;
+            return this;
+        }
+
+        /**
+         * Adds a profile and assigns it to an edge.
+         *
+         * @param edge        the index of the edge in the graph
+         * @param times       the breakpoint times, strictly increasing within {@code [0, period)}
+         * @param travelTimes the non-negative travel time at each breakpoint
+         * @return this builder
+         * @throws IllegalArgumentException if the edge or the breakpoints are invalid, or the profile is not FIFO
+         */
+        public Builder<V> setProfile(int edge, double[] times, double[] travelTimes) {
+            return setProfile(edge, addProfile(times, travelTimes));
+        }
+
+        /**
+         * Builds the profiles.
+         *
+         * @return the immutable profiles
+         */
+        public TravelTimeProfiles<V> build() {
+            return new TravelTimeProfiles<>(graph, period, edgeProfiles.clone(),
+                    Arrays.copyOf(profileStarts, profileCount + 1), Arrays.copyOf(times, breakpointCount),
+                    Arrays.copyOf(travelTimes, breakpointCount));
+        }
+    }
+
+    /**
+     * The breakpoints of a profile as a hash key for sharing identical profiles.
+     */
+    private static class Profile {
+        private final double[] times;
+        private final double[] travelTimes;
+        private final int hash;
+
+        Profile(double[] times, double[] travelTimes) {
+            this.times = times.clone();
+            this.travelTimes = travelTimes.clone();
+            this.hash = 31 * Arrays.hashCode(times) + Arrays.hashCode(travelTimes);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Profile && Arrays.equals(times, ((Profile) other).times)
+                    && Arrays.equals(travelTimes, ((Profile) other).travelTimes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,584 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy graph traversals that produce one {@link Visit} at a time.
+ * <p>
+ * A traversal runs over the {@link CsrGraph} snapshot of the graph and does only the work needed for the
+ * visits consumed so far: the edges of a vertex are scanned when the next visit is requested, so taking the
+ * first k visits of a traversal over millions of vertices costs about k expansions. Traversals are available
+ * as an {@link Iterator}, a sequential {@link Stream} and a {@link Flow.Publisher} that respects the demand of
+ * its subscriber.
+ * <p>
+ * The search can be cut short with {@link #maxDepth(int)}, which stops expanding vertices at a depth,
+ * {@link #maxDistance(double)}, which skips vertices farther than a distance, and {@link #stopAt(Vertex)} or
+ * {@link #stopAt(Predicate)}, which end the traversal after visiting a matching vertex. These methods return a
+ * new traversal, so a configured instance is immutable and can be shared between threads when it is built over
+ * a {@link CsrGraph} or a {@link GraphStore}.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class Traversal<V> {
+    /**
+     * The order in which a traversal visits vertices.
+     */
+    public enum Order {
+        /**
+         * Breadth-first order: by increasing number of edges from the start vertex.
+         */
+        BREADTH_FIRST,
+
+        /**
+         * Depth-first preorder, following the edges of each vertex in adjacency order.
+         */
+        DEPTH_FIRST,
+
+        /**
+         * Dijkstra settle order: by increasing shortest distance from the start vertex. Edge weights must be
+         * non-negative.
+         */
+        DIJKSTRA
+    }
+
+    private final WeightedGraph<V> graph;
+    private final CsrGraph<V> snapshot;
+    private final GraphStore<V> store;
+    private final int maxDepth;
+    private final double maxDistance;
+    private final Vertex<V> stopVertex;
+    private final Predicate<Vertex<V>> stopCondition;
+
+    /**
+     * Constructs a traversal over the specified weighted graph.
+     *
+     * @param graph the weighted graph to traverse
+     */
+    public Traversal(WeightedGraph<V> graph) {
+        this(graph, null, null, Integer.MAX_VALUE, Double.POSITIVE_INFINITY, null, null);
+    }
+
+    /**
+     * Constructs a traversal over the specified CSR snapshot.
+     *
+     * @param snapshot the CSR graph to traverse
+     */
+    public Traversal(CsrGraph<V> snapshot) {
+        this(null, snapshot, null, Integer.MAX_VALUE, Double.POSITIVE_INFINITY, null, null);
+    }
+
+    /**
+     * Constructs a traversal over the latest snapshot of the specified store.
+     *
+     * @param store the store to traverse
+     */
+    public Traversal(GraphStore<V> store) {
+        this(null, null, store, Integer.MAX_VALUE, Double.POSITIVE_INFINITY, null, null);
+    }
+
+    private Traversal(WeightedGraph<V> graph, CsrGraph<V> snapshot, GraphStore<V> store, int maxDepth,
+                      double maxDistance, Vertex<V> stopVertex, Predicate<Vertex<V>> stopCondition) {
+        this.graph = graph;
+        this.snapshot = snapshot;
+        this.store = store;
+        this.maxDepth = maxDepth;
+        this.maxDistance = maxDistance;
+        this.stopVertex = stopVertex;
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     * Returns a traversal that does not expand vertices at the specified depth, so no visit is deeper.
+     *
+     * @param depth the largest depth to visit
+     * @return the limited traversal
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public Traversal<V> maxDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth " + depth + " is out of the range");
+        }
+        return new Traversal<>(graph, snapshot, store, depth, maxDistance, stopVertex, stopCondition);
+    }
+
+    /**
+     * Returns a traversal that skips vertices whose distance in the traversal tree exceeds the specified one.
+     *
+     * @param distance the largest distance to visit
+     * @return the limited traversal
+     * @throws IllegalArgumentException if the distance is negative or not a number
+     */
+    public Traversal<V> maxDistance(double distance) {
+        if (!(distance >= 0)) {
+            throw new IllegalArgumentException("Distance " + distance + " is out of the range");
+        }
+        return new Traversal<>(graph, snapshot, store, maxDepth, distance, stopVertex, stopCondition);
+    }
+
+    /**
+     * Returns a traversal that ends right after visiting the specified vertex.
+     *
+     * @param vertex the vertex to stop at
+     * @return the limited traversal
+     */
+    public Traversal<V> stopAt(Vertex<V> vertex) {
+        return new Traversal<>(graph, snapshot, store, maxDepth, maxDistance, Objects.requireNonNull(vertex),
+                stopCondition);
+    }
+
+    /**
+     * Returns a traversal that ends right after visiting the first vertex that matches the specified condition.
+     *
+     * @param condition the condition to stop at
+     * @return the limited traversal
+     */
+    public Traversal<V> stopAt(Predicate<Vertex<V>> condition) {
+        return new Traversal<>(graph, snapshot, store, maxDepth, maxDistance, stopVertex,
+                Objects.requireNonNull(condition));
+    }
+
+    /**
+     * Returns the CSR graph to traverse, refreshing the snapshot of a mutable graph if needed.
+     *
+     * @return the CSR graph
+     */
+    private CsrGraph<V> csr() {
+        if (graph != null) {
+            return graph.freeze();
+        }
+        return store != null ? store.snapshot() : snapshot;
+    }
+
+    /**
+     * Starts a traversal from the specified vertex.
+     *
+     * @param order       the order of the visits
+     * @param startVertex the start vertex
+     * @return an iterator that computes each visit when it is requested
+     * @throws IllegalArgumentException if the start vertex is not present in the graph, or if the order is
+     *                                  {@link Order#DIJKSTRA} and the graph has a negative edge weight
+     */
+    public Iterator<Visit<V>> iterator(Order order, Vertex<V> startVertex) {
+        CsrGraph<V> csr = csr();
+        int start = csr.indexOf(startVertex);
+        int stop = stopVertex != null && csr.containsVertex(stopVertex) ? csr.indexOf(stopVertex) : -1;
+        switch (order) {
+            case BREADTH_FIRST:
+                return new BreadthFirst(csr, start, stop);
+            case DEPTH_FIRST:
+                return new DepthFirst(csr, start, stop);
+            default:
+                if (csr.minWeight() < 0) {
+                    throw new IllegalArgumentException("Edge weight " + csr.minWeight() + " is out of the range");
+                }
+                return new SettleOrder(csr, start, stop);
+        }
+    }
+
+    /**
+     * Starts a traversal from the specified vertex as a sequential stream.
+     * <p>
+     * The stream pulls visits from {@link #iterator(Order, Vertex)}, so short-circuiting operations such as
+     * {@code limit}, {@code findFirst} or {@code anyMatch} end the search early.
+     *
+     * @param order       the order of the visits
+     * @param startVertex the start vertex
+     * @return a lazy stream of visits
+     * @throws IllegalArgumentException if the start vertex is not present in the graph, or if the order is
+     *                                  {@link Order#DIJKSTRA} and the graph has a negative edge weight
+     */
+    public Stream<Visit<V>> stream(Order order, Vertex<V> startVertex) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(order, startVertex),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns a publisher of the traversal from the specified vertex that delivers on the common ForkJoin pool.
+     *
+     * @param order       the order of the visits
+     * @param startVertex the start vertex
+     * @return a publisher that runs one traversal per subscriber
+     * @see #publisher(Order, Vertex, Executor)
+     */
+    public Flow.Publisher<Visit<V>> publisher(Order order, Vertex<V> startVertex) {
+        return publisher(order, startVertex, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a publisher of the traversal from the specified vertex.
+     * <p>
+     * Every subscriber gets its own traversal, which advances only as far as the subscriber has requested, so
+     * a slow subscriber holds the search back instead of buffering visits. Signals to one subscriber are
+     * delivered on the executor one at a time. Errors, such as a start vertex that is not in the graph, are
+     * reported with {@code onError}.
+     *
+     * @param order       the order of the visits
+     * @param startVertex the start vertex
+     * @param executor    the executor that runs the traversal and delivers the signals
+     * @return a publisher that runs one traversal per subscriber
+     */
+    public Flow.Publisher<Visit<V>> publisher(Order order, Vertex<V> startVertex, Executor executor) {
+        Objects.requireNonNull(order);
+        Objects.requireNonNull(executor);
+        return subscriber -> {
+            Objects.requireNonNull(subscriber);
+            Subscription subscription = new Subscription(subscriber, order, startVertex, executor);
+            subscriber.onSubscribe(subscription);
+        };
+    }
+
+    /**
+     * An iterator that computes its next visit on demand and applies the stop conditions.
+     * <p>
+     * The labels of the reached vertices live in primitive hash maps and the frontier in arrays that start small
+     * and double when full, so the memory and the setup cost of a walk grow with the vertices it reaches rather
+     * than with the size of the graph.
+     */
+    private abstract class Walk implements Iterator<Visit<V>> {
+        final CsrGraph<V> csr;
+        private final IntDoubleMap distances = new IntDoubleMap();
+        private final IntIntMap parents = new IntIntMap();
+        private final IntIntMap depths = new IntIntMap();
+        private final int stop;
+        private Visit<V> next;
+        private boolean finished;
+
+        Walk(CsrGraph<V> csr, int start, int stop) {
+            this.csr = csr;
+            this.stop = stop;
+            label(start, 0.0, -1, 0);
+        }
+
+        /**
+         * Returns the id of the next vertex to visit, or -1 when the traversal is over.
+         */
+        abstract int advance();
+
+        final boolean reached(int vertex) {
+            return distances.containsKey(vertex);
+        }
+
+        final double distance(int vertex) {
+            return distances.get(vertex, Double.POSITIVE_INFINITY);
+        }
+
+        final int depth(int vertex) {
+            return depths.get(vertex, 0);
+        }
+
+        final void label(int vertex, double distance, int parent, int depth) {
+            distances.put(vertex, distance);
+            parents.put(vertex, parent);
+            depths.put(vertex, depth);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !finished) {
+                int vertex = advance();
+                if (vertex == -1) {
+                    finished = true;
+                } else {
+                    next = new Visit<>(csr, vertex, parents.get(vertex, -1), depth(vertex), distance(vertex));
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Visit<V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Visit<V> visit = next;
+            next = null;
+            if (visit.id() == stop || stopCondition != null && stopCondition.test(visit.getVertex())) {
+                finished = true;
+            }
+            return visit;
+        }
+    }
+
+    /**
+     * Breadth-first traversal with a growable array queue; a vertex is expanded when the visit after it is
+     * requested.
+     */
+    private final class BreadthFirst extends Walk {
+        private int[] queue = new int[16];
+        private int head;
+        private int tail;
+        private int last = -1;
+
+        BreadthFirst(CsrGraph<V> csr, int start, int stop) {
+            super(csr, start, stop);
+            queue[tail++] = start;
+        }
+
+        @Override
+        int advance() {
+            if (last != -1 && depth(last) < maxDepth) {
+                double distance = distance(last);
+                int depth = depth(last) + 1;
+                for (int e = csr.edgeStart(last), end = csr.edgeEnd(last); e < end; e++) {
+                    int neighborVertex = csr.target(e);
+                    double distanceThroughCurrent = distance + csr.weight(e);
+                    if (!reached(neighborVertex) && distanceThroughCurrent <= maxDistance) {
+                        label(neighborVertex, distanceThroughCurrent, last, depth);
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        }
+                        queue[tail++] = neighborVertex;
+                    }
+                }
+            }
+            last = head < tail ? queue[head++] : -1;
+            return last;
+        }
+    }
+
+    /**
+     * Depth-first preorder traversal with an explicit stack that keeps a cursor into the edges of every open
+     * vertex.
+     */
+    private final class DepthFirst extends Walk {
+        private int[] stack = new int[16];
+        private int[] cursors = new int[16];
+        private int top;
+        private int first;
+
+        DepthFirst(CsrGraph<V> csr, int start, int stop) {
+            super(csr, start, stop);
+            first = start;
+        }
+
+        @Override
+        int advance() {
+            if (first != -1) {
+                int vertex = first;
+                first = -1;
+                open(vertex);
+                return vertex;
+            }
+            while (top > 0) {
+                int currentVertex = stack[top - 1];
+                if (cursors[top - 1] == csr.edgeEnd(currentVertex)) {
+                    top--;
+                    continue;
+                }
+                int e = cursors[top - 1]++;
+                int neighborVertex = csr.target(e);
+                double distanceThroughCurrent = distance(currentVertex) + csr.weight(e);
+                if (!reached(neighborVertex) && distanceThroughCurrent <= maxDistance) {
+                    label(neighborVertex, distanceThroughCurrent, currentVertex, depth(currentVertex) + 1);
+                    open(neighborVertex);
+                    return neighborVertex;
+                }
+            }
+            return -1;
+        }
+
+        private void open(int vertex) {
+            if (depth(vertex) < maxDepth) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    cursors = Arrays.copyOf(cursors, top * 2);
+                }
+                stack[top] = vertex;
+                cursors[top] = csr.edgeStart(vertex);
+                top++;
+            }
+        }
+    }
+
+    /**
+     * Dijkstra traversal that settles one vertex per visit and relaxes its edges when the next one is requested.
+     * <p>
+     * The priority queue is a growable binary heap of (distance, vertex) entries without a position index, so a
+     * relaxation that lowers a distance inserts a new entry and the old one is skipped when it comes out: it no
+     * longer matches the label of its vertex, since distances only decrease.
+     */
+    private final class SettleOrder extends Walk {
+        private double[] keys = new double[16];
+        private int[] vertices = new int[16];
+        private int size;
+        private int last = -1;
+
+        SettleOrder(CsrGraph<V> csr, int start, int stop) {
+            super(csr, start, stop);
+            push(start, 0.0);
+        }
+
+        @Override
+        int advance() {
+            if (last != -1 && depth(last) < maxDepth) {
+                double distance = distance(last);
+                int depth = depth(last) + 1;
+                for (int e = csr.edgeStart(last), end = csr.edgeEnd(last); e < end; e++) {
+                    int neighborVertex = csr.target(e);
+                    double distanceThroughCurrent = distance + csr.weight(e);
+                    if (distanceThroughCurrent < distance(neighborVertex) && distanceThroughCurrent <= maxDistance) {
+                        label(neighborVertex, distanceThroughCurrent, last, depth);
+                        push(neighborVertex, distanceThroughCurrent);
+                    }
+                }
+            }
+            last = -1;
+            while (size > 0 && last == -1) {
+                double key = keys[0];
+                int vertex = vertices[0];
+                pop();
+                if (key == distance(vertex)) {
+                    last = vertex;
+                }
+            }
+            return last;
+        }
+
+        private void push(int vertex, double key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                vertices = Arrays.copyOf(vertices, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                vertices[i] = vertices[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            vertices[i] = vertex;
+        }
+
+        private void pop() {
+            double key = keys[--size];
+            int vertex = vertices[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                vertices[i] = vertices[child];
+                i = child;
+            }
+            keys[i] = key;
+            vertices[i] = vertex;
+        }
+    }
+
+    /**
+     * The subscription of one subscriber to a published traversal.
+     * <p>
+     * Requests and cancellations only update atomic state and schedule a drain on the executor. The
+     * work-in-progress counter makes sure at most one drain runs at a time, so the subscriber receives its
+     * signals serially and never more visits than it has requested.
+     */
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Visit<V>> subscriber;
+        private final Order order;
+        private final Vertex<V> startVertex;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private Iterator<Visit<V>> iterator;
+        private boolean done;
+
+        Subscription(Flow.Subscriber<? super Visit<V>> subscriber, Order order, Vertex<V> startVertex,
+                     Executor executor) {
+            this.subscriber = subscriber;
+            this.order = order;
+            this.startVertex = startVertex;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand " + n + " is out of the range");
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    drain();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            try {
+                if (iterator == null && !cancelled) {
+                    iterator = iterator(order, startVertex);
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !cancelled && error == null && iterator.hasNext()) {
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    done = true;
+                } else if (error != null) {
+                    done = true;
+                    subscriber.onError(error);
+                } else if (!iterator.hasNext()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } catch (RuntimeException e) {
+                done = true;
+                if (!cancelled) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+    }
+}
@@ -1,14 +1,21 @@
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents a vertex in a graph.
+ * <p>
+ * The first {@link WeightedGraph} a vertex is added to gives it a dense id, which the graph and its
+ * {@link CsrGraph} snapshots use to find the vertex without hashing. The adjacency map of the vertex is an
+ * optional view that is independent of any graph; it is only allocated when one of its methods adds an entry.
  *
  * @param <V> the type of data stored in the vertex
  */
 public class Vertex<V> {
     private V data;
     private Map<Vertex<V>, Double> adjVertex;
+    private int owner;
+    private int id = -1;
 
     /**
      * Constructs a vertex with the specified data.
@@ -17,7 +24,35 @@ public class Vertex<V> {
      */
     public Vertex(V data) {
         this.data = data;
-        this.adjVertex = new HashMap<>();
+    }
+
+    /**
+     * Returns the dense id given to the vertex by the first graph it was added to.
+     *
+     * @return the id of the vertex, or -1 if it has not been added to a graph
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the tag of the graph that assigned the id of the vertex.
+     *
+     * @return the owner tag, or 0 if the vertex has no id
+     */
+    int getOwner() {
+        return owner;
+    }
+
+    /**
+     * Gives the vertex its id. Called by {@link WeightedGraph} for vertices without an owner.
+     *
+     * @param owner the tag of the graph
+     * @param id    the id of the vertex in the graph
+     */
+    void assignId(int owner, int id) {
+        this.owner = owner;
+        this.id = id;
     }
 
     /**
@@ -36,16 +71,19 @@ public class Vertex<V> {
      * @param weight      the weight of the edge to the adjacent vertex
      */
     public void addAdjacentVertex(Vertex<V> destination, double weight) {
+        if (adjVertex == null) {
+            adjVertex = new HashMap<>();
+        }
         adjVertex.put(destination, weight);
     }
 
     /**
      * Returns a map of adjacent vertices and their corresponding weights.
      *
-     * @return a map of adjacent vertices and weights
+     * @return a map of adjacent vertices and weights, empty and unmodifiable if none were added
      */
     public Map<Vertex<V>, Double> getAdjacentVertices() {
-        return adjVertex;
+        return adjVertex == null ? Collections.emptyMap() : adjVertex;
     }
 
     /**
@@ -76,7 +114,7 @@ public class Vertex<V> {
      * @return true if the vertex contains the adjacent vertex, false otherwise
      */
     public boolean containsAdjacentVertex(Vertex<V> vertex) {
-        return adjVertex.containsKey(vertex);
+        return adjVertex != null && adjVertex.containsKey(vertex);
     }
 
     /**
@@ -86,7 +124,7 @@ public class Vertex<V> {
      * @throws IllegalArgumentException if the vertex is not adjacent to this vertex
      */
     private void validateVertex(Vertex<V> vertex) {
-        if (!adjVertex.containsKey(vertex)) {
+        if (!containsAdjacentVertex(vertex)) {
             throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
         }
     }
@@ -95,7 +133,7 @@ public class Vertex<V> {
      * Clears all the adjacent vertices of the vertex.
      */
     public void clearAdjacentVertices() {
-        adjVertex.clear();
+        adjVertex = null;
     }
 
     /**
@@ -104,6 +142,6 @@ public class Vertex<V> {
      * @return the degree of the vertex
      */
     public int getDegree() {
-        return adjVertex.size();
+        return adjVertex == null ? 0 : adjVertex.size();
     }
 }
@@ -0,0 +1,24 @@
+import java.nio.ByteBuffer;
+
+/**
+ * VertexCodec converts vertex data to and from the bytes stored in the payload section of a graph file.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public interface VertexCodec<V> {
+    /**
+     * Encodes the data of a vertex.
+     *
+     * @param data the vertex data
+     * @return the encoded bytes
+     */
+    byte[] encode(V data);
+
+    /**
+     * Decodes the data of a vertex.
+     *
+     * @param bytes a buffer whose remaining bytes are exactly those returned by {@link #encode(Object)}
+     * @return the decoded vertex data
+     */
+    V decode(ByteBuffer bytes);
+}
@@ -0,0 +1,67 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Built-in codecs for common vertex data types.
+ */
+public final class VertexCodecs {
+    private VertexCodecs() {
+    }
+
+    /**
+     * Returns a codec that stores strings as UTF-8.
+     *
+     * @return the string codec
+     */
+    public static VertexCodec<String> strings() {
+        return new VertexCodec<String>() {
+            @Override
+            public byte[] encode(String data) {
+                return data.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(ByteBuffer bytes) {
+                return StandardCharsets.UTF_8.decode(bytes).toString();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec that stores integers as four big-endian bytes.
+     *
+     * @return the integer codec
+     */
+    public static VertexCodec<Integer> integers() {
+        return new VertexCodec<Integer>() {
+            @Override
+            public byte[] encode(Integer data) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(data).array();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer bytes) {
+                return bytes.getInt();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec that stores longs as eight big-endian bytes.
+     *
+     * @return the long codec
+     */
+    public static VertexCodec<Long> longs() {
+        return new VertexCodec<Long>() {
+            @Override
+            public byte[] encode(Long data) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(data).array();
+            }
+
+            @Override
+            public Long decode(ByteBuffer bytes) {
+                return bytes.getLong();
+            }
+        };
+    }
+}
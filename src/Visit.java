@@ -0,0 +1,71 @@
+/**
+ * One vertex produced by a {@link Traversal}, with the edge it was reached through.
+ *
+ * @param <V> the type of data stored in the vertices
+ */
+public class Visit<V> {
+    private final CsrGraph<V> graph;
+    private final int vertex;
+    private final int parent;
+    private final int depth;
+    private final double distance;
+
+    Visit(CsrGraph<V> graph, int vertex, int parent, int depth, double distance) {
+        this.graph = graph;
+        this.vertex = vertex;
+        this.parent = parent;
+        this.depth = depth;
+        this.distance = distance;
+    }
+
+    /**
+     * Returns the visited vertex.
+     *
+     * @return the vertex
+     */
+    public Vertex<V> getVertex() {
+        return graph.vertex(vertex);
+    }
+
+    /**
+     * Returns the id of the visited vertex in the searched snapshot.
+     *
+     * @return the id of the vertex
+     */
+    public int id() {
+        return vertex;
+    }
+
+    /**
+     * Returns the vertex the visited vertex was reached from.
+     *
+     * @return the parent vertex, or null for the start vertex
+     */
+    public Vertex<V> getParent() {
+        return parent == -1 ? null : graph.vertex(parent);
+    }
+
+    /**
+     * Returns the number of edges between the start vertex and the visited vertex in the traversal tree.
+     *
+     * @return the depth of the vertex
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the total weight of the edges between the start vertex and the visited vertex in the traversal
+     * tree, which is the shortest distance for a {@link Traversal.Order#DIJKSTRA} traversal.
+     *
+     * @return the distance of the vertex
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return getVertex().getData() + " (depth " + depth + ", distance " + distance + ")";
+    }
+}
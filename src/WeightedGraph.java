@@ -1,21 +1,42 @@
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 /**
  * A weighted graph implementation that stores vertices and edges with associated weights.
+ * <p>
+ * Vertices get dense ids in the order they are added, and the outgoing and incoming edge lists are kept in
+ * arrays indexed by id. A vertex remembers the id given by the first graph it is added to, so looking it up
+ * needs no hashing; only vertices that already belong to another graph go through a hash map.
  *
  * @param <V> the type of vertex in the graph
  */
 public class WeightedGraph<V> {
-    private Map<Vertex<V>, List<Edge<V>>> list;
+    private static final AtomicInteger TAGS = new AtomicInteger();
+
+    private final int tag = TAGS.incrementAndGet();
+    private List<Vertex<V>> vertices;
+    private List<List<Edge<V>>> list;
+    private List<List<Edge<V>>> incoming;
+    private Map<Vertex<V>, Integer> foreignIds;
+    private List<GraphListener<V>> listeners;
+    private long version;
+    private long edgeCount;
+    private CsrGraph<V> frozen;
+    private long frozenVersion = -1;
 
     /**
      * Constructs an empty weighted graph.
      */
     public WeightedGraph() {
-        list = new HashMap<>();
+        vertices = new ArrayList<>();
+        list = new ArrayList<>();
+        incoming = new ArrayList<>();
+        listeners = new ArrayList<>();
     }
 
     /**
@@ -67,6 +88,16 @@ public class WeightedGraph<V> {
         public double getWeight() {
             return weight;
         }
+
+        /**
+         * Sets the weight of the edge. Callers go through {@link WeightedGraph#setEdgeWeight} so that the
+         * graph can track the change.
+         *
+         * @param weight the new weight of the edge
+         */
+        void setWeight(double weight) {
+            this.weight = weight;
+        }
     }
 
     /**
@@ -75,7 +106,38 @@ public class WeightedGraph<V> {
      * @param vertex the vertex to add
      */
     public void addVertex(Vertex<V> vertex) {
-        list.put(vertex, new ArrayList<>());
+        int id = id(vertex);
+        if (id >= 0) {
+            List<Edge<V>> previous = list.get(id);
+            // Re-adding a vertex drops its outgoing edges one at a time, so listeners see a consistent graph
+            // after every removal
+            while (!previous.isEmpty()) {
+                Edge<V> edge = previous.remove(previous.size() - 1);
+                incoming.get(id(edge.getDestination())).remove(edge);
+                edgeCount--;
+                version++;
+                for (GraphListener<V> listener : listeners) {
+                    listener.edgeRemoved(vertex, edge.getDestination(), edge.getWeight());
+                }
+            }
+        } else {
+            id = vertices.size();
+            if (vertex.getOwner() == 0) {
+                vertex.assignId(tag, id);
+            } else {
+                if (foreignIds == null) {
+                    foreignIds = new HashMap<>();
+                }
+                foreignIds.put(vertex, id);
+            }
+            vertices.add(vertex);
+            list.add(new ArrayList<>());
+            incoming.add(new ArrayList<>());
+        }
+        version++;
+        for (GraphListener<V> listener : listeners) {
+            listener.vertexAdded(vertex);
+        }
     }
 
     /**
@@ -86,11 +148,111 @@ public class WeightedGraph<V> {
      * @param weight      the weight associated with the edge
      */
     public void addEdge(Vertex<V> source, Vertex<V> destination, double weight) {
-        validate(source);
+        List<Edge<V>> edges = list.get(indexOf(source));
+        List<Edge<V>> destinationEdges = incoming.get(indexOf(destination));
+        Edge<V> edge = new Edge<V>(source, destination, weight);
+        edges.add(edge);
+        destinationEdges.add(edge);
+        edgeCount++;
+        version++;
+        for (GraphListener<V> listener : listeners) {
+            listener.edgeAdded(source, destination, weight);
+        }
+    }
+
+    /**
+     * Removes the first edge from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex of the edge
+     * @param destination the destination vertex of the edge
+     * @throws IllegalArgumentException if either vertex is not present or there is no such edge
+     */
+    public void removeEdge(Vertex<V> source, Vertex<V> destination) {
+        int destinationId = indexOf(destination);
+        Iterator<Edge<V>> iterator = getEdge(source).iterator();
+        while (iterator.hasNext()) {
+            Edge<V> edge = iterator.next();
+            if (edge.getDestination().equals(destination)) {
+                iterator.remove();
+                incoming.get(destinationId).remove(edge);
+                edgeCount--;
+                version++;
+                for (GraphListener<V> listener : listeners) {
+                    listener.edgeRemoved(source, destination, edge.getWeight());
+                }
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Edge " + source + " -> " + destination + " is out of the range");
+    }
+
+    /**
+     * Sets the weight of the first edge from the source vertex to the destination vertex.
+     *
+     * @param source      the source vertex of the edge
+     * @param destination the destination vertex of the edge
+     * @param weight      the new weight of the edge
+     * @throws IllegalArgumentException if either vertex is not present or there is no such edge
+     */
+    public void setEdgeWeight(Vertex<V> source, Vertex<V> destination, double weight) {
         validate(destination);
-        List<Edge<V>> edges = list.get(source);
-        edges.add(new Edge<V>(source, destination, weight));
-        list.put(source, edges);
+        for (Edge<V> edge : getEdge(source)) {
+            if (edge.getDestination().equals(destination)) {
+                double oldWeight = edge.getWeight();
+                edge.setWeight(weight);
+                version++;
+                for (GraphListener<V> listener : listeners) {
+                    listener.edgeWeightChanged(source, destination, oldWeight, weight);
+                }
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Edge " + source + " -> " + destination + " is out of the range");
+    }
+
+    /**
+     * Registers a listener that is notified after every mutation of the graph.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(GraphListener<V> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addListener(GraphListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(GraphListener<V> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the modification count of the graph, which increases with every mutation.
+     *
+     * @return the current version of the graph
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of vertices in the graph.
+     *
+     * @return the vertex count
+     */
+    public int vertexCount() {
+        return vertices.size();
+    }
+
+    /**
+     * Returns the number of edges in the graph.
+     *
+     * @return the edge count
+     */
+    public long edgeCount() {
+        return edgeCount;
     }
 
     /**
@@ -100,18 +262,66 @@ public class WeightedGraph<V> {
      * @throws IllegalArgumentException if the vertex is not present in the graph
      */
     public void validate(Vertex<V> vertex) {
-        if (!list.containsKey(vertex)) {
+        indexOf(vertex);
+    }
+
+    /**
+     * Returns the dense id of the specified vertex in this graph.
+     *
+     * @param vertex the vertex to look up
+     * @return the id of the vertex, between 0 and {@link #vertexCount()} - 1
+     * @throws IllegalArgumentException if the vertex is not present in the graph
+     */
+    public int indexOf(Vertex<V> vertex) {
+        int id = id(vertex);
+        if (id < 0) {
             throw new IllegalArgumentException("Vertex " + vertex + " is out of the range");
         }
+        return id;
     }
 
     /**
-     * Returns a list of all vertices in the graph.
+     * Returns the vertex with the specified id.
+     *
+     * @param id the id of the vertex
+     * @return the vertex
+     * @throws IllegalArgumentException if the id is out of the range
+     */
+    public Vertex<V> vertex(int id) {
+        if (id < 0 || id >= vertices.size()) {
+            throw new IllegalArgumentException("Vertex " + id + " is out of the range");
+        }
+        return vertices.get(id);
+    }
+
+    /**
+     * Returns the id of a vertex, or -1 if it is not present in the graph.
+     */
+    private int id(Vertex<V> vertex) {
+        if (vertex.getOwner() == tag) {
+            return vertex.getId();
+        }
+        Integer id = foreignIds == null ? null : foreignIds.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns whether every vertex of the graph has its id from this graph, so that {@link Vertex#getId()}
+     * is the id in this graph.
+     *
+     * @return true if no vertex belongs to another graph
+     */
+    boolean ownsAllVertices() {
+        return foreignIds == null;
+    }
+
+    /**
+     * Returns a list of all vertices in the graph, in the order of their ids.
      *
      * @return a list of vertices
      */
     public List<Vertex<V>> getVertices() {
-        return new ArrayList<>(list.keySet());
+        return new ArrayList<>(vertices);
     }
 
     /**
@@ -121,26 +331,84 @@ public class WeightedGraph<V> {
      */
     public List<Edge<V>> getEdges() {
         List<Edge<V>> allEdges = new ArrayList<>();
-        for (List<Edge<V>> edge : list.values()) {
+        for (List<Edge<V>> edge : list) {
             allEdges.addAll(edge);
         }
         return allEdges;
     }
 
+    /**
+     * Returns a lazy stream of the vertices in the order of their ids, without copying them.
+     * <p>
+     * Like the graph itself, the stream must not be consumed while the graph is being modified.
+     *
+     * @return a stream of the vertices
+     */
+    public Stream<Vertex<V>> streamVertices() {
+        return vertices.stream();
+    }
+
+    /**
+     * Returns a lazy stream of the edges, grouped by source vertex, without copying them.
+     * <p>
+     * Like the graph itself, the stream must not be consumed while the graph is being modified.
+     *
+     * @return a stream of the edges
+     */
+    public Stream<Edge<V>> streamEdges() {
+        return list.stream().flatMap(List::stream);
+    }
+
+    /**
+     * Returns the outgoing edges of the vertex with the specified id, without validation.
+     *
+     * @param id the id of the vertex
+     * @return the live list of outgoing edges
+     */
+    List<Edge<V>> edges(int id) {
+        return list.get(id);
+    }
+
+    /**
+     * Returns the incoming edges of the vertex with the specified id, without validation.
+     *
+     * @param id the id of the vertex
+     * @return the live list of incoming edges
+     */
+    List<Edge<V>> incomingEdges(int id) {
+        return incoming.get(id);
+    }
+
+    /**
+     * Returns a compressed sparse row snapshot of the graph.
+     * <p>
+     * The snapshot is cached and only rebuilt after the graph has been modified, so read-heavy
+     * workloads pay the compaction cost once per batch of mutations.
+     *
+     * @return an immutable CSR view of the current vertices and edges
+     */
+    public CsrGraph<V> freeze() {
+        if (frozen == null || frozenVersion != version) {
+            frozen = CsrGraph.of(this);
+            frozenVersion = version;
+        }
+        return frozen;
+    }
+
     /**
      * Prints the information about the graph, including vertices and edges with their weights.
      */
     public void printGraphInformation() {
         // Print vertices
         System.out.println("Vertices:");
-        for (Vertex<V> vertex : list.keySet()) {
+        for (Vertex<V> vertex : vertices) {
             System.out.println(vertex.getData());
         }
         System.out.println();
 
         // Print edges with weights
         System.out.println("Edges with Weights:");
-        for (List<Edge<V>> edges : list.values()) {
+        for (List<Edge<V>> edges : list) {
             for (Edge<V> edge : edges) {
                 System.out.println("Source: " + edge.getSource().getData());
                 System.out.println("Destination: " + edge.getDestination().getData());
@@ -157,7 +425,16 @@ public class WeightedGraph<V> {
      * @return a list of edges adjacent to the vertex
      */
     public List<Edge<V>> getEdge(Vertex<V> vertex) {
-        validate(vertex);
-        return list.get(vertex);
+        return list.get(indexOf(vertex));
+    }
+
+    /**
+     * Returns the list of edges pointing to the specified vertex.
+     *
+     * @param vertex the vertex to get the incoming edges for
+     * @return a list of edges whose destination is the vertex
+     */
+    public List<Edge<V>> getIncomingEdges(Vertex<V> vertex) {
+        return incoming.get(indexOf(vertex));
     }
 }